@@ -1,9 +1,33 @@
 package com.rakuten.mobile.server.config;
 
+import com.rakuten.mobile.server.tenancy.TenantContext;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.annotation.EnableAsync;
 
 /** Enables @Async listeners/executors for fire-and-forget notifications. */
 @Configuration
 @EnableAsync
-public class AsyncConfig {}
+public class AsyncConfig {
+
+    /**
+     * Carries the caller's tenant into @Async tasks. Spring Boot applies this decorator to the
+     * auto-configured executor, whether it runs on platform threads or on virtual threads.
+     */
+    @Bean
+    public TaskDecorator tenantContextTaskDecorator() {
+        return task -> {
+            String tenant = TenantContext.get();
+            return () -> {
+                String previous = TenantContext.get();
+                TenantContext.set(tenant);
+                try {
+                    task.run();
+                } finally {
+                    if (previous != null) TenantContext.set(previous); else TenantContext.clear();
+                }
+            };
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.rakuten.mobile.server.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers PostgreSQL JSONB operators as HQL functions, so JPQL queries (and with them the
+ * Hibernate tenant filter) can use them.
+ *
+ * - {@code jsonb_matches(json, path)} renders {@code json @@ CAST(path AS jsonpath)}; unlike the
+ *   {@code jsonb_path_match} SQL function, the operator form can use a GIN index on the column.
+ *
+ * Registered through {@code META-INF/services/org.hibernate.boot.model.FunctionContributor}.
+ */
+public class JsonbFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functions) {
+        functions.getFunctionRegistry().registerPattern(
+                "jsonb_matches",
+                "(?1 @@ cast(?2 as jsonpath))",
+                functions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN));
+    }
+}
@@ -2,8 +2,12 @@ package com.rakuten.mobile.server.config;
 
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.rakuten.mobile.server.tenancy.TenantContext;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -12,12 +16,19 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -33,30 +44,59 @@ import java.util.Optional;
  * - Extracts user roles from the JWT and sets them as authorities in the Spring Security context.
  * - Sets the tenant context to allow multi-tenancy support.
  * - Clears the tenant context after processing the request.
+ *
+ * The verifier is built once. Successfully verified tokens are cached by SHA-256 digest
+ * (never the raw token) together with their subject, tenant and authorities, so repeated
+ * requests with the same token skip signature and claim verification. Entries expire exactly
+ * when the token does.
  */
 
 @Profile("!dev")
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
-    private final Algorithm alg;  // Algorithm used for verifying the JWT signature
-    private final String issuer; // The expected issuer of the JWT token
+    private final JWTVerifier verifier; // Prebuilt, thread-safe verifier (HMAC256 + issuer)
+    private final Cache<String, VerifiedToken> verified; // token digest -> verified claims
+    private final Duration maxTtl; // cache lifetime cap, also used for tokens without 'exp'
 
     /**
      * Constructor to initialize JwtAuthFilter with secret key and issuer value.
      *
      * @param secret The secret key used to sign and verify the JWT.
      * @param issuer The expected issuer of the JWT token.
+     * @param cacheSize Maximum number of verified tokens to remember.
+     * @param maxTtlSeconds Longest time a verified token is remembered.
      */
     public JwtAuthFilter(@Value("${app.security.jwt.secret}") String secret,
-                         @Value("${app.security.jwt.issuer}") String issuer) {
+                         @Value("${app.security.jwt.issuer}") String issuer,
+                         @Value("${app.jwt.cache.max-size:10000}") long cacheSize,
+                         @Value("${app.jwt.cache.max-ttl-seconds:3600}") long maxTtlSeconds) {
 
         if (secret == null || secret.isBlank()) {
             // Fail fast with a clear message; avoids a vague bean-creation failure
             throw new IllegalStateException("Missing JWT secret. Set 'app.jwt.secret' in application.properties or as an environment variable.");
         }
-        this.alg = Algorithm.HMAC256(secret); // Initialize the HMAC algorithm with the secret
-        this.issuer = issuer; // Set the expected issuer
+        this.verifier = JWT.require(Algorithm.HMAC256(secret)).withIssuer(issuer).build();
+        this.maxTtl = Duration.ofSeconds(maxTtlSeconds);
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken t, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), t.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken t, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken t, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     /**
@@ -77,9 +117,9 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         try {
             if (auth != null && auth.startsWith("Bearer ")) {
                 String token = auth.substring(7); // Extract the token from the Authorization header
-                DecodedJWT jwt = JWT.require(alg).withIssuer(issuer).build().verify(token);
+                VerifiedToken jwt = verify(token);
 
-                String tenant = jwt.getClaim("tenant").asString();
+                String tenant = jwt.tenant();
                 String headerTenant = req.getHeader("X-Tenant-Id");
 
                 // If the tenant in the JWT does not match the tenant in the request header, return an error
@@ -88,12 +128,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                     return;
                 }
 
-                // Extract roles from the JWT claims, or use an empty list if roles are not present
-                var roles = Optional.ofNullable(jwt.getClaim("roles").asList(String.class)).orElse(List.of());
-                var authorities = roles.stream().map(r -> new SimpleGrantedAuthority("ROLE_" + r)).toList();
-
                 SecurityContextHolder.getContext().setAuthentication(
-                        new UsernamePasswordAuthenticationToken(jwt.getSubject(), null, authorities));
+                        new UsernamePasswordAuthenticationToken(jwt.subject(), null, jwt.authorities()));
 
                 TenantContext.set(tenant);
             }
@@ -106,4 +142,45 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             TenantContext.clear();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Verifies a token, or returns the result of an earlier verification of the same token.
+     *
+     * @param token The raw JWT.
+     * @return The verified claims.
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException If the token is invalid or expired.
+     */
+    private VerifiedToken verify(String token) {
+        String key = digest(token);
+        VerifiedToken cached = verified.getIfPresent(key);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return cached;
+        }
+
+        DecodedJWT jwt = verifier.verify(token);
+        // Extract roles from the JWT claims, or use an empty list if roles are not present
+        var roles = Optional.ofNullable(jwt.getClaim("roles").asList(String.class)).orElse(List.of());
+        List<GrantedAuthority> authorities = roles.stream()
+                .<GrantedAuthority>map(r -> new SimpleGrantedAuthority("ROLE_" + r))
+                .toList();
+
+        Instant cap = Instant.now().plus(maxTtl);
+        Instant exp = jwt.getExpiresAtAsInstant();
+        VerifiedToken v = new VerifiedToken(jwt.getSubject(), jwt.getClaim("tenant").asString(), authorities,
+                exp == null || exp.isAfter(cap) ? cap : exp);
+        verified.put(key, v);
+        return v;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Claims of a token whose signature and claims were verified. */
+    private record VerifiedToken(String subject, String tenant, List<GrantedAuthority> authorities, Instant expiresAt) {}
+}
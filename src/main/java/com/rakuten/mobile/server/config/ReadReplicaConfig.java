@@ -0,0 +1,81 @@
+package com.rakuten.mobile.server.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to read replicas; everything else stays on the primary.
+ *
+ * The application DataSource is a {@link LazyConnectionDataSourceProxy} over a
+ * {@link TransactionRoutingDataSource}: the physical connection is only fetched at the first
+ * statement, when the current transaction is known to be read-only or not, and connections of
+ * read-only transactions come from the {@link ReplicaDataSource}. Hibernate sessions (and the
+ * tenant filter enabled on them) are unaffected by where the connection comes from.
+ *
+ * Hibernate hands its connection back after every transaction. With open-session-in-view one
+ * session spans several transactions of a request, and a connection held for the whole session
+ * would carry the first transaction's choice of database into the later ones.
+ *
+ * Enabled with {@code app.datasource.replicas.enabled=true} and a comma-separated
+ * {@code app.datasource.replicas.urls}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties props) {
+        return props.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                               DataSourceProperties props,
+                                               ReadYourWritesTracker writes,
+                                               @Value("${app.datasource.replicas.urls}") List<String> urls,
+                                               @Value("${app.datasource.replicas.username:}") String username,
+                                               @Value("${app.datasource.replicas.password:}") String password,
+                                               @Value("${app.datasource.replicas.maximum-pool-size:10}") int poolSize,
+                                               @Value("${app.datasource.replicas.max-lag-ms:1000}") long maxLagMs,
+                                               @Value("${app.datasource.replicas.lag-check-interval-ms:1000}") long lagCheckIntervalMs) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource ds = new HikariDataSource();
+            ds.setPoolName("HikariPool-replica-" + (i + 1));
+            ds.setJdbcUrl(urls.get(i).trim());
+            ds.setUsername(username.isBlank() ? props.determineUsername() : username);
+            ds.setPassword(password.isBlank() ? props.determinePassword() : password);
+            ds.setMaximumPoolSize(poolSize);
+            ds.setReadOnly(true);
+            ds.setInitializationFailTimeout(0); // start even if a replica is down
+            replicas.add(ds);
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas, writes, maxLagMs, lagCheckIntervalMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(new TransactionRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+
+    /** Lets Hibernate acquire the connection at first use and hand it back after each transaction. */
+    @Bean
+    public HibernatePropertiesCustomizer connectionHandlingCustomizer() {
+        return props -> props.put("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
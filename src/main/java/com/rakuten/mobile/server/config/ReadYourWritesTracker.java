@@ -0,0 +1,121 @@
+package com.rakuten.mobile.server.config;
+
+import com.rakuten.mobile.server.events.ResponseSubmittedEvent;
+import com.rakuten.mobile.server.events.ResponsesImportedEvent;
+import com.rakuten.mobile.server.events.SurveyDefinitionChangedEvent;
+import com.rakuten.mobile.server.events.TalliesRebuiltEvent;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps a tenant's reads on the primary until the replicas are known to have its writes
+ * (read-your-writes), in two ways:
+ *
+ * - Per node: remembers when each tenant last committed a write here, so its reads on this
+ *   node stay on the primary for the pin window. Another node behind the same load balancer
+ *   knows nothing of the write.
+ * - Across nodes: a write made in a request answers with {@value #TOKEN_HEADER}, the primary's
+ *   WAL position after the commit. A client that sends it back on later requests, to any node,
+ *   only reads from replicas that have replayed that far (see {@link ReplicaDataSource}).
+ *
+ * Writes are submissions, survey and question changes, COPY imports and tally rebuilds.
+ * Submissions written by the batched ingest pipeline commit off the request thread and get no token.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.datasource.replicas", name = "enabled", havingValue = "true")
+public class ReadYourWritesTracker {
+
+    /** Response header carrying the write's WAL position, and request header for sending it back. */
+    public static final String TOKEN_HEADER = "X-Consistency-Token";
+
+    // The insert position covers the commit record even with synchronous_commit off
+    private static final String LSN_SQL = "SELECT pg_current_wal_insert_lsn()::text";
+
+    private static final Pattern LSN = Pattern.compile("([0-9A-Fa-f]{1,8})/([0-9A-Fa-f]{1,8})");
+
+    private final Map<String, Long> lastWriteMs = new ConcurrentHashMap<>();
+    private final JdbcTemplate primary;
+
+    public ReadYourWritesTracker(HikariDataSource primaryDataSource) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onResponseSubmitted(ResponseSubmittedEvent e) {
+        recordWrite(e.tenantId().toString());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDefinitionChanged(SurveyDefinitionChangedEvent e) {
+        recordWrite(e.tenantId().toString());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onResponsesImported(ResponsesImportedEvent e) {
+        recordWrite(e.tenantId().toString());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTalliesRebuilt(TalliesRebuiltEvent e) {
+        recordWrite(e.tenantId().toString());
+    }
+
+    /** Records a committed write for the tenant and, inside a request, hands the client its token. */
+    public void recordWrite(String tenant) {
+        lastWriteMs.put(tenant, System.currentTimeMillis());
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs) {
+            HttpServletResponse res = attrs.getResponse();
+            if (res != null && !res.isCommitted()) {
+                try {
+                    res.setHeader(TOKEN_HEADER, primary.queryForObject(LSN_SQL, String.class));
+                } catch (DataAccessException e) {
+                    log.debug("Could not read the WAL position for a consistency token", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells whether the tenant committed a write on this node within the last {@code windowMs}
+     * milliseconds. Older entries are dropped on the way.
+     */
+    public boolean wroteWithin(String tenant, long windowMs) {
+        Long at = lastWriteMs.get(tenant);
+        if (at == null) return false;
+        if (System.currentTimeMillis() - at < windowMs) return true;
+        lastWriteMs.remove(tenant, at);
+        return false;
+    }
+
+    /**
+     * The WAL position the current request's client asked to read at, from {@value #TOKEN_HEADER};
+     * -1 without a request, a header or a valid position.
+     */
+    public static long requestedLsn() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs) {
+            return parseLsn(attrs.getRequest().getHeader(TOKEN_HEADER));
+        }
+        return -1;
+    }
+
+    /** Parses PostgreSQL's {@code X/Y} text form of a WAL position; -1 if it is not one. */
+    static long parseLsn(String lsn) {
+        Matcher m = lsn == null ? null : LSN.matcher(lsn.trim());
+        if (m == null || !m.matches()) return -1;
+        return Long.parseLong(m.group(1), 16) << 32 | Long.parseLong(m.group(2), 16);
+    }
+}
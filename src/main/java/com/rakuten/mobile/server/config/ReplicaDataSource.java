@@ -0,0 +1,118 @@
+package com.rakuten.mobile.server.config;
+
+import com.rakuten.mobile.server.tenancy.TenantContext;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Source of connections for read-only transactions: round-robins over the replica pools.
+ *
+ * - Replica lag is sampled every {@code lag-check-interval-ms}; replicas further behind than
+ *   {@code max-lag-ms} (or unreachable) are skipped.
+ * - A tenant that committed a write on this node within {@code max-lag-ms + lag-check-interval-ms}
+ *   reads from the primary, since a healthy replica may not have replayed that write yet.
+ * - A request carrying a consistency token ({@link ReadYourWritesTracker#TOKEN_HEADER}), from a
+ *   write on any node, only reads from replicas whose replay position, sampled with the lag,
+ *   has reached it. The sample only trails the replica, so this errs towards the primary.
+ * - Without a healthy replica, reads fall back to the primary.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements Closeable {
+
+    // A server that is not in recovery has every write it will ever see: report its own position
+    private static final String LAG_SQL = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE (extract(epoch FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint END,
+                   (CASE WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn() ELSE pg_current_wal_lsn() END)::text
+            """;
+
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final ReadYourWritesTracker writes;
+    private final long maxLagMs;
+    private final long pinWindowMs;
+    private final AtomicLongArray lagMs;
+    private final AtomicLongArray replayLsn;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaDataSource(DataSource primary,
+                             List<HikariDataSource> replicas,
+                             ReadYourWritesTracker writes,
+                             long maxLagMs,
+                             long lagCheckIntervalMs) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.writes = writes;
+        this.maxLagMs = maxLagMs;
+        this.pinWindowMs = maxLagMs + lagCheckIntervalMs;
+        this.lagMs = new AtomicLongArray(replicas.size()); // optimistic until the first check
+        this.replayLsn = new AtomicLongArray(replicas.size()); // tokens go to the primary until then
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String tenant = TenantContext.get();
+        if (tenant != null && writes.wroteWithin(tenant, pinWindowMs)) {
+            return primary.getConnection();
+        }
+        long token = ReadYourWritesTracker.requestedLsn();
+        int n = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            int r = (start + i) % n;
+            if (lagMs.get(r) > maxLagMs || replayLsn.get(r) < token) continue;
+            try {
+                return replicas.get(r).getConnection();
+            } catch (SQLException e) {
+                lagMs.set(r, Long.MAX_VALUE); // skip until the next successful lag check
+                log.warn("Replica {} unavailable, trying the next one", replicas.get(r).getPoolName(), e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    /**
+     * Samples the replay lag and position of every replica.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.lag-check-interval-ms:1000}")
+    public void refreshLag() {
+        for (int r = 0; r < replicas.size(); r++) {
+            try (Connection con = replicas.get(r).getConnection();
+                 Statement st = con.createStatement();
+                 ResultSet rs = st.executeQuery(LAG_SQL)) {
+                if (rs.next()) {
+                    lagMs.set(r, rs.getLong(1));
+                    replayLsn.set(r, ReadYourWritesTracker.parseLsn(rs.getString(2)));
+                } else {
+                    lagMs.set(r, Long.MAX_VALUE);
+                }
+            } catch (SQLException e) {
+                lagMs.set(r, Long.MAX_VALUE);
+                log.debug("Lag check failed for replica {}", replicas.get(r).getPoolName(), e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
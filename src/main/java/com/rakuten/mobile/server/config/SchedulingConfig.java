@@ -0,0 +1,9 @@
+package com.rakuten.mobile.server.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Enables @Scheduled background maintenance jobs (partition upkeep, sweepers). */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {}
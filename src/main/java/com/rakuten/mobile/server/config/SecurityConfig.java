@@ -7,6 +7,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -27,11 +28,12 @@ import java.util.List;
  * - CORS allowed (tighten for prod).
  * - Our JwtAuthFilter runs BEFORE UsernamePasswordAuthenticationFilter.
  * - Protects all /api/** endpoints; leaves actuator and Swagger open for dev.
+ * - Method security: admin-only operations carry @PreAuthorize.
  */
 @Profile("!dev")
 @Configuration
 @EnableWebSecurity
-// @EnableMethodSecurity // enable if you add @PreAuthorize on service/controller methods
+@EnableMethodSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
@@ -67,8 +69,8 @@ public class SecurityConfig {
         CorsConfiguration cfg = new CorsConfiguration();
         cfg.setAllowedOrigins(List.of("*")); // e.g. List.of("https://your-frontend.example")
         cfg.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        cfg.setAllowedHeaders(List.of("Authorization", "Content-Type", "X-Tenant-Id"));
-        cfg.setExposedHeaders(List.of("Location"));
+        cfg.setAllowedHeaders(List.of("Authorization", "Content-Type", "X-Tenant-Id", "X-Consistency-Token"));
+        cfg.setExposedHeaders(List.of("Location", "X-Consistency-Token"));
         cfg.setAllowCredentials(false);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,34 @@
+package com.rakuten.mobile.server.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Hands out replica connections inside read-only Spring transactions and primary connections
+ * everywhere else, including outside any transaction.
+ *
+ * The decision is taken from {@link TransactionSynchronizationManager#isCurrentTransactionReadOnly()}
+ * when a connection is fetched, which the transaction manager sets up before the first statement.
+ * It does not depend on {@code Connection.setReadOnly} being called, which Hibernate skips when
+ * it releases connections after each transaction.
+ */
+public class TransactionRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    public TransactionRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+    }
+}
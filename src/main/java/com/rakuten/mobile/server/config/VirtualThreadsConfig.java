@@ -0,0 +1,38 @@
+package com.rakuten.mobile.server.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Extra wiring for the {@code vt} profile, which runs request handling, @Async and scheduled
+ * work on virtual threads (see {@code application-vt.properties}).
+ *
+ * Virtual threads remove the natural concurrency cap of the Tomcat worker pool, so the
+ * DataSource is wrapped in a {@link ConnectionLimitingDataSource} sized to the Hikari pool.
+ */
+@Configuration
+@Profile("vt")
+public class VirtualThreadsConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Only the application-facing DataSource; pools behind a routing proxy are left alone.
+                if ("dataSource".equals(beanName) && bean instanceof DataSource ds
+                        && !(bean instanceof ConnectionLimitingDataSource)) {
+                    int poolSize = env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                    long timeoutMs = env.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30000L);
+                    return new ConnectionLimitingDataSource(ds, poolSize, timeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.rakuten.mobile.server.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Filter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An asynchronous export of a survey's responses.
+ * The result is written to a file in the spool directory of the node that ran the job and can be
+ * downloaded until the job expires.
+ */
+@Getter @Setter
+@Entity
+@Table(name = "export_jobs")
+@Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
+public class ExportJob {
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    @Id @Column(columnDefinition = "uuid")
+    private UUID id = UUID.randomUUID(); // Unique identifier for the job
+
+    @Column(name = "tenant_id", nullable = false, columnDefinition = "uuid")
+    private UUID tenantId; // Tenant ID for multi-tenancy
+
+    @Column(name = "survey_id", nullable = false, columnDefinition = "uuid")
+    private UUID surveyId; // Survey being exported
+
+    @Column(nullable = false)
+    private String format; // csv, wide or json
+
+    private String filter; // Answer filter expression, if any
+
+    @Column(nullable = false)
+    private String status = QUEUED; // QUEUED, RUNNING, DONE or FAILED
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes; // Size of the result file once DONE
+
+    private String error; // Failure reason once FAILED
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt; // Last time the node holding the queued job confirmed it is still queued
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt; // The result file and the job are removed after this time
+}
@@ -4,13 +4,14 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.LocalDate;
 import java.util.UUID;
 
 @Getter @Setter
 @Entity
 @Table(
         name = "idempotency_keys",
-        uniqueConstraints = @UniqueConstraint(name = "uq_idem_tenant_key", columnNames = {"tenant_id", "idem_key"})
+        uniqueConstraints = @UniqueConstraint(name = "uq_idem_tenant_key", columnNames = {"tenant_id", "idem_key", "created_day"})
 )
 public class IdempotencyKey {
     @Id
@@ -26,6 +27,9 @@ public class IdempotencyKey {
     @Column(name = "created_at_epoch", nullable = false)
     private long createdAtEpoch;
 
+    @Column(name = "created_day", nullable = false)
+    private LocalDate createdDay;                   // <-- partition key (UTC day)
+
     @Column(name = "response_id", columnDefinition = "uuid")
     private UUID responseId;
 }
\ No newline at end of file
@@ -32,7 +32,7 @@ public class OptionChoice {
     @Column(nullable = false)
     private String label;     // ✅ This matches o.getLabel()
 
-    @Column(name = "option_value")
+    @Column(name = "value")
     private String value;     // ✅ This matches o.getValue()
 
     @Column(nullable = false)
@@ -41,5 +41,8 @@ public class Response {
 
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "answers_json")
-    private Map<String, Object> answersJson;
+    private Map<String, Object> answersJson; // Answers keyed by question ID (written compact when schemaVersion is set)
+
+    @Column(name = "schema_version")
+    private Long schemaVersion; // survey_schemas version of a compact answers_json; null for the keyed format
 }
@@ -0,0 +1,55 @@
+package com.rakuten.mobile.server.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Read-only view of a response for the read and export paths.
+ * Unlike {@link Response}, the answers are kept as the JSONB text returned by the driver, so they
+ * can be written to the client as a raw JSON value without being parsed into a map and re-serialized.
+ * Answers stored in the compact format are decoded to the keyed form by PostgreSQL in the same query.
+ */
+@Getter
+@Entity
+@Immutable
+@Table(name = "responses")
+@Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
+public class ResponseView {
+    @Id @Column(columnDefinition = "uuid")
+    private UUID id;
+
+    @Column(name = "tenant_id", nullable = false, columnDefinition = "uuid")
+    private UUID tenantId;
+
+    @Column(name = "survey_id", nullable = false, columnDefinition = "uuid")
+    private UUID surveyId;
+
+    @Column(name = "respondent_id", columnDefinition = "uuid")
+    private UUID respondentId;
+
+    @Column(name = "submitted_at", nullable = false)
+    private Instant submittedAt;
+
+    @Column(name = "answers_json", columnDefinition = "jsonb")
+    private String storedAnswersJson; // JSONB text as stored: keyed object, or compact array when schemaVersion is set
+
+    @Column(name = "schema_version")
+    private Long schemaVersion;
+
+    @Formula("(CASE WHEN schema_version IS NOT NULL THEN decode_response_answers(answers_json, survey_id, schema_version) END)")
+    private String decodedAnswersJson; // keyed JSONB text of compact rows; null for keyed rows
+
+    /** The answers keyed by question ID, as JSON text, whichever format they are stored in. */
+    public String getAnswersJson() {
+        return decodedAnswersJson != null ? decodedAnswersJson : storedAnswersJson;
+    }
+}
@@ -47,4 +47,7 @@ public class Survey {
 
     @Column(name = "endsAt")
     private Instant endsAt;
+
+    @Column(name = "definition_version", nullable = false)
+    private long definitionVersion = 1; // Bumped on every change to the survey or its questions
 }
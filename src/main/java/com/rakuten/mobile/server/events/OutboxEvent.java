@@ -0,0 +1,11 @@
+package com.rakuten.mobile.server.events;
+
+import java.util.UUID;
+
+/**
+ * Marks a domain event that must be delivered to the outside world. Publishing one inside a
+ * transaction stores it in the outbox as part of that transaction.
+ */
+public interface OutboxEvent {
+    UUID tenantId();
+}
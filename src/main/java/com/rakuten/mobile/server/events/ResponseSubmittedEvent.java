@@ -0,0 +1,11 @@
+package com.rakuten.mobile.server.events;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Domain event emitted when a new response is written (not for idempotent replays).
+ * {@code tallyGeneration} is the survey's tally generation read in the writing transaction.
+ */
+public record ResponseSubmittedEvent(UUID tenantId, UUID surveyId, UUID responseId, Map<String, Object> answers,
+                                     long tallyGeneration) {}
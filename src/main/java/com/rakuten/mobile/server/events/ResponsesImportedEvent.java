@@ -0,0 +1,6 @@
+package com.rakuten.mobile.server.events;
+
+import java.util.UUID;
+
+/** Domain event emitted when responses are loaded into a survey in bulk (COPY import). */
+public record ResponsesImportedEvent(UUID tenantId, UUID surveyId, int count) {}
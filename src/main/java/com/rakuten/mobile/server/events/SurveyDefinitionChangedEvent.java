@@ -0,0 +1,6 @@
+package com.rakuten.mobile.server.events;
+
+import java.util.UUID;
+
+/** Domain event emitted when a survey is created or its status or question set changes. */
+public record SurveyDefinitionChangedEvent(UUID tenantId, UUID surveyId) {}
@@ -0,0 +1,6 @@
+package com.rakuten.mobile.server.events;
+
+import java.util.UUID;
+
+/** Domain event emitted when a survey's result tallies are recomputed from its responses. */
+public record TalliesRebuiltEvent(UUID tenantId, UUID surveyId) {}
@@ -0,0 +1,286 @@
+package com.rakuten.mobile.server.export;
+
+import com.rakuten.mobile.server.domain.ExportJob;
+import com.rakuten.mobile.server.repo.ExportJobRepository;
+import com.rakuten.mobile.server.service.AnswerFilter;
+import com.rakuten.mobile.server.service.SurveyService;
+import com.rakuten.mobile.server.tenancy.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs response exports in the background.
+ *
+ * A submitted job is recorded in {@code export_jobs} and handed to a small, bounded worker pool.
+ * The worker streams the export through {@link ResponseExportWriter} into {@code <jobId>.part} in
+ * the local spool directory and renames it to its final name once complete, so a download never
+ * sees a half-written file. Each tenant may have a limited number of queued or running jobs, and
+ * the pool queue itself is bounded; both limits are reported as {@link ExportQuotaExceededException}.
+ *
+ * Finished jobs (and their files) are removed once they expire. A job running for longer than
+ * {@code app.exports.max-runtime-minutes} since it started is failed. Queued jobs wait in the
+ * memory of the node that accepted them; that node refreshes their {@code heartbeat_at} on every
+ * cleanup tick, and a queued job not refreshed for three ticks is failed, since its node is gone.
+ * Every status change out of QUEUED or RUNNING is a conditional update on the expected status,
+ * so the sweep and a worker finishing at the same time cannot overwrite each other's outcome.
+ */
+@Slf4j
+@Service
+public class ExportJobService {
+
+    private static final List<String> ACTIVE = List.of(ExportJob.QUEUED, ExportJob.RUNNING);
+    private static final String PART_SUFFIX = ".part";
+
+    private final ExportJobRepository jobs;
+    private final SurveyService surveys;
+    private final ResponseExportWriter writer;
+    private final EntityManager em;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final Path spoolDir;
+    private final int maxActivePerTenant;
+    private final Duration retention;
+    private final Duration maxRuntime;
+    private final Duration queuedTimeout;
+    private final Set<UUID> queued = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor workers;
+
+    public ExportJobService(ExportJobRepository jobs,
+                            SurveyService surveys,
+                            ResponseExportWriter writer,
+                            EntityManager em,
+                            JdbcTemplate jdbc,
+                            PlatformTransactionManager txManager,
+                            @Value("${app.exports.spool-dir:${java.io.tmpdir}/survey-exports}") String spoolDir,
+                            @Value("${app.exports.workers:2}") int workers,
+                            @Value("${app.exports.queue-capacity:100}") int queueCapacity,
+                            @Value("${app.exports.max-active-per-tenant:3}") int maxActivePerTenant,
+                            @Value("${app.exports.retention-hours:24}") long retentionHours,
+                            @Value("${app.exports.max-runtime-minutes:60}") long maxRuntimeMinutes,
+                            @Value("${app.exports.cleanup-interval-ms:600000}") long cleanupIntervalMs) {
+        this.jobs = jobs;
+        this.surveys = surveys;
+        this.writer = writer;
+        this.em = em;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.spoolDir = Paths.get(spoolDir).toAbsolutePath();
+        this.maxActivePerTenant = maxActivePerTenant;
+        this.retention = Duration.ofHours(retentionHours);
+        this.maxRuntime = Duration.ofMinutes(maxRuntimeMinutes);
+        this.queuedTimeout = Duration.ofMillis(3 * cleanupIntervalMs);
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "export-worker-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        Files.createDirectories(spoolDir);
+    }
+
+    /**
+     * Stops the workers; interrupted jobs are failed later by the stale-job sweep.
+     */
+    @PreDestroy
+    void stop() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Records an export job for the survey and queues it.
+     *
+     * @param surveyId The ID of the survey to export.
+     * @param format "json", "wide" or "csv", as for the synchronous export.
+     * @param filter Optional answer filter (see AnswerFilter); validated here, applied by the worker.
+     * @return The queued job.
+     * @throws IllegalArgumentException If the survey is not found.
+     * @throws ExportQuotaExceededException If the tenant has too many jobs in flight or the queue is full.
+     */
+    public ExportJob submit(UUID surveyId, String format, String filter) {
+        surveys.get(surveyId).orElseThrow(() -> new IllegalArgumentException("Survey not found"));
+        AnswerFilter.parse(filter); // reject bad filters now rather than in the worker
+        UUID tenantId = UUID.fromString(TenantContext.required());
+
+        ExportJob job = tx.execute(status -> {
+            // Serializes the tenant's submissions so concurrent requests cannot both pass the quota check
+            jdbc.query("SELECT pg_advisory_xact_lock(hashtext(?))", (RowCallbackHandler) rs -> {}, "export_jobs:" + tenantId);
+            if (jobs.countByTenantIdAndStatusIn(tenantId, ACTIVE) >= maxActivePerTenant) {
+                throw new ExportQuotaExceededException("Too many export jobs in progress");
+            }
+            ExportJob j = new ExportJob();
+            j.setTenantId(tenantId);
+            j.setSurveyId(surveyId);
+            j.setFormat(ResponseExportWriter.normalizeFormat(format));
+            j.setFilter(filter == null || filter.isBlank() ? null : filter);
+            em.persist(j);
+            return j;
+        });
+
+        queued.add(job.getId());
+        try {
+            workers.execute(() -> run(job.getId()));
+        } catch (RejectedExecutionException e) {
+            queued.remove(job.getId());
+            finish(job.getId(), ExportJob.QUEUED, ExportJob.FAILED, null, "Export queue is full");
+            throw new ExportQuotaExceededException("Export queue is full");
+        }
+        return job;
+    }
+
+    /**
+     * Looks up a job of the survey, scoped to the current tenant.
+     *
+     * @throws IllegalArgumentException If the job is not found.
+     */
+    public ExportJob get(UUID surveyId, UUID jobId) {
+        return jobs.findByIdAndSurveyId(jobId, surveyId)
+                .orElseThrow(() -> new IllegalArgumentException("Export job not found"));
+    }
+
+    /**
+     * Resolves the result file of a finished job.
+     *
+     * @throws IllegalArgumentException If the job or its file is not found on this node.
+     * @throws IllegalStateException If the job has not finished successfully.
+     */
+    public Path resultFile(ExportJob job) {
+        if (!ExportJob.DONE.equals(job.getStatus())) {
+            throw new IllegalStateException("Export job is " + job.getStatus());
+        }
+        Path file = fileOf(job);
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Export file not found");
+        }
+        return file;
+    }
+
+    /**
+     * Refreshes this node's queued jobs, removes expired jobs with their files, fails jobs running
+     * too long or queued on a node that is gone, and deletes spool files no job refers to any more.
+     * A transaction-scoped advisory lock keeps the sweep to one node at a time; every node
+     * refreshes its own queued jobs and sweeps its own spool directory.
+     */
+    @Scheduled(fixedDelayString = "${app.exports.cleanup-interval-ms:600000}")
+    public void cleanup() {
+        Instant now = Instant.now();
+        try {
+            // Every node vouches for the jobs waiting in its own queue
+            List<UUID> waiting = List.copyOf(queued);
+            if (!waiting.isEmpty()) {
+                tx.executeWithoutResult(status -> jobs.touchQueued(waiting, now));
+            }
+            tx.executeWithoutResult(status -> {
+                Boolean locked = jdbc.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(hashtext('export_jobs_cleanup'))", Boolean.class);
+                if (!Boolean.TRUE.equals(locked)) return;
+
+                jobs.failRunningStartedBefore(now.minus(maxRuntime), "Export did not finish in time", now, now.plus(retention));
+                jobs.failQueuedSeenBefore(now.minus(queuedTimeout), "Export was lost before it started", now, now.plus(retention));
+                List<ExportJob> expired = jobs.findByExpiresAtBefore(now);
+                expired.forEach(j -> deleteQuietly(fileOf(j)));
+                jobs.deleteAllInBatch(expired);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Export job cleanup failed", e);
+        }
+
+        // Files whose job was removed elsewhere, or left behind by a crash
+        Instant orphanedBefore = now.minus(retention).minus(maxRuntime);
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            files.filter(f -> modifiedBefore(f, orphanedBefore)).forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Could not sweep export spool {}", spoolDir, e);
+        }
+    }
+
+    private void run(UUID jobId) {
+        queued.remove(jobId);
+        ExportJob job = tx.execute(status -> jobs.start(jobId, Instant.now()) > 0 ? jobs.findById(jobId).orElse(null) : null);
+        if (job == null) return; // failed by the sweep while queued
+
+        Path part = spoolDir.resolve(jobId + PART_SUFFIX);
+        TenantContext.set(job.getTenantId().toString());
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part), 64 * 1024)) {
+                writer.write(job.getSurveyId(), job.getFormat(), AnswerFilter.parse(job.getFilter()), out);
+            }
+            Path file = fileOf(job);
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            if (!finish(jobId, ExportJob.RUNNING, ExportJob.DONE, Files.size(file), null)) {
+                log.warn("Export job {} finished after it had been failed as stale", jobId);
+                deleteQuietly(file);
+            }
+        } catch (Exception e) {
+            log.warn("Export job {} failed", jobId, e);
+            deleteQuietly(part);
+            finish(jobId, ExportJob.RUNNING, ExportJob.FAILED, null, "Export failed");
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    /**
+     * Moves a job from {@code expected} to its final status; returns false if it was no longer in
+     * {@code expected} (e.g. already failed by the stale-job sweep).
+     */
+    private boolean finish(UUID jobId, String expected, String status, Long sizeBytes, String error) {
+        Instant now = Instant.now();
+        Integer updated = tx.execute(s -> jobs.finish(jobId, expected, status, sizeBytes, error, now, now.plus(retention)));
+        return updated != null && updated > 0;
+    }
+
+    private Path fileOf(ExportJob job) {
+        return spoolDir.resolve(job.getId() + "." + ResponseExportWriter.fileExtension(job.getFormat()));
+    }
+
+    private static boolean modifiedBefore(Path file, Instant before) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(before);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}", file, e);
+        }
+    }
+}
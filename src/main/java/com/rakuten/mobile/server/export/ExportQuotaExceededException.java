@@ -0,0 +1,11 @@
+package com.rakuten.mobile.server.export;
+
+/**
+ * Thrown when a tenant has too many export jobs in flight or the export queue is full.
+ * Mapped to 429 so clients retry later.
+ */
+public class ExportQuotaExceededException extends RuntimeException {
+    public ExportQuotaExceededException(String message) {
+        super(message);
+    }
+}
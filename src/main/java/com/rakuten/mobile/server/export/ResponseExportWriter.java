@@ -0,0 +1,219 @@
+package com.rakuten.mobile.server.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakuten.mobile.server.domain.Question;
+import com.rakuten.mobile.server.repo.ResponseExportRow;
+import com.rakuten.mobile.server.service.AnswerFilter;
+import com.rakuten.mobile.server.service.QuestionService;
+import com.rakuten.mobile.server.service.ResponseService;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes survey responses to an output stream incrementally.
+ *
+ * Rows are pulled from a database cursor and written as soon as they are read, so neither
+ * the entity list nor the rendered document is ever held in memory. Answers arrive as raw JSONB
+ * text and are copied out as is (JSON) or split into per-question slices (CSV), never parsed into maps.
+ *  - CSV produces one row per answer (response_id, submitted_at, respondent_id, question_id, value_json).
+ *  - WIDE produces one CSV row per response (response_id, submitted_at, respondent_id, then one column
+ *    per question in position order, headed by the question text), with choices resolved to option labels.
+ *  - JSON produces an array: [{ responseId, submittedAt, respondentId, answers:{questionId:value} }]
+ */
+@Component
+public class ResponseExportWriter {
+
+    public static final String CSV = "csv";
+    public static final String WIDE = "wide";
+    public static final String JSON = "json";
+
+    private static final String CSV_HEADER = "response_id,submitted_at,respondent_id,question_id,value_json";
+    private static final String WIDE_HEADER_PREFIX = "response_id,submitted_at,respondent_id";
+
+    private final ResponseService responses;
+    private final QuestionService questions;
+    private final ObjectMapper om;
+
+    public ResponseExportWriter(ResponseService responses, QuestionService questions, ObjectMapper om) {
+        this.responses = responses;
+        this.questions = questions;
+        this.om = om;
+    }
+
+    /** Maps a requested format onto one of {@link #CSV}, {@link #WIDE} or {@link #JSON}; unknown formats are CSV. */
+    public static String normalizeFormat(String format) {
+        if (JSON.equalsIgnoreCase(format)) return JSON;
+        if (WIDE.equalsIgnoreCase(format)) return WIDE;
+        return CSV;
+    }
+
+    /** The file extension of an export in the given (normalized) format. */
+    public static String fileExtension(String format) {
+        return JSON.equals(format) ? "json" : "csv";
+    }
+
+    /**
+     * Streams the export of a survey in the requested format.
+     *
+     * @param surveyId The ID of the survey to export.
+     * @param format "json" for a JSON array, "wide" for one CSV row per response; anything else produces CSV.
+     * @param filter Only responses matching this answer filter are exported; null exports all.
+     * @param out The destination stream; it is flushed but not closed.
+     * @throws IOException If writing to the destination fails.
+     */
+    public void write(UUID surveyId, String format, AnswerFilter filter, OutputStream out) throws IOException {
+        switch (normalizeFormat(format)) {
+            case JSON -> writeJson(surveyId, filter, out);
+            case WIDE -> writeWide(surveyId, filter, out);
+            default -> writeCsv(surveyId, filter, out);
+        }
+    }
+
+    private void writeJson(UUID surveyId, AnswerFilter filter, OutputStream out) throws IOException {
+        JsonGenerator gen = om.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.writeStartArray();
+        forEachRow(surveyId, filter, r -> {
+            gen.writeStartObject();
+            gen.writeStringField("responseId", r.id().toString());
+            gen.writeStringField("submittedAt", r.submittedAt().toString());
+            gen.writeStringField("respondentId", r.respondentId() == null ? null : r.respondentId().toString());
+            gen.writeFieldName("answers");
+            if (r.answersJson() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeRawValue(r.answersJson());
+            }
+            gen.writeEndObject();
+        });
+        gen.writeEndArray();
+        gen.close();
+        out.flush();
+    }
+
+    private void writeCsv(UUID surveyId, AnswerFilter filter, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        forEachRow(surveyId, filter, r -> {
+            if (r.answersJson() == null) return;
+            String prefix = r.id() + "," + r.submittedAt() + "," + (r.respondentId() == null ? "" : r.respondentId()) + ",";
+            forEachAnswer(r.answersJson(), (questionId, valueJson) -> {
+                writer.write(prefix);
+                writer.write(questionId);
+                writer.write(',');
+                writer.write(csvQuote(valueJson));
+                writer.write('\n');
+            });
+        });
+        writer.flush();
+    }
+
+    /**
+     * Writes one row per response. The question and option lookups are loaded once up front; each
+     * row is parsed straight into a reused cell array, so memory does not grow with the response count.
+     */
+    private void writeWide(UUID surveyId, AnswerFilter filter, OutputStream out) throws IOException {
+        List<Question> qs = questions.list(surveyId);
+        WideColumns columns = WideColumns.of(qs, questions.optionsByQuestion(qs));
+        String[] cells = new String[columns.size()];
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(WIDE_HEADER_PREFIX);
+        for (int i = 0; i < columns.size(); i++) {
+            writer.write(',');
+            writer.write(csvQuote(columns.header(i)));
+        }
+        writer.write('\n');
+        forEachRow(surveyId, filter, r -> {
+            if (r.answersJson() == null) {
+                Arrays.fill(cells, null);
+            } else {
+                try (JsonParser p = om.getFactory().createParser(r.answersJson())) {
+                    columns.read(r.answersJson(), p, cells);
+                }
+            }
+            writer.write(r.id().toString());
+            writer.write(',');
+            writer.write(r.submittedAt().toString());
+            writer.write(',');
+            if (r.respondentId() != null) writer.write(r.respondentId().toString());
+            for (String cell : cells) {
+                writer.write(',');
+                writer.write(csvQuote(cell));
+            }
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    /**
+     * Walks the top-level fields of an answers document with a streaming parser and hands each
+     * value over as its slice of the original text, so values are neither materialized nor re-serialized.
+     */
+    private void forEachAnswer(String answersJson, AnswerWriter action) throws IOException {
+        try (JsonParser p = om.getFactory().createParser(answersJson)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String questionId = p.currentName();
+                p.nextToken();
+                int start = (int) p.currentTokenLocation().getCharOffset();
+                if (p.currentToken().isStructStart()) {
+                    p.skipChildren();
+                } else {
+                    p.finishToken(); // strings are otherwise read lazily
+                }
+                int end = (int) p.currentLocation().getCharOffset();
+                action.write(questionId, answersJson.substring(start, end));
+            }
+        }
+    }
+
+    /** Runs the row action over the export cursor, surfacing write failures as IOException. */
+    private void forEachRow(UUID surveyId, AnswerFilter filter, RowWriter action) throws IOException {
+        try {
+            responses.forEachExportRow(surveyId, filter, r -> {
+                try {
+                    action.write(r);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Quotes a CSV field per RFC 4180 when it contains a delimiter, quote or line break. */
+    static String csvQuote(String value) {
+        if (value == null) return "";
+        boolean needsQuotes = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!needsQuotes) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResponseExportRow row) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface AnswerWriter {
+        void write(String questionId, String valueJson) throws IOException;
+    }
+}
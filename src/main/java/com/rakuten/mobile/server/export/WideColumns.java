@@ -0,0 +1,166 @@
+package com.rakuten.mobile.server.export;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.rakuten.mobile.server.domain.OptionChoice;
+import com.rakuten.mobile.server.domain.Question;
+import com.rakuten.mobile.server.domain.QuestionType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Column layout of the wide export: one column per question, in position order.
+ *
+ * Choice answers are resolved to option labels through a per-question value-to-ordinal lookup
+ * built once per export. Single and multiple choice cells are rendered the same way: the chosen
+ * labels in option order, de-duplicated and joined with {@value #CHOICE_DELIMITER}; values that
+ * match no current option follow as given. A {@code \} or {@code |} inside a label or value is
+ * escaped as {@code \\} or {@code \|}, so a cell always splits back into the original choices.
+ */
+final class WideColumns {
+
+    /** Separates the choices in a cell; escaped with a backslash where it occurs in a choice. */
+    static final String CHOICE_DELIMITER = "|";
+
+    private final Map<String, Integer> columnByQuestion;
+    private final String[] headers;
+    private final Choices[] choices; // null for non-choice questions
+
+    private WideColumns(Map<String, Integer> columnByQuestion, String[] headers, Choices[] choices) {
+        this.columnByQuestion = columnByQuestion;
+        this.headers = headers;
+        this.choices = choices;
+    }
+
+    /**
+     * @param questions The survey's questions in position order.
+     * @param options The options of each question, in position order.
+     */
+    static WideColumns of(List<Question> questions, Map<UUID, List<OptionChoice>> options) {
+        Map<String, Integer> columns = new HashMap<>();
+        String[] headers = new String[questions.size()];
+        Choices[] choices = new Choices[questions.size()];
+        for (int i = 0; i < questions.size(); i++) {
+            Question q = questions.get(i);
+            columns.put(q.getId().toString(), i);
+            headers[i] = q.getText();
+            if (q.getType() == QuestionType.SINGLE_CHOICE || q.getType() == QuestionType.MULTI_CHOICE) {
+                choices[i] = Choices.of(options.getOrDefault(q.getId(), List.of()));
+            }
+        }
+        return new WideColumns(Map.copyOf(columns), headers, choices);
+    }
+
+    int size() {
+        return headers.length;
+    }
+
+    String header(int column) {
+        return headers[column];
+    }
+
+    /**
+     * Reads one answers document into one cell per column; unanswered questions stay null.
+     * Answers to questions that no longer exist are skipped.
+     *
+     * @param answersJson The answers document (keyed by question id).
+     * @param p A parser positioned before the document's first token.
+     * @param cells Receives the cells; cleared first.
+     */
+    void read(String answersJson, JsonParser p, String[] cells) throws IOException {
+        Arrays.fill(cells, null);
+        if (p.nextToken() != JsonToken.START_OBJECT) return;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            Integer column = columnByQuestion.get(p.currentName());
+            JsonToken t = p.nextToken();
+            if (column == null) {
+                p.skipChildren();
+            } else if (choices[column] != null) {
+                cells[column] = choices[column].render(p);
+            } else if (t.isStructStart()) {
+                int start = (int) p.currentTokenLocation().getCharOffset();
+                p.skipChildren();
+                cells[column] = answersJson.substring(start, (int) p.currentLocation().getCharOffset());
+            } else if (t != JsonToken.VALUE_NULL) {
+                cells[column] = p.getText();
+            }
+        }
+    }
+
+    /** Option lookup of one choice question. */
+    private record Choices(Map<String, Integer> ordinals, String[] labels) {
+
+        static Choices of(List<OptionChoice> options) {
+            Map<String, Integer> ordinals = new HashMap<>();
+            String[] labels = new String[options.size()];
+            for (int i = 0; i < options.size(); i++) {
+                OptionChoice o = options.get(i);
+                // Options created without a value are answered with their label.
+                ordinals.putIfAbsent(o.getValue() != null ? o.getValue() : o.getLabel(), i);
+                labels[i] = escape(o.getLabel());
+            }
+            return new Choices(Map.copyOf(ordinals), labels);
+        }
+
+        /** Renders a scalar or an array of chosen values; the parser is left on the value's last token. */
+        String render(JsonParser p) throws IOException {
+            JsonToken t = p.currentToken();
+            if (t == JsonToken.VALUE_NULL) return null;
+            boolean[] chosen = new boolean[labels.length];
+            List<String> unknown = new ArrayList<>(0);
+            if (t == JsonToken.START_ARRAY) {
+                while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+                    if (t.isStructStart()) {
+                        p.skipChildren();
+                    } else if (t != JsonToken.VALUE_NULL) {
+                        pick(p.getText(), chosen, unknown);
+                    }
+                }
+            } else if (t.isStructStart()) {
+                p.skipChildren();
+                return null;
+            } else {
+                pick(p.getText(), chosen, unknown);
+            }
+
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < chosen.length; i++) {
+                if (!chosen[i]) continue;
+                if (!sb.isEmpty()) sb.append(CHOICE_DELIMITER);
+                sb.append(labels[i]);
+            }
+            for (String v : unknown) {
+                if (!sb.isEmpty()) sb.append(CHOICE_DELIMITER);
+                sb.append(escape(v));
+            }
+            return sb.toString();
+        }
+
+        /** Escapes {@code \} and the delimiter with a backslash. */
+        static String escape(String choice) {
+            if (choice == null || (choice.indexOf('\\') < 0 && choice.indexOf('|') < 0)) return choice;
+            StringBuilder sb = new StringBuilder(choice.length() + 4);
+            for (int i = 0; i < choice.length(); i++) {
+                char c = choice.charAt(i);
+                if (c == '\\' || c == '|') sb.append('\\');
+                sb.append(c);
+            }
+            return sb.toString();
+        }
+
+        private void pick(String value, boolean[] chosen, List<String> unknown) {
+            Integer ordinal = ordinals.get(value);
+            if (ordinal != null) {
+                chosen[ordinal] = true;
+            } else if (!unknown.contains(value)) {
+                unknown.add(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.rakuten.mobile.server.ingest;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.rakuten.mobile.server.service.SubmissionValidator;
+import com.rakuten.mobile.server.web.dto.SubmitResponseReq;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Imports NDJSON uploads of responses: one {@link SubmitResponseReq} per line.
+ *
+ * The body is read line by line, so memory use is bounded by the chunk size rather than the
+ * upload size. Valid lines are collected into chunks and written through
+ * {@link ResponseBatchWriter}, one transaction per chunk. A result line
+ * ({@code {"line":n,"responseId":...}} or {@code {"line":n,"error":...}}) is streamed back for
+ * every input line as soon as its chunk has committed.
+ *
+ * When an Idempotency-Key is given, line {@code n} is de-duplicated with the key
+ * {@code <Idempotency-Key>:<n>}, so a partner can safely re-upload a file after a failure.
+ *
+ * Error results carry validation messages or fixed descriptions of known failures; unexpected
+ * exceptions are logged and reported as an internal error, never with their own message.
+ */
+@Slf4j
+@Component
+public class BulkResponseImporter {
+
+    private final ResponseBatchWriter writer;
+    private final SubmissionValidator validator;
+    private final ObjectMapper om;
+    private final ObjectReader lineReader;
+    private final int chunkSize;
+
+    public BulkResponseImporter(ResponseBatchWriter writer,
+                                SubmissionValidator validator,
+                                ObjectMapper om,
+                                @Value("${app.ingest.bulk-chunk-size:500}") int chunkSize) {
+        this.writer = writer;
+        this.validator = validator;
+        this.om = om;
+        this.lineReader = om.readerFor(SubmitResponseReq.class);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports an NDJSON stream and writes one NDJSON result line per input line.
+     *
+     * @param surveyId The ID of the survey.
+     * @param tenantId The ID of the tenancy.
+     * @param idemKey Optional Idempotency-Key prefix for the upload; null disables de-duplication.
+     * @param in The NDJSON request body.
+     * @param out The destination for the result lines; it is flushed after every chunk but not closed.
+     * @return The number of lines that resolved to a response.
+     * @throws IllegalArgumentException If the survey is not found; nothing has been read or written then.
+     * @throws IOException If reading the upload or writing the results fails.
+     */
+    public long importNdjson(UUID surveyId, UUID tenantId, String idemKey,
+                             InputStream in, OutputStream out) throws IOException {
+        requireSurvey(surveyId, tenantId);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        JsonGenerator gen = om.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(null);
+
+        List<Line> chunk = new ArrayList<>(chunkSize);
+        long accepted = 0;
+        long lineNo = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            lineNo++;
+            if (text.isBlank()) continue;
+            chunk.add(parse(lineNo, text, surveyId, tenantId, idemKey));
+            if (chunk.size() >= chunkSize) {
+                accepted += flush(chunk, gen);
+            }
+        }
+        accepted += flush(chunk, gen);
+        gen.flush();
+        return accepted;
+    }
+
+    /**
+     * Checks that the survey exists for the tenant; call it before starting the result stream.
+     *
+     * @throws IllegalArgumentException If the survey is not found.
+     */
+    public void requireSurvey(UUID surveyId, UUID tenantId) {
+        validator.requireSurvey(tenantId, surveyId);
+    }
+
+    private Line parse(long lineNo, String text, UUID surveyId, UUID tenantId, String idemKey) {
+        try {
+            SubmitResponseReq req = lineReader.readValue(text);
+            Submission s = new Submission(surveyId, tenantId, req.respondentId(), req.answersByQuestion(),
+                    idemKey == null ? null : idemKey + ":" + lineNo);
+            validator.validate(tenantId, surveyId, s.answers());
+            return new Line(lineNo, s, null);
+        } catch (JsonProcessingException e) {
+            return new Line(lineNo, null, "Malformed JSON: " + e.getOriginalMessage());
+        } catch (IllegalStateException e) {
+            return new Line(lineNo, null, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            // The survey was deleted while the upload was being read
+            return new Line(lineNo, null, "Survey not found");
+        }
+    }
+
+    /** Writes the valid lines of a chunk in one transaction and emits a result for every line. */
+    private long flush(List<Line> chunk, JsonGenerator gen) throws IOException {
+        if (chunk.isEmpty()) return 0;
+        List<Line> valid = chunk.stream().filter(l -> l.submission() != null).toList();
+        List<Object> results = write(valid);
+
+        long accepted = 0;
+        int v = 0;
+        for (Line l : chunk) {
+            gen.writeStartObject();
+            gen.writeNumberField("line", l.lineNo());
+            Object result = l.submission() != null ? results.get(v++) : l.error();
+            if (result instanceof UUID id) {
+                gen.writeStringField("responseId", id.toString());
+                accepted++;
+            } else {
+                gen.writeStringField("error", String.valueOf(result));
+            }
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        }
+        gen.flush();
+        chunk.clear();
+        return accepted;
+    }
+
+    /** Returns a response id or an error message per submission, in order. */
+    private List<Object> write(List<Line> lines) {
+        if (lines.isEmpty()) return List.of();
+        try {
+            return new ArrayList<>(writer.write(lines.stream().map(Line::submission).toList()));
+        } catch (RuntimeException e) {
+            if (lines.size() == 1) {
+                return List.of(errorMessage(lines.get(0), e));
+            }
+            // One bad line must not fail its neighbours: retry them one by one.
+            log.warn("Bulk import chunk of {} lines failed, retrying individually", lines.size(), e);
+            List<Object> out = new ArrayList<>(lines.size());
+            for (Line l : lines) {
+                out.addAll(write(List.of(l)));
+            }
+            return out;
+        }
+    }
+
+    /** A fixed message for a failed line; driver and SQL messages are only logged. */
+    private static String errorMessage(Line line, RuntimeException e) {
+        if (e instanceof DataIntegrityViolationException) {
+            return "Rejected by a data constraint";
+        }
+        if (e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException) {
+            return "Temporarily unavailable, retry the upload";
+        }
+        log.warn("Bulk import line {} failed", line.lineNo(), e);
+        return "Internal error";
+    }
+
+    private record Line(long lineNo, Submission submission, String error) {}
+}
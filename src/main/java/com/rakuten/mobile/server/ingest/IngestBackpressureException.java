@@ -0,0 +1,11 @@
+package com.rakuten.mobile.server.ingest;
+
+/**
+ * Thrown when the ingest pipeline cannot accept or commit a submission in time.
+ * Mapped to 429 so clients back off and retry with the same Idempotency-Key.
+ */
+public class IngestBackpressureException extends RuntimeException {
+    public IngestBackpressureException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,242 @@
+package com.rakuten.mobile.server.ingest;
+
+import com.rakuten.mobile.server.events.ResponseSubmittedEvent;
+import com.rakuten.mobile.server.repo.EncodedAnswers;
+import com.rakuten.mobile.server.repo.IdempotencyClaimRepository;
+import com.rakuten.mobile.server.repo.ResponseTallyRepository;
+import com.rakuten.mobile.server.repo.ResponseTallyRepository.SurveyRef;
+import com.rakuten.mobile.server.service.AnswerEncoder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes a batch of submissions in a single transaction using JDBC batches.
+ *
+ * Per batch this issues at most seven statements regardless of its size:
+ *  0. take the advisory lock of every Idempotency-Key (see {@link IdempotencyClaimRepository}),
+ *  1. look up keys already recorded in the live idempotency partitions,
+ *  2. claim the remaining Idempotency-Keys in today's partition with INSERT ... ON CONFLICT DO NOTHING,
+ *  3. look up the response ids of keys another transaction claimed concurrently,
+ *  4. insert the new responses,
+ *  5. attach the new response ids to their claimed keys,
+ *  6. read the tally generation of the surveys answered (see {@link ResponseTallyRepository}).
+ *
+ * Duplicate keys inside one batch are collapsed onto the first occurrence. Locks are taken in
+ * hash order and claims in key order, so concurrent batches on other nodes cannot deadlock on
+ * each other; the locks also keep a key from being claimed twice on both sides of UTC midnight.
+ */
+@Component
+public class ResponseBatchWriter {
+
+    private static final String CLAIM_SQL = """
+            INSERT INTO idempotency_keys (id, tenant_id, idem_key, response_id, created_at_epoch, created_day)
+            VALUES (?, ?, ?, NULL, ?, ?)
+            ON CONFLICT (tenant_id, idem_key, created_day) DO NOTHING
+            """;
+
+    private static final String LOOKUP_SQL = """
+            SELECT k.tenant_id, k.idem_key, k.response_id
+            FROM idempotency_keys k
+            JOIN unnest(?, ?) AS t(tenant_id, idem_key)
+              ON k.tenant_id = t.tenant_id AND k.idem_key = t.idem_key
+            WHERE k.created_day >= ?
+            """;
+
+    private static final String INSERT_RESPONSE_SQL = """
+            INSERT INTO responses (id, tenant_id, survey_id, respondent_id, answers_json, schema_version, submitted_at)
+            VALUES (?, ?, ?, ?, CAST(? AS jsonb), ?, ?)
+            """;
+
+    private static final String COMPLETE_CLAIM_SQL = """
+            UPDATE idempotency_keys SET response_id = ?
+            WHERE tenant_id = ? AND idem_key = ? AND created_day >= ? AND response_id IS NULL
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final AnswerEncoder encoder;
+    private final IdempotencyClaimRepository claims;
+    private final ResponseTallyRepository tallies;
+    private final ApplicationEventPublisher events;
+
+    public ResponseBatchWriter(JdbcTemplate jdbc,
+                               PlatformTransactionManager txManager,
+                               AnswerEncoder encoder,
+                               IdempotencyClaimRepository claims,
+                               ResponseTallyRepository tallies,
+                               ApplicationEventPublisher events) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.encoder = encoder;
+        this.claims = claims;
+        this.tallies = tallies;
+        this.events = events;
+    }
+
+    /**
+     * Writes the submissions in one transaction.
+     *
+     * @param batch The submissions to write.
+     * @return The response id of each submission, in the same order as the batch. Replayed
+     *         Idempotency-Keys resolve to the response id recorded by the original submission.
+     */
+    public List<UUID> write(List<Submission> batch) {
+        // Serialized up front: a schema snapshot lookup must not run inside the batch transaction.
+        List<EncodedAnswers> encoded = batch.stream()
+                .map(s -> encoder.encode(s.tenantId(), s.surveyId(), s.answers()))
+                .toList();
+        return tx.execute(status -> doWrite(batch, encoded));
+    }
+
+    private List<UUID> doWrite(List<Submission> batch, List<EncodedAnswers> encoded) {
+        long nowEpoch = System.currentTimeMillis();
+        Timestamp now = new Timestamp(nowEpoch);
+        LocalDate today = claims.today();
+        LocalDate liveFrom = claims.liveFrom();
+        UUID[] results = new UUID[batch.size()];
+
+        // Collapse duplicate keys in the batch onto their first occurrence.
+        Map<KeyRef, Integer> owners = new LinkedHashMap<>();
+        int[] ownerOf = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Submission s = batch.get(i);
+            int index = i;
+            ownerOf[i] = s.idemKey() == null
+                    ? i
+                    : owners.computeIfAbsent(new KeyRef(s.tenantId(), s.idemKey()), k -> index);
+        }
+
+        // 0) Lock the keys, so the lookups below see any claim of them that was in flight.
+        lock(new ArrayList<>(owners.keySet()));
+
+        // 1) Resolve keys already recorded in a live partition (including earlier days).
+        Map<KeyRef, UUID> recorded = lookup(new ArrayList<>(owners.keySet()), liveFrom);
+        for (Map.Entry<KeyRef, UUID> e : recorded.entrySet()) {
+            results[owners.get(e.getKey())] = e.getValue();
+        }
+
+        // 2) Claim the remaining keys in a stable order.
+        List<KeyRef> keys = new ArrayList<>();
+        for (KeyRef k : owners.keySet()) {
+            if (!recorded.containsKey(k)) keys.add(k);
+        }
+        keys.sort(Comparator.comparing(KeyRef::tenantId).thenComparing(KeyRef::idemKey));
+        int[] claimed = keys.isEmpty() ? new int[0] : jdbc.batchUpdate(CLAIM_SQL, keys, keys.size(), (ps, k) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, k.tenantId());
+            ps.setString(3, k.idemKey());
+            ps.setLong(4, nowEpoch);
+            ps.setObject(5, today);
+        })[0];
+
+        // 3) Resolve keys claimed concurrently by another transaction.
+        List<KeyRef> existing = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (claimed[i] == 0) existing.add(keys.get(i));
+        }
+        Map<KeyRef, UUID> replayed = lookup(existing, liveFrom);
+        for (Map.Entry<KeyRef, UUID> e : replayed.entrySet()) {
+            results[owners.get(e.getKey())] = e.getValue();
+        }
+
+        // 4) Insert responses for every owner that did not resolve to an existing response.
+        List<Integer> fresh = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (ownerOf[i] == i && results[i] == null) {
+                results[i] = UUID.randomUUID();
+                fresh.add(i);
+            }
+        }
+        if (!fresh.isEmpty()) {
+            jdbc.batchUpdate(INSERT_RESPONSE_SQL, fresh, fresh.size(), (ps, i) -> {
+                Submission s = batch.get(i);
+                ps.setObject(1, results[i]);
+                ps.setObject(2, s.tenantId());
+                ps.setObject(3, s.surveyId());
+                ps.setObject(4, s.respondentId());
+                ps.setString(5, encoded.get(i).json());
+                ps.setObject(6, encoded.get(i).schemaVersion(), Types.BIGINT);
+                ps.setTimestamp(7, now);
+            });
+        }
+
+        // 5) Point the claimed keys at their new responses.
+        List<Integer> completed = fresh.stream().filter(i -> batch.get(i).idemKey() != null).toList();
+        if (!completed.isEmpty()) {
+            jdbc.batchUpdate(COMPLETE_CLAIM_SQL, completed, completed.size(), (ps, i) -> {
+                Submission s = batch.get(i);
+                ps.setObject(1, results[i]);
+                ps.setObject(2, s.tenantId());
+                ps.setString(3, s.idemKey());
+                ps.setObject(4, liveFrom);
+            });
+        }
+
+        // 6) Read the tally generation the new responses are counted under.
+        Map<UUID, Long> generations = tallies.generations(fresh.stream()
+                .map(i -> new SurveyRef(batch.get(i).tenantId(), batch.get(i).surveyId()))
+                .toList());
+        for (int i : fresh) {
+            Submission s = batch.get(i);
+            events.publishEvent(new ResponseSubmittedEvent(s.tenantId(), s.surveyId(), results[i], s.answers(),
+                    generations.get(s.surveyId())));
+        }
+
+        List<UUID> out = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            out.add(results[ownerOf[i]]);
+        }
+        return out;
+    }
+
+    /** Takes the claim locks of the keys with a single statement. */
+    private void lock(List<KeyRef> keys) {
+        if (keys.isEmpty()) return;
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(IdempotencyClaimRepository.LOCK_KEYS_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", keys.stream().map(KeyRef::tenantId).toArray()));
+            ps.setArray(2, con.createArrayOf("text", keys.stream().map(KeyRef::idemKey).toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> {});
+    }
+
+    /** Looks up the recorded response id of already-claimed keys with a single statement. */
+    private Map<KeyRef, UUID> lookup(List<KeyRef> keys, LocalDate liveFrom) {
+        Map<KeyRef, UUID> found = new HashMap<>();
+        if (keys.isEmpty()) return found;
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LOOKUP_SQL);
+            Array tenants = con.createArrayOf("uuid", keys.stream().map(KeyRef::tenantId).toArray());
+            Array idemKeys = con.createArrayOf("text", keys.stream().map(KeyRef::idemKey).toArray());
+            ps.setArray(1, tenants);
+            ps.setArray(2, idemKeys);
+            ps.setObject(3, liveFrom);
+            return ps;
+        }, rs -> {
+            UUID responseId = rs.getObject(3, UUID.class);
+            if (responseId != null) {
+                found.put(new KeyRef(rs.getObject(1, UUID.class), rs.getString(2)), responseId);
+            }
+        });
+        return found;
+    }
+
+    private record KeyRef(UUID tenantId, String idemKey) {}
+}
@@ -0,0 +1,158 @@
+package com.rakuten.mobile.server.ingest;
+
+import com.rakuten.mobile.server.service.IdempotencyCache;
+import com.rakuten.mobile.server.service.SubmissionValidator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group-commit write-behind pipeline for response submissions.
+ *
+ * Request threads enqueue their submission into a bounded queue and wait; a single writer
+ * thread drains whatever has accumulated (up to the max batch size) and commits it through
+ * {@link ResponseBatchWriter} in one transaction. Each caller receives its response id only
+ * after its batch has committed. When the queue is full the submission is rejected with
+ * {@link IngestBackpressureException} instead of queueing unbounded work.
+ *
+ * Enabled with {@code app.ingest.mode=batched}; the default per-request path is untouched.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.ingest", name = "mode", havingValue = "batched")
+public class ResponseIngestPipeline {
+
+    private final ResponseBatchWriter writer;
+    private final IdempotencyCache idemCache;
+    private final SubmissionValidator validator;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatchSize;
+    private final long submitTimeoutMs;
+
+    private volatile boolean running = true;
+    private Thread writerThread;
+
+    public ResponseIngestPipeline(ResponseBatchWriter writer,
+                                  IdempotencyCache idemCache,
+                                  SubmissionValidator validator,
+                                  @Value("${app.ingest.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${app.ingest.max-batch-size:500}") int maxBatchSize,
+                                  @Value("${app.ingest.submit-timeout-ms:10000}") long submitTimeoutMs) {
+        this.writer = writer;
+        this.idemCache = idemCache;
+        this.validator = validator;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.submitTimeoutMs = submitTimeoutMs;
+    }
+
+    @PostConstruct
+    void start() {
+        writerThread = new Thread(this::runWriter, "ingest-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stops accepting work; the writer flushes what is already queued before exiting.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(submitTimeoutMs);
+    }
+
+    /**
+     * Enqueues a submission and blocks until its batch has committed.
+     *
+     * @param submission The submission to write.
+     * @return The ID of the saved (or previously saved, for a replayed key) response.
+     * @throws IngestBackpressureException If the queue is full or the batch does not commit in time.
+     * @throws IllegalStateException If the survey is not active or an answer is missing or invalid.
+     */
+    public UUID submit(Submission submission) {
+        if (submission.idemKey() == null) {
+            return enqueueAndWait(submission);
+        }
+        return idemCache.resolve(submission.tenantId(), submission.idemKey(), () -> enqueueAndWait(submission));
+    }
+
+    private UUID enqueueAndWait(Submission submission) {
+        if (!running) {
+            throw new IngestBackpressureException("Ingest pipeline is shutting down");
+        }
+        // Validated on the request thread so invalid submissions never occupy the queue.
+        validator.validate(submission.tenantId(), submission.surveyId(), submission.answers());
+        Pending pending = new Pending(submission, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            throw new IngestBackpressureException("Ingest queue is full");
+        }
+        try {
+            return pending.result().get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IngestBackpressureException("Submission was not committed in time; retry with the same Idempotency-Key");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IngestBackpressureException("Interrupted while waiting for commit");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Current number of submissions waiting for the writer. */
+    public int queued() {
+        return queue.size();
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = running ? queue.take() : queue.poll();
+                if (first == null) break;
+                batch.add(first);
+            } catch (InterruptedException e) {
+                continue; // re-check running; remaining work is flushed below
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        try {
+            List<UUID> ids = writer.write(batch.stream().map(Pending::submission).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(ids.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            // One bad submission must not fail its neighbours: retry them one by one.
+            log.warn("Ingest batch of {} submissions failed, retrying individually", batch.size(), e);
+            for (Pending p : batch) {
+                flush(List.of(p));
+            }
+        }
+    }
+
+    private record Pending(Submission submission, CompletableFuture<UUID> result) {}
+}
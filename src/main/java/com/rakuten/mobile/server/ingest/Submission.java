@@ -0,0 +1,15 @@
+package com.rakuten.mobile.server.ingest;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A response submission waiting to be written by the batch writer.
+ *
+ * @param idemKey Optional Idempotency-Key; null disables de-duplication for this submission.
+ */
+public record Submission(UUID surveyId,
+                         UUID tenantId,
+                         UUID respondentId,
+                         Map<String, Object> answers,
+                         String idemKey) {}
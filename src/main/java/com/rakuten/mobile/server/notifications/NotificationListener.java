@@ -1,24 +1,25 @@
 package com.rakuten.mobile.server.notifications;
 
-import com.rakuten.mobile.server.events.SurveyPublishedEvent;
+import com.rakuten.mobile.server.outbox.OutboxMessage;
+import com.rakuten.mobile.server.outbox.OutboxSink;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.List;
+
+/**
+ * Default {@link OutboxSink}: logs each event. Replace it with a bean that publishes to a
+ * queue/email/SMS client as needed; the outbox takes care of batching and retries.
+ */
 @Slf4j
 @Component
-public class NotificationListener {
+public class NotificationListener implements OutboxSink {
 
-    /**
-     * Handle the event asynchronously **after** the publishing transaction commits.
-     * Replace the log with a call to a queue/email/SMS client as needed.
-     */
-    @Async
-    @TransactionalEventListener
-    public void onSurveyPublished(SurveyPublishedEvent e) {
-        // Simulate queue publish; in real life, inject a Kafka/SQS client and send here.
-        log.info("NOTIFY: survey published. tenant={}, survey={}, title={}",
-                e.tenantId(), e.surveyId(), e.title());
+    @Override
+    public void deliver(List<OutboxMessage> batch) {
+        // Simulate queue publish; in real life, inject a Kafka/SQS client and send the batch here.
+        for (OutboxMessage m : batch) {
+            log.info("NOTIFY: {} tenant={}, id={}, payload={}", m.type(), m.tenantId(), m.id(), m.payload());
+        }
     }
 }
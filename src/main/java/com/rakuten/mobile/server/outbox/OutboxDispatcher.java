@@ -0,0 +1,166 @@
+package com.rakuten.mobile.server.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Delivers pending outbox events to the {@link OutboxSink} in batches.
+ *
+ * A batch is claimed with one short statement: due rows are picked with
+ * {@code FOR UPDATE SKIP LOCKED}, stamped with a fresh lease id and pushed {@code lease-ms} into
+ * the future, so dispatchers on several nodes work on disjoint batches. The sink is called
+ * outside any transaction, and delivered events are then deleted in a second short transaction.
+ * If a node dies mid-batch, its events become due again once the lease runs out
+ * (at-least-once delivery). Settling requires the claiming lease, so a dispatcher whose lease
+ * expired cannot clobber a newer claim.
+ *
+ * A failed batch is retried one event at a time, so a poison event only delays itself. Each
+ * failure is rescheduled with exponential backoff; an event that failed {@code max-attempts}
+ * times is moved to {@code outbox_dead_letters}.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private static final String CLAIM_SQL = """
+            UPDATE outbox_events e
+            SET next_attempt_at = now() + ? * interval '1 millisecond', lease_id = ?
+            FROM (SELECT id FROM outbox_events
+                  WHERE next_attempt_at <= now()
+                  ORDER BY next_attempt_at, created_at
+                  LIMIT ?
+                  FOR UPDATE SKIP LOCKED) due
+            WHERE e.id = due.id
+            RETURNING e.id, e.tenant_id, e.event_type, e.payload::text, e.created_at, e.attempts
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM outbox_events WHERE id = ? AND lease_id = ?";
+
+    private static final String RETRY_SQL = """
+            UPDATE outbox_events
+            SET attempts = attempts + 1, next_attempt_at = ?, last_error = ?, lease_id = NULL
+            WHERE id = ? AND lease_id = ?
+            """;
+
+    private static final String DEAD_LETTER_SQL = """
+            WITH dead AS (
+                DELETE FROM outbox_events WHERE id = ? AND lease_id = ?
+                RETURNING id, tenant_id, event_type, payload, created_at, attempts
+            )
+            INSERT INTO outbox_dead_letters (id, tenant_id, event_type, payload, created_at, attempts, last_error)
+            SELECT id, tenant_id, event_type, payload, created_at, attempts + 1, ? FROM dead
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final OutboxSink sink;
+    private final int batchSize;
+    private final long retryBaseMs;
+    private final long retryMaxMs;
+    private final int maxAttempts;
+    private final long leaseMs;
+
+    public OutboxDispatcher(JdbcTemplate jdbc,
+                            PlatformTransactionManager txManager,
+                            OutboxSink sink,
+                            @Value("${app.outbox.batch-size:100}") int batchSize,
+                            @Value("${app.outbox.retry-base-ms:1000}") long retryBaseMs,
+                            @Value("${app.outbox.retry-max-ms:300000}") long retryMaxMs,
+                            @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${app.outbox.lease-ms:60000}") long leaseMs) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.retryBaseMs = retryBaseMs;
+        this.retryMaxMs = retryMaxMs;
+        this.maxAttempts = maxAttempts;
+        this.leaseMs = leaseMs;
+    }
+
+    /**
+     * Delivers due events until a claim comes back short.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        try {
+            int claimed;
+            do {
+                claimed = dispatchBatch();
+            } while (claimed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Outbox dispatch failed", e);
+        }
+    }
+
+    /** Claims, delivers and settles one batch; returns the number of claimed events. */
+    private int dispatchBatch() {
+        UUID lease = UUID.randomUUID();
+        List<OutboxMessage> batch = new ArrayList<>(jdbc.query(CLAIM_SQL, (rs, i) -> new OutboxMessage(
+                rs.getObject(1, UUID.class),
+                rs.getObject(2, UUID.class),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getTimestamp(5).toInstant(),
+                rs.getInt(6)), leaseMs, lease, batchSize));
+        if (batch.isEmpty()) return 0;
+        batch.sort(Comparator.comparing(OutboxMessage::createdAt));
+
+        List<OutboxMessage> delivered = new ArrayList<>(batch.size());
+        try {
+            sink.deliver(batch);
+            delivered.addAll(batch);
+        } catch (Exception e) {
+            log.warn("Delivering {} outbox events failed; retrying them one by one", batch.size(), e);
+            for (OutboxMessage m : batch) {
+                if (deliverOne(m, lease)) delivered.add(m);
+            }
+        }
+
+        if (!delivered.isEmpty()) {
+            tx.executeWithoutResult(status -> jdbc.batchUpdate(DELETE_SQL, delivered, delivered.size(), (ps, m) -> {
+                ps.setObject(1, m.id());
+                ps.setObject(2, lease);
+            }));
+        }
+        return batch.size();
+    }
+
+    /** Delivers a single event; a failure is rescheduled or dead-lettered right away. */
+    private boolean deliverOne(OutboxMessage m, UUID lease) {
+        try {
+            sink.deliver(List.of(m));
+            return true;
+        } catch (Exception e) {
+            String error = String.valueOf(e.getMessage());
+            if (m.attempts() + 1 >= maxAttempts) {
+                log.error("Outbox event {} ({}) failed {} times; moving it to outbox_dead_letters",
+                        m.id(), m.type(), m.attempts() + 1, e);
+                jdbc.update(DEAD_LETTER_SQL, m.id(), lease, error);
+            } else {
+                log.warn("Delivering outbox event {} ({}) failed; retrying with backoff", m.id(), m.type(), e);
+                jdbc.update(RETRY_SQL, Timestamp.from(Instant.now().plusMillis(backoffMs(m.attempts()))),
+                        error, m.id(), lease);
+            }
+            return false;
+        }
+    }
+
+    /** retry-base-ms * 2^attempts, capped at retry-max-ms. */
+    private long backoffMs(int attempts) {
+        long factor = 1L << Math.min(attempts, 30);
+        return Math.min(retryMaxMs, retryBaseMs * factor);
+    }
+}
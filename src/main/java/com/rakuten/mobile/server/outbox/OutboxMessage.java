@@ -0,0 +1,14 @@
+package com.rakuten.mobile.server.outbox;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An outbox entry handed to an {@link OutboxSink}.
+ *
+ * @param id Stable id of the event; sinks can use it to de-duplicate redeliveries.
+ * @param type Simple class name of the event, e.g. "SurveyPublishedEvent".
+ * @param payload The event serialized as JSON.
+ * @param attempts Number of earlier failed delivery attempts.
+ */
+public record OutboxMessage(UUID id, UUID tenantId, String type, String payload, Instant createdAt, int attempts) {}
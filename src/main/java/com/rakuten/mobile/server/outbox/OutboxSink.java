@@ -0,0 +1,22 @@
+package com.rakuten.mobile.server.outbox;
+
+import java.util.List;
+
+/**
+ * Destination of outbox events (a message broker, e-mail gateway, ...).
+ *
+ * Delivery is at least once: events are retried with backoff until {@link #deliver(List)}
+ * returns normally, so implementations should be idempotent on {@link OutboxMessage#id()}.
+ * A call runs outside any transaction and should finish well within {@code app.outbox.lease-ms}.
+ */
+public interface OutboxSink {
+
+    /**
+     * Delivers a batch of events, oldest first.
+     *
+     * @param batch The events to deliver.
+     * @throws Exception If the batch could not be delivered; its events are then retried one by one,
+     *                   and events that keep failing are parked in {@code outbox_dead_letters}.
+     */
+    void deliver(List<OutboxMessage> batch) throws Exception;
+}
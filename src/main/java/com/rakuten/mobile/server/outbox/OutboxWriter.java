@@ -0,0 +1,48 @@
+package com.rakuten.mobile.server.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakuten.mobile.server.events.OutboxEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Stores every published {@link OutboxEvent} in {@code outbox_events}.
+ *
+ * Runs synchronously on the publishing thread, so the insert joins the publisher's transaction:
+ * the event exists if and only if the business change committed.
+ */
+@Component
+public class OutboxWriter {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO outbox_events (id, tenant_id, event_type, payload)
+            VALUES (?, ?, ?, CAST(? AS jsonb))
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper om;
+
+    public OutboxWriter(JdbcTemplate jdbc, ObjectMapper om) {
+        this.jdbc = jdbc;
+        this.om = om;
+    }
+
+    @EventListener
+    public void onOutboxEvent(OutboxEvent e) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException(e.getClass().getSimpleName() + " must be published inside a transaction");
+        }
+        String payload;
+        try {
+            payload = om.writeValueAsString(e);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Event is not serializable", ex);
+        }
+        jdbc.update(INSERT_SQL, UUID.randomUUID(), e.tenantId(), e.getClass().getSimpleName(), payload);
+    }
+}
@@ -0,0 +1,107 @@
+package com.rakuten.mobile.server.projection;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Projects {@code responses.answers_json} into the normalized {@code answers} table, one row
+ * per (response, question), so per-question queries can use {@code idx_answers_question}.
+ * Compact answers are decoded with {@code decode_response_answers} first.
+ *
+ * - Every inserted response is put on {@code answers_projection_queue} by a trigger in the
+ *   inserting transaction (see V17), so it becomes visible to the projector when, and only
+ *   when, it commits, whatever its {@code submitted_at}. Late commits and back-dated imports
+ *   are projected like any other response.
+ * - A batch is taken off the queue with {@code FOR UPDATE SKIP LOCKED} and deleted by the same
+ *   statement that writes its answers, so a batch is either fully projected or still queued.
+ *   Several nodes can project at once.
+ * - Inserts use ON CONFLICT DO NOTHING on (response_id, question_id), so a response queued
+ *   twice is harmless.
+ *
+ * Nothing is skipped, so no separate reconciliation pass exists or is needed.
+ *
+ * The projection lag, the age of the oldest queued response, is published as
+ * {@code answers.projector.lag}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.answers.projector", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AnswerProjector {
+
+    private static final String PROJECT_BATCH_SQL = """
+            WITH claimed AS (
+                DELETE FROM answers_projection_queue
+                WHERE (response_id, submitted_at, tenant_id) IN (
+                    SELECT response_id, submitted_at, tenant_id FROM answers_projection_queue
+                    ORDER BY queued_at
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING response_id, submitted_at, tenant_id
+            ), projected AS (
+                INSERT INTO answers (id, tenant_id, response_id, question_id, value_json)
+                SELECT uuid_generate_v4(), r.tenant_id, r.id, kv.key::uuid, kv.value
+                FROM claimed c
+                JOIN responses r ON r.id = c.response_id AND r.submitted_at = c.submitted_at AND r.tenant_id = c.tenant_id
+                CROSS JOIN LATERAL (SELECT decode_response_answers(r.answers_json, r.survey_id, r.schema_version) AS doc) d
+                CROSS JOIN LATERAL jsonb_each(CASE WHEN jsonb_typeof(d.doc) = 'object' THEN d.doc ELSE '{}'::jsonb END) AS kv
+                WHERE jsonb_typeof(kv.value) <> 'null'
+                  AND kv.key ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$'
+                ON CONFLICT (response_id, question_id) DO NOTHING
+                RETURNING 1
+            )
+            SELECT (SELECT count(*) FROM claimed), (SELECT count(*) FROM projected)
+            """;
+
+    private static final String LAG_SQL = """
+            SELECT coalesce((extract(epoch FROM now() - min(queued_at)) * 1000)::bigint, 0)
+            FROM answers_projection_queue
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final int batchSize;
+    private final Counter projected;
+    private final AtomicLong lagMs = new AtomicLong();
+
+    public AnswerProjector(JdbcTemplate jdbc,
+                           MeterRegistry registry,
+                           @Value("${app.answers.projector.batch-size:1000}") int batchSize) {
+        this.jdbc = jdbc;
+        this.batchSize = batchSize;
+        this.projected = Counter.builder("answers.projector.rows").register(registry);
+        TimeGauge.builder("answers.projector.lag", lagMs, TimeUnit.MILLISECONDS, AtomicLong::get).register(registry);
+    }
+
+    /**
+     * Projects batches until the queue is drained.
+     */
+    @Scheduled(fixedDelayString = "${app.answers.projector.interval-ms:1000}")
+    public void run() {
+        try {
+            int n;
+            do {
+                n = projectBatch();
+            } while (n == batchSize);
+            lagMs.set(Math.max(0, jdbc.queryForObject(LAG_SQL, Long.class)));
+        } catch (RuntimeException e) {
+            log.warn("Answer projection failed; the batch stays queued", e);
+        }
+    }
+
+    /** Projects one batch in one statement; returns the number of responses taken off the queue. */
+    private int projectBatch() {
+        long[] counts = jdbc.queryForObject(PROJECT_BATCH_SQL,
+                (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)}, batchSize);
+        projected.increment(counts[1]);
+        return (int) counts[0];
+    }
+}
@@ -0,0 +1,16 @@
+package com.rakuten.mobile.server.repo;
+
+import com.rakuten.mobile.server.domain.Answer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+/**
+ * Repository interface for accessing the normalized Answer rows written by the answer projector.
+ */
+public interface AnswerRepository extends JpaRepository<Answer, UUID> {
+    // All answers to one question; served by idx_answers_question
+    Page<Answer> findByQuestionId(UUID questionId, Pageable pageable);
+}
@@ -0,0 +1,15 @@
+package com.rakuten.mobile.server.repo;
+
+/**
+ * The answers of a response serialized for {@code responses.answers_json}.
+ *
+ * @param json The JSON text: an object keyed by question ID, or a compact positional array.
+ * @param schemaVersion The {@code survey_schemas} version a compact array is encoded against;
+ *                      null for the keyed format.
+ */
+public record EncodedAnswers(String json, Long schemaVersion) {
+
+    public static EncodedAnswers keyed(String json) {
+        return new EncodedAnswers(json, null);
+    }
+}
@@ -0,0 +1,63 @@
+package com.rakuten.mobile.server.repo;
+
+import com.rakuten.mobile.server.domain.ExportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Repository interface for accessing ExportJob entities.
+ */
+public interface ExportJobRepository extends JpaRepository<ExportJob, UUID> {
+    // Tenant-filtered lookup for the API (findById is not covered by the tenant filter)
+    Optional<ExportJob> findByIdAndSurveyId(UUID id, UUID surveyId);
+
+    long countByTenantIdAndStatusIn(UUID tenantId, Collection<String> statuses);
+
+    // Housekeeping, across tenants
+    List<ExportJob> findByExpiresAtBefore(Instant now);
+
+    // Status changes apply only if the job is still in the expected status, so a late writer cannot
+    // overwrite another's outcome (e.g. the stale-job sweep failing a job that has just finished)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ExportJob j set j.status = 'RUNNING', j.startedAt = :startedAt where j.id = :id and j.status = 'QUEUED'")
+    int start(@Param("id") UUID id, @Param("startedAt") Instant startedAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ExportJob j set j.status = :status, j.sizeBytes = :sizeBytes, j.error = :error, " +
+            "j.finishedAt = :finishedAt, j.expiresAt = :expiresAt where j.id = :id and j.status = :expected")
+    int finish(@Param("id") UUID id,
+               @Param("expected") String expected,
+               @Param("status") String status,
+               @Param("sizeBytes") Long sizeBytes,
+               @Param("error") String error,
+               @Param("finishedAt") Instant finishedAt,
+               @Param("expiresAt") Instant expiresAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ExportJob j set j.status = 'FAILED', j.error = :error, j.finishedAt = :finishedAt, " +
+            "j.expiresAt = :expiresAt where j.status = 'RUNNING' and j.startedAt < :startedBefore")
+    int failRunningStartedBefore(@Param("startedBefore") Instant startedBefore,
+                                 @Param("error") String error,
+                                 @Param("finishedAt") Instant finishedAt,
+                                 @Param("expiresAt") Instant expiresAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ExportJob j set j.heartbeatAt = :now where j.id in :ids and j.status = 'QUEUED'")
+    int touchQueued(@Param("ids") Collection<UUID> ids, @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ExportJob j set j.status = 'FAILED', j.error = :error, j.finishedAt = :finishedAt, " +
+            "j.expiresAt = :expiresAt where j.status = 'QUEUED' and coalesce(j.heartbeatAt, j.createdAt) < :seenBefore")
+    int failQueuedSeenBefore(@Param("seenBefore") Instant seenBefore,
+                             @Param("error") String error,
+                             @Param("finishedAt") Instant finishedAt,
+                             @Param("expiresAt") Instant expiresAt);
+}
@@ -0,0 +1,153 @@
+package com.rakuten.mobile.server.repo;
+
+import com.rakuten.mobile.server.domain.Response;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Native-SQL access to the idempotency claim protocol.
+ *
+ * Keys live in {@code idempotency_keys}, range-partitioned by {@code created_day} (UTC). Only the
+ * partitions inside the retention window are "live"; every lookup carries a
+ * {@code created_day >= liveFrom} predicate so expired partitions are pruned from the plan.
+ *
+ * A claim first takes a transaction-scoped advisory lock on the key, then runs one statement: it
+ * looks for the key in earlier live days, and otherwise runs
+ * {@code INSERT ... ON CONFLICT (tenant_id, idem_key, created_day) DO UPDATE ... RETURNING}
+ * against today's partition. That either inserts a fresh claim row (returning a null response id)
+ * or returns the response id recorded for the existing row. The unique index only covers one day,
+ * so it cannot arbitrate between a claim made just before UTC midnight and a retry just after it;
+ * the lock does. A second submission of the key waits until the first transaction finishes, and
+ * its statement then sees the committed claim, so concurrent retries are resolved
+ * deterministically. {@link #LOCK_KEYS_SQL} gives the same lock to writers claiming many keys at once.
+ *
+ * Must be called inside a transaction; the statements join the surrounding JPA transaction.
+ */
+@Repository
+public class IdempotencyClaimRepository {
+
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext(?))";
+
+    /**
+     * Takes the claim locks of many keys in one statement, in a stable order so concurrent writers
+     * cannot deadlock. Binds a {@code uuid[]} of tenants and a {@code text[]} of keys.
+     */
+    public static final String LOCK_KEYS_SQL = """
+            SELECT pg_advisory_xact_lock(h)
+            FROM (SELECT DISTINCT hashtext('idempotency:' || t.tenant_id::text || ':' || t.idem_key) AS h
+                  FROM unnest(?, ?) AS t(tenant_id, idem_key)
+                  ORDER BY h) locks
+            """;
+
+    private static final String CLAIM_SQL = """
+            WITH earlier AS (
+                SELECT response_id FROM idempotency_keys
+                WHERE tenant_id = ? AND idem_key = ? AND created_day >= ? AND created_day < ?
+                LIMIT 1
+            ), claimed AS (
+                INSERT INTO idempotency_keys (id, tenant_id, idem_key, response_id, created_at_epoch, created_day)
+                SELECT ?, ?, ?, NULL, ?, ?
+                WHERE NOT EXISTS (SELECT 1 FROM earlier)
+                ON CONFLICT (tenant_id, idem_key, created_day) DO UPDATE SET idem_key = EXCLUDED.idem_key
+                RETURNING response_id
+            )
+            SELECT response_id FROM earlier
+            UNION ALL
+            SELECT response_id FROM claimed
+            """;
+
+    // Both inserts also read the survey's tally generation (V20), see ResponseTallyRepository
+    private static final String INSERT_RESPONSE_SQL = """
+            INSERT INTO responses (id, tenant_id, survey_id, respondent_id, answers_json, schema_version, submitted_at)
+            VALUES (?, ?, ?, ?, CAST(? AS jsonb), ?, ?)
+            RETURNING response_tally_generation(tenant_id, survey_id)
+            """;
+
+    private static final String INSERT_RESPONSE_AND_COMPLETE_SQL = """
+            WITH r AS (
+                INSERT INTO responses (id, tenant_id, survey_id, respondent_id, answers_json, schema_version, submitted_at)
+                VALUES (?, ?, ?, ?, CAST(? AS jsonb), ?, ?)
+                RETURNING id, tenant_id, response_tally_generation(tenant_id, survey_id) AS tally_generation
+            ), completed AS (
+                UPDATE idempotency_keys k SET response_id = r.id
+                FROM r
+                WHERE k.tenant_id = r.tenant_id AND k.idem_key = ?
+                  AND k.created_day >= ? AND k.response_id IS NULL
+            )
+            SELECT tally_generation FROM r
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final int retentionDays;
+
+    public IdempotencyClaimRepository(JdbcTemplate jdbc,
+                                      @Value("${app.idempotency.retention-days:7}") int retentionDays) {
+        this.jdbc = jdbc;
+        this.retentionDays = retentionDays;
+    }
+
+    /** The partition day new claims are written to (UTC). */
+    public LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    /** The oldest day whose keys are still honoured; older partitions are expired. */
+    public LocalDate liveFrom() {
+        return today().minusDays(retentionDays);
+    }
+
+    /**
+     * Claims an idempotency key for the tenant in one round trip.
+     *
+     * @param tenantId The tenant owning the key.
+     * @param idemKey The client-supplied Idempotency-Key.
+     * @return The response id already recorded for the key, or null if the caller now owns the claim.
+     */
+    public UUID claim(UUID tenantId, String idemKey) {
+        // Serializes the key across day partitions; released at commit or rollback.
+        jdbc.query(LOCK_SQL, (RowCallbackHandler) rs -> {}, lockName(tenantId, idemKey));
+        LocalDate today = today();
+        return jdbc.query(CLAIM_SQL,
+                rs -> rs.next() ? rs.getObject(1, UUID.class) : null,
+                tenantId, idemKey, liveFrom(), today,
+                UUID.randomUUID(), tenantId, idemKey, System.currentTimeMillis(), today);
+    }
+
+    private static String lockName(UUID tenantId, String idemKey) {
+        return "idempotency:" + tenantId + ":" + idemKey;
+    }
+
+    /**
+     * Inserts a response without any idempotency bookkeeping.
+     *
+     * @param r The response to insert; its id must already be assigned.
+     * @param answers The serialized answers of the response.
+     * @return The survey's tally generation the response is counted under.
+     */
+    public long insertResponse(Response r, EncodedAnswers answers) {
+        return jdbc.queryForObject(INSERT_RESPONSE_SQL, Long.class,
+                r.getId(), r.getTenantId(), r.getSurveyId(), r.getRespondentId(),
+                answers.json(), answers.schemaVersion(), Timestamp.from(r.getSubmittedAt()));
+    }
+
+    /**
+     * Inserts a response and attaches it to the caller's claimed key in a single statement.
+     *
+     * @param r The response to insert; its id must already be assigned.
+     * @param answers The serialized answers of the response.
+     * @param idemKey The key claimed by the caller through {@link #claim(UUID, String)}.
+     * @return The survey's tally generation the response is counted under.
+     */
+    public long insertResponseAndComplete(Response r, EncodedAnswers answers, String idemKey) {
+        return jdbc.queryForObject(INSERT_RESPONSE_AND_COMPLETE_SQL, Long.class,
+                r.getId(), r.getTenantId(), r.getSurveyId(), r.getRespondentId(),
+                answers.json(), answers.schemaVersion(), Timestamp.from(r.getSubmittedAt()), idemKey, liveFrom());
+    }
+}
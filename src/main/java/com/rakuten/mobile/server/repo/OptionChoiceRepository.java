@@ -2,7 +2,11 @@ package com.rakuten.mobile.server.repo;
 
 import com.rakuten.mobile.server.domain.OptionChoice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,5 +17,17 @@ import java.util.UUID;
 public interface OptionChoiceRepository extends JpaRepository<OptionChoice, UUID> {
     // Finds all options for a specific question, ordered by position
     List<OptionChoice> findByQuestionIdOrderByPositionAsc(UUID questionId);
+    // Finds the options of several questions with a single IN query
+    List<OptionChoice> findByQuestionIdInOrderByPositionAsc(Collection<UUID> questionIds);
     void deleteByQuestionId(UUID questionId);
+
+    // Set-based deletes; tenant_id is explicit because bulk statements bypass the tenant filter.
+    @Modifying(flushAutomatically = true)
+    @Query("delete from OptionChoice o where o.tenantId = :tenantId and o.questionId = :questionId")
+    int deleteAllByQuestion(@Param("tenantId") UUID tenantId, @Param("questionId") UUID questionId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from OptionChoice o where o.tenantId = :tenantId and o.questionId in " +
+            "(select q.id from Question q where q.tenantId = :tenantId and q.surveyId = :surveyId)")
+    int deleteAllBySurvey(@Param("tenantId") UUID tenantId, @Param("surveyId") UUID surveyId);
 }
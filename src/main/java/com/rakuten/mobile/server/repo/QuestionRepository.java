@@ -2,6 +2,9 @@ package com.rakuten.mobile.server.repo;
 
 import com.rakuten.mobile.server.domain.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.UUID;
@@ -15,4 +18,22 @@ public interface QuestionRepository extends JpaRepository<Question, UUID> {
     List<Question> findBySurveyIdOrderByPositionAsc(UUID surveyId);
     long countBySurveyId(UUID surveyId);
     void deleteBySurveyId(UUID surveyId);
+
+    // Set-based deletes: one statement instead of loading and removing entities one by one.
+    // Bulk statements bypass the Hibernate tenant filter, so tenant_id is explicit.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Question q where q.tenantId = :tenantId and q.surveyId = :surveyId")
+    int deleteAllBySurvey(@Param("tenantId") UUID tenantId, @Param("surveyId") UUID surveyId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Question q where q.tenantId = :tenantId and q.id = :questionId")
+    int deleteOne(@Param("tenantId") UUID tenantId, @Param("questionId") UUID questionId);
+
+    // Closes gaps in position (1..n) with a single UPDATE.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE questions q SET position = s.rn " +
+            "FROM (SELECT id, row_number() OVER (ORDER BY position, id) AS rn " +
+            "      FROM questions WHERE tenant_id = :tenantId AND survey_id = :surveyId) s " +
+            "WHERE q.id = s.id AND q.position <> s.rn", nativeQuery = true)
+    int resequence(@Param("tenantId") UUID tenantId, @Param("surveyId") UUID surveyId);
 }
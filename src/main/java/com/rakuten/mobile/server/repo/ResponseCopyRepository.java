@@ -0,0 +1,162 @@
+package com.rakuten.mobile.server.repo;
+
+import com.rakuten.mobile.server.events.ResponsesImportedEvent;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Bulk transfer of responses with PostgreSQL {@code COPY}, streaming bytes straight between the
+ * caller's streams and the connection; no entities or rows are materialized in the JVM.
+ *
+ * COPY takes no bind parameters, so tenant and survey ids are inlined; they are typed
+ * {@link UUID}s, whose string form cannot carry SQL.
+ *
+ * Imports bypass submission validation, idempotency and result tallies; they are meant for
+ * migrations and warehouse loads (rebuild the survey's results afterwards).
+ */
+@Repository
+public class ResponseCopyRepository {
+
+    /** Columns of both the CSV export and the CSV import (id and submitted_at may be empty on import). */
+    public static final String CSV_COLUMNS = "id,respondent_id,submitted_at,answers_json";
+
+    private static final String STAGE_CSV_SQL = """
+            CREATE TEMP TABLE response_copy_stage (
+                id uuid, respondent_id uuid, submitted_at timestamptz, answers_json jsonb
+            ) ON COMMIT DROP
+            """;
+
+    private static final String STAGE_NDJSON_SQL = "CREATE TEMP TABLE response_copy_stage (doc jsonb) ON COMMIT DROP";
+
+    // Each NDJSON line becomes one jsonb value: CSV format with quote/delimiter bytes that never
+    // occur in JSON text, so backslash escapes inside the documents are left alone.
+    private static final String COPY_NDJSON_SQL =
+            "COPY response_copy_stage (doc) FROM STDIN WITH (FORMAT csv, QUOTE e'\\x01', DELIMITER e'\\x02')";
+
+    private static final String COPY_CSV_SQL =
+            "COPY response_copy_stage (" + CSV_COLUMNS + ") FROM STDIN WITH (FORMAT csv, HEADER true)";
+
+    /** Staged rows with an id and submitted_at filled in. */
+    private static final String STAGED_CSV_SQL = """
+            SELECT coalesce(id, uuid_generate_v4()) AS id, respondent_id, answers_json,
+                   coalesce(submitted_at, now()) AS submitted_at
+            FROM response_copy_stage
+            """;
+
+    /**
+     * Lines look like the JSON export ({id?, respondentId, submittedAt?, answers:{questionId:value}})
+     * or like a submission ({respondentId, answers:[{questionId, value}]}).
+     */
+    private static final String STAGED_NDJSON_SQL = """
+            SELECT coalesce((doc->>'id')::uuid, uuid_generate_v4()) AS id,
+                   (doc->>'respondentId')::uuid AS respondent_id,
+                   CASE WHEN jsonb_typeof(doc->'answers') = 'array'
+                        THEN (SELECT coalesce(jsonb_object_agg(a->>'questionId', a->'value'), '{}'::jsonb)
+                              FROM jsonb_array_elements(doc->'answers') a
+                              WHERE jsonb_typeof(a->'value') <> 'null')
+                        ELSE doc->'answers' END AS answers_json,
+                   coalesce((doc->>'submittedAt')::timestamptz, now()) AS submitted_at
+            FROM response_copy_stage
+            """;
+
+    // The primary key is (id, submitted_at, tenant_id), so ON CONFLICT alone would let an id
+    // in again with a different submitted_at; ids already stored for the tenant are skipped
+    // explicitly, and an id repeated within the upload is loaded once.
+    private static final String INSERT_SQL = """
+            INSERT INTO responses (id, tenant_id, survey_id, respondent_id, answers_json, submitted_at)
+            SELECT DISTINCT ON (s.id) s.id, ?, ?, s.respondent_id, s.answers_json, s.submitted_at
+            FROM (%s) s
+            WHERE NOT EXISTS (SELECT 1 FROM responses r WHERE r.id = s.id AND r.tenant_id = ?)
+            ORDER BY s.id
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String INSERT_FROM_CSV_SQL = INSERT_SQL.formatted(STAGED_CSV_SQL);
+
+    private static final String INSERT_FROM_NDJSON_SQL = INSERT_SQL.formatted(STAGED_NDJSON_SQL);
+
+    // Serializes a tenant's imports, so two uploads with the same ids cannot both pass the check
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext(?))";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ApplicationEventPublisher events;
+
+    public ResponseCopyRepository(JdbcTemplate jdbc, PlatformTransactionManager txManager, ApplicationEventPublisher events) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.events = events;
+    }
+
+    /**
+     * Streams every response of a survey as CSV ({@link #CSV_COLUMNS}, with a header row).
+     * Compact answers are decoded to the keyed form, so the output can be loaded back with {@link #copyIn}.
+     *
+     * @param tenantId The tenant owning the survey.
+     * @param surveyId The ID of the survey.
+     * @param out The destination stream; it is not closed.
+     * @return The number of rows copied.
+     */
+    public long copyOut(UUID tenantId, UUID surveyId, OutputStream out) {
+        String sql = "COPY (SELECT id, respondent_id, submitted_at,"
+                + " decode_response_answers(answers_json, survey_id, schema_version) AS answers_json FROM responses"
+                + " WHERE tenant_id = '" + tenantId + "' AND survey_id = '" + surveyId + "'"
+                + " ORDER BY submitted_at, id) TO STDOUT WITH (FORMAT csv, HEADER true)";
+        return jdbc.execute((ConnectionCallback<Long>) con -> {
+            try {
+                return copyManager(con).copyOut(sql, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Loads responses into a survey in one transaction: the upload is copied into a temporary
+     * staging table and moved into {@code responses} with a single INSERT ... SELECT.
+     * Ids the tenant already has are skipped, whatever their submitted_at, so re-running an
+     * import is safe.
+     *
+     * @param tenantId The tenant owning the survey.
+     * @param surveyId The ID of the survey.
+     * @param ndjson True for NDJSON input, false for CSV with a header row.
+     * @param in The upload.
+     * @return The number of responses inserted.
+     */
+    public int copyIn(UUID tenantId, UUID surveyId, boolean ndjson, InputStream in) {
+        return tx.execute(status -> {
+            jdbc.query(LOCK_SQL, (RowCallbackHandler) rs -> {}, "response-copy:" + tenantId);
+            jdbc.execute(ndjson ? STAGE_NDJSON_SQL : STAGE_CSV_SQL);
+            jdbc.execute((ConnectionCallback<Long>) con -> {
+                try {
+                    return copyManager(con).copyIn(ndjson ? COPY_NDJSON_SQL : COPY_CSV_SQL, in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            int imported = jdbc.update(ndjson ? INSERT_FROM_NDJSON_SQL : INSERT_FROM_CSV_SQL, tenantId, surveyId, tenantId);
+            // Delivered after commit, e.g. to pin the tenant's reads to the primary
+            events.publishEvent(new ResponsesImportedEvent(tenantId, surveyId, imported));
+            return imported;
+        });
+    }
+
+    private static CopyManager copyManager(Connection con) throws SQLException {
+        return con.unwrap(PGConnection.class).getCopyAPI();
+    }
+}
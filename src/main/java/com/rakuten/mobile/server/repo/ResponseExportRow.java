@@ -0,0 +1,11 @@
+package com.rakuten.mobile.server.repo;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Read-only projection of a response used by the export path.
+ * Rows are never attached to the persistence context, so streaming them does not grow the session.
+ * The answers are the raw JSONB text; writers copy it out instead of parsing it.
+ */
+public record ResponseExportRow(UUID id, Instant submittedAt, UUID respondentId, String answersJson) {}
@@ -0,0 +1,192 @@
+package com.rakuten.mobile.server.repo;
+
+import com.rakuten.mobile.server.results.TallyAccumulator.TallyDelta;
+import com.rakuten.mobile.server.results.TallyAccumulator.TallyKey;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Native-SQL access to the pre-aggregated {@code response_tallies} table.
+ *
+ * Native statements bypass the Hibernate tenant filter, so every method takes the tenant explicitly.
+ *
+ * Each survey's tallies have a generation ({@code response_tally_generations}, V20) that a
+ * {@link #rebuild} moves forward. Submissions read it in their own transaction and flushes only
+ * add deltas of the current generation, so deltas counted before a rebuild, on any node, never
+ * land on top of the recomputed rows.
+ */
+@Repository
+public class ResponseTallyRepository {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO response_tallies AS t
+                (tenant_id, survey_id, question_id, bucket, answer_count, numeric_count, num_sum, num_min, num_max, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, now())
+            ON CONFLICT (tenant_id, survey_id, question_id, bucket) DO UPDATE SET
+                answer_count  = t.answer_count + EXCLUDED.answer_count,
+                numeric_count = t.numeric_count + EXCLUDED.numeric_count,
+                num_sum       = t.num_sum + EXCLUDED.num_sum,
+                num_min       = LEAST(t.num_min, EXCLUDED.num_min),
+                num_max       = GREATEST(t.num_max, EXCLUDED.num_max),
+                updated_at    = now()
+            """;
+
+    private static final String FIND_SQL = """
+            SELECT question_id, bucket, answer_count, numeric_count, num_sum, num_min, num_max
+            FROM response_tallies
+            WHERE tenant_id = ? AND survey_id = ?
+            """;
+
+    /**
+     * Reads the current generation of many surveys, taking their tally locks in the order given.
+     * Binds a {@code uuid[]} of tenants and a {@code uuid[]} of surveys.
+     */
+    private static final String GENERATIONS_SQL = """
+            SELECT s.survey_id, response_tally_generation(s.tenant_id, s.survey_id)
+            FROM unnest(?, ?) WITH ORDINALITY AS s(tenant_id, survey_id, n)
+            ORDER BY s.n
+            """;
+
+    private static final String NEXT_GENERATION_SQL = "SELECT next_response_tally_generation(?, ?)";
+
+    private static final String DELETE_SQL = "DELETE FROM response_tallies WHERE tenant_id = ? AND survey_id = ?";
+
+    /**
+     * Recomputes every tally of one survey from {@code responses.answers_json} (decoding compact
+     * answers), applying the same bucketing rules as {@link com.rakuten.mobile.server.results.ResultsService}.
+     * Parameters: (tenant, survey) three times.
+     */
+    private static final String REBUILD_SQL = """
+            INSERT INTO response_tallies
+                (tenant_id, survey_id, question_id, bucket, answer_count, numeric_count, num_sum, num_min, num_max, updated_at)
+            SELECT r.tenant_id, r.survey_id, '00000000-0000-0000-0000-000000000000'::uuid, '',
+                   count(*), 0, 0, NULL, NULL, now()
+            FROM responses r
+            WHERE r.tenant_id = ? AND r.survey_id = ?
+            GROUP BY r.tenant_id, r.survey_id
+            UNION ALL
+            SELECT r.tenant_id, r.survey_id, q.id, '',
+                   count(*),
+                   count(*) FILTER (WHERE q.type = 'NUMBER' AND jsonb_typeof(a.v) = 'number'),
+                   coalesce(sum((a.v #>> '{}')::double precision) FILTER (WHERE q.type = 'NUMBER' AND jsonb_typeof(a.v) = 'number'), 0),
+                   min((a.v #>> '{}')::double precision) FILTER (WHERE q.type = 'NUMBER' AND jsonb_typeof(a.v) = 'number'),
+                   max((a.v #>> '{}')::double precision) FILTER (WHERE q.type = 'NUMBER' AND jsonb_typeof(a.v) = 'number'),
+                   now()
+            FROM responses r
+            JOIN questions q ON q.tenant_id = r.tenant_id AND q.survey_id = r.survey_id AND q.type IN ('TEXT', 'NUMBER')
+            CROSS JOIN LATERAL (SELECT decode_response_answers(r.answers_json, r.survey_id, r.schema_version) -> q.id::text AS v) a
+            WHERE r.tenant_id = ? AND r.survey_id = ? AND jsonb_typeof(a.v) <> 'null'
+            GROUP BY r.tenant_id, r.survey_id, q.id
+            UNION ALL
+            SELECT r.tenant_id, r.survey_id, q.id, e.v #>> '{}', count(*), 0, 0, NULL, NULL, now()
+            FROM responses r
+            JOIN questions q ON q.tenant_id = r.tenant_id AND q.survey_id = r.survey_id AND q.type IN ('SINGLE_CHOICE', 'MULTI_CHOICE')
+            CROSS JOIN LATERAL (SELECT decode_response_answers(r.answers_json, r.survey_id, r.schema_version) -> q.id::text AS v) a
+            CROSS JOIN LATERAL jsonb_array_elements(
+                CASE WHEN jsonb_typeof(a.v) = 'array' THEN a.v ELSE jsonb_build_array(a.v) END) AS e(v)
+            WHERE r.tenant_id = ? AND r.survey_id = ? AND jsonb_typeof(a.v) <> 'null' AND jsonb_typeof(e.v) <> 'null'
+            GROUP BY r.tenant_id, r.survey_id, q.id, e.v #>> '{}'
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public ResponseTallyRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Adds a set of deltas to the stored tallies with one JDBC batch.
+     *
+     * @param deltas The accumulated changes; rows that do not exist yet are created.
+     */
+    public void addAll(List<TallyDelta> deltas) {
+        if (deltas.isEmpty()) return;
+        jdbc.batchUpdate(UPSERT_SQL, deltas, deltas.size(), (ps, d) -> {
+            TallyKey k = d.key();
+            ps.setObject(1, k.tenantId());
+            ps.setObject(2, k.surveyId());
+            ps.setObject(3, k.questionId());
+            ps.setString(4, k.bucket());
+            ps.setLong(5, d.count());
+            ps.setLong(6, d.numeric());
+            ps.setDouble(7, d.numeric() > 0 ? d.sum() : 0);
+            if (d.numeric() > 0) {
+                ps.setDouble(8, d.min());
+                ps.setDouble(9, d.max());
+            } else {
+                ps.setNull(8, Types.DOUBLE);
+                ps.setNull(9, Types.DOUBLE);
+            }
+        });
+    }
+
+    /**
+     * Reads every tally row of a survey.
+     *
+     * @param tenantId The tenant owning the survey.
+     * @param surveyId The ID of the survey.
+     * @return One row per (question, bucket), plus the survey total row.
+     */
+    public List<TallyRow> findBySurvey(UUID tenantId, UUID surveyId) {
+        return jdbc.query(FIND_SQL, (rs, i) -> new TallyRow(
+                rs.getObject(1, UUID.class),
+                rs.getString(2),
+                rs.getLong(3),
+                rs.getLong(4),
+                rs.getDouble(5),
+                rs.getObject(6, Double.class),
+                rs.getObject(7, Double.class)), tenantId, surveyId);
+    }
+
+    /**
+     * Reads the current tally generation of each survey with a single statement. Must be called
+     * inside a transaction: each survey's tally lock is held in shared mode until it ends, so no
+     * rebuild of these surveys can start in between.
+     *
+     * @param surveys The surveys to look up; locked in survey id order so concurrent callers cannot deadlock.
+     * @return The current generation per survey id.
+     */
+    public Map<UUID, Long> generations(Collection<SurveyRef> surveys) {
+        Map<UUID, Long> out = new HashMap<>();
+        if (surveys.isEmpty()) return out;
+        List<SurveyRef> ordered = surveys.stream().distinct()
+                .sorted(Comparator.comparing(SurveyRef::surveyId)).toList();
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(GENERATIONS_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", ordered.stream().map(SurveyRef::tenantId).toArray()));
+            ps.setArray(2, con.createArrayOf("uuid", ordered.stream().map(SurveyRef::surveyId).toArray()));
+            return ps;
+        }, rs -> {
+            out.put(rs.getObject(1, UUID.class), rs.getLong(2));
+        });
+        return out;
+    }
+
+    /**
+     * Replaces the tallies of a survey with values recomputed from its stored responses, and moves
+     * the survey to its next tally generation. Must be called inside a READ COMMITTED transaction:
+     * the recompute then reads after the exclusive tally lock, i.e. after every submission that
+     * read the previous generation has committed or rolled back.
+     *
+     * @return The number of tally rows written.
+     */
+    public int rebuild(UUID tenantId, UUID surveyId) {
+        jdbc.queryForObject(NEXT_GENERATION_SQL, Long.class, tenantId, surveyId);
+        jdbc.update(DELETE_SQL, tenantId, surveyId);
+        return jdbc.update(REBUILD_SQL, tenantId, surveyId, tenantId, surveyId, tenantId, surveyId);
+    }
+
+    public record SurveyRef(UUID tenantId, UUID surveyId) {}
+
+    public record TallyRow(UUID questionId, String bucket, long count, long numeric,
+                           double sum, Double min, Double max) {}
+}
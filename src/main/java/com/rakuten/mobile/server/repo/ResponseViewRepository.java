@@ -0,0 +1,98 @@
+package com.rakuten.mobile.server.repo;
+
+import com.rakuten.mobile.server.domain.ResponseView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Read-only repository for listing, fetching and exporting responses.
+ * Answers come back as raw JSONB text, decoded to the keyed form when stored compact
+ * (see {@link ResponseView}); writes go through ResponseRepository.
+ *
+ * Answer filters match keyed rows through the GIN index on the stored column and compact rows
+ * through their decoded form, reached via the partial index idx_responses_compact.
+ */
+public interface ResponseViewRepository extends Repository<ResponseView, UUID> {
+
+    // One response of a survey. findById would go through EntityManager.find, which the tenant
+    // filter does not cover; the explicit tenant_id also prunes to one hash subpartition per month.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select r from ResponseView r where r.id = :id and r.tenantId = :tenantId and r.surveyId = :surveyId")
+    Optional<ResponseView> findOne(@Param("tenantId") UUID tenantId,
+                                   @Param("surveyId") UUID surveyId,
+                                   @Param("id") UUID id);
+
+    // Finds all responses for a specific survey, with pagination support
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Page<ResponseView> findBySurveyId(UUID surveyId, Pageable pageable);
+
+    // Responses whose answers satisfy a jsonpath predicate (see AnswerFilter); served by idx_responses_answers_gin
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select r from ResponseView r where r.surveyId = :surveyId and (jsonb_matches(r.storedAnswersJson, :filter) = true " +
+            "or (r.schemaVersion is not null and jsonb_matches(r.decodedAnswersJson, :filter) = true))")
+    Page<ResponseView> findBySurveyIdMatching(@Param("surveyId") UUID surveyId,
+                                              @Param("filter") String filter,
+                                              Pageable pageable);
+
+    // Keyset pagination, newest first; served by idx_responses_tenant_survey_seek.
+    // tenant_id is explicit (the tenant filter adds the same predicate) so the planner can
+    // prune to one hash subpartition per month; the plain submitted_at bound lets it also
+    // skip months newer than the cursor (row comparisons do not prune).
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select r from ResponseView r where r.tenantId = :tenantId and r.surveyId = :surveyId " +
+            "order by r.submittedAt desc, r.id desc")
+    List<ResponseView> findFirstSeekPage(@Param("tenantId") UUID tenantId,
+                                         @Param("surveyId") UUID surveyId,
+                                         Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select r from ResponseView r where r.tenantId = :tenantId and r.surveyId = :surveyId " +
+            "and r.submittedAt <= :afterAt and (r.submittedAt, r.id) < (:afterAt, :afterId) " +
+            "order by r.submittedAt desc, r.id desc")
+    List<ResponseView> findSeekPageAfter(@Param("tenantId") UUID tenantId,
+                                         @Param("surveyId") UUID surveyId,
+                                         @Param("afterAt") Instant afterAt,
+                                         @Param("afterId") UUID afterId,
+                                         Limit limit);
+
+    /**
+     * Streams export rows for a survey over a forward-only cursor.
+     * The fetch size keeps the driver from buffering the whole result; callers must consume
+     * the stream inside a transaction and close it when done.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.rakuten.mobile.server.repo.ResponseExportRow(r.id, r.submittedAt, r.respondentId, " +
+            "coalesce(r.decodedAnswersJson, r.storedAnswersJson)) from ResponseView r where r.surveyId = :surveyId")
+    Stream<ResponseExportRow> streamExportRows(@Param("surveyId") UUID surveyId);
+
+    /**
+     * Like {@link #streamExportRows(UUID)}, restricted to responses whose answers satisfy a
+     * jsonpath predicate (see AnswerFilter).
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.rakuten.mobile.server.repo.ResponseExportRow(r.id, r.submittedAt, r.respondentId, " +
+            "coalesce(r.decodedAnswersJson, r.storedAnswersJson)) from ResponseView r where r.surveyId = :surveyId " +
+            "and (jsonb_matches(r.storedAnswersJson, :filter) = true " +
+            "or (r.schemaVersion is not null and jsonb_matches(r.decodedAnswersJson, :filter) = true))")
+    Stream<ResponseExportRow> streamExportRowsMatching(@Param("surveyId") UUID surveyId,
+                                                       @Param("filter") String filter);
+}
@@ -4,7 +4,12 @@ import com.rakuten.mobile.server.domain.Survey;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -14,4 +19,40 @@ import java.util.UUID;
 public interface SurveyRepository extends JpaRepository<Survey, UUID> {
     // Finds surveys with a specific status, with pagination support
     Page<Survey> findByStatus(String status, Pageable pageable);
+    long countByStatus(String status);
+
+    // Bumps the definition version after a change to the survey's questions or options.
+    @Modifying(flushAutomatically = true)
+    @Query("update Survey s set s.definitionVersion = s.definitionVersion + 1 " +
+            "where s.tenantId = :tenantId and s.id = :surveyId")
+    int bumpDefinitionVersion(@Param("tenantId") UUID tenantId, @Param("surveyId") UUID surveyId);
+
+    // Keyset pagination, newest first; served by idx_surveys_tenant_seek / idx_surveys_tenant_status_seek.
+    // Native SQL is not covered by the Hibernate tenant filter, so tenant_id is explicit.
+    @Query(value = "SELECT * FROM surveys WHERE tenant_id = :tenantId " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Survey> findFirstSeekPage(@Param("tenantId") UUID tenantId, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM surveys WHERE tenant_id = :tenantId " +
+            "AND (created_at, id) < (:afterAt, :afterId) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Survey> findSeekPageAfter(@Param("tenantId") UUID tenantId,
+                                   @Param("afterAt") Instant afterAt,
+                                   @Param("afterId") UUID afterId,
+                                   @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM surveys WHERE tenant_id = :tenantId AND status = :status " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Survey> findFirstSeekPageByStatus(@Param("tenantId") UUID tenantId,
+                                           @Param("status") String status,
+                                           @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM surveys WHERE tenant_id = :tenantId AND status = :status " +
+            "AND (created_at, id) < (:afterAt, :afterId) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Survey> findSeekPageByStatusAfter(@Param("tenantId") UUID tenantId,
+                                           @Param("status") String status,
+                                           @Param("afterAt") Instant afterAt,
+                                           @Param("afterId") UUID afterId,
+                                           @Param("limit") int limit);
 }
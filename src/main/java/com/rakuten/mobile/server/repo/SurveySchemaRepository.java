@@ -0,0 +1,70 @@
+package com.rakuten.mobile.server.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Native-SQL access to {@code survey_schemas}, the immutable snapshots of survey definitions that
+ * compact answers are encoded against (see V13).
+ *
+ * A snapshot is keyed by the survey and its {@code definition_version}; every change to the
+ * definition bumps the version, so a stored snapshot never has to change.
+ */
+@Repository
+public class SurveySchemaRepository {
+
+    // One statement, so the version and the questions come from the same database snapshot.
+    // An already stored snapshot of the version wins over the freshly built one.
+    private static final String SNAPSHOT_SQL = """
+            WITH snap AS (
+                SELECT s.id AS survey_id, s.definition_version AS version, s.tenant_id,
+                       coalesce((SELECT jsonb_agg(jsonb_build_object(
+                                     'id', q.id,
+                                     'type', q.type,
+                                     'options', coalesce((SELECT jsonb_agg(coalesce(o.value, o.label) ORDER BY o.position, o.id)
+                                                          FROM option_choices o WHERE o.question_id = q.id), '[]'::jsonb))
+                                     ORDER BY q.position, q.id)
+                                 FROM questions q WHERE q.survey_id = s.id), '[]'::jsonb) AS questions
+                FROM surveys s
+                WHERE s.id = ? AND s.tenant_id = ?
+            ), stored AS (
+                INSERT INTO survey_schemas (survey_id, version, tenant_id, questions)
+                SELECT survey_id, version, tenant_id, questions FROM snap
+                ON CONFLICT (survey_id, version) DO NOTHING
+            )
+            SELECT snap.version, coalesce(existing.questions, snap.questions)::text
+            FROM snap
+            LEFT JOIN survey_schemas existing ON existing.survey_id = snap.survey_id AND existing.version = snap.version
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public SurveySchemaRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Returns the snapshot of the survey's current definition, storing it first if needed.
+     *
+     * @param tenantId The tenant owning the survey.
+     * @param surveyId The ID of the survey.
+     * @return The snapshot, or empty if the survey does not exist for the tenant.
+     */
+    public Optional<Snapshot> snapshot(UUID tenantId, UUID surveyId) {
+        List<Snapshot> rows = jdbc.query(SNAPSHOT_SQL,
+                (rs, i) -> new Snapshot(rs.getLong(1), rs.getString(2)), surveyId, tenantId);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * A stored schema snapshot.
+     *
+     * @param version The definition version it was taken at.
+     * @param questionsJson {@code [{id, type, options:[value...]}]} in position order.
+     */
+    public record Snapshot(long version, String questionsJson) {}
+}
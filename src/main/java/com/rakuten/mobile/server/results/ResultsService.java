@@ -0,0 +1,195 @@
+package com.rakuten.mobile.server.results;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rakuten.mobile.server.domain.Question;
+import com.rakuten.mobile.server.domain.QuestionType;
+import com.rakuten.mobile.server.events.ResponseSubmittedEvent;
+import com.rakuten.mobile.server.events.SurveyDefinitionChangedEvent;
+import com.rakuten.mobile.server.events.TalliesRebuiltEvent;
+import com.rakuten.mobile.server.repo.QuestionRepository;
+import com.rakuten.mobile.server.repo.ResponseTallyRepository;
+import com.rakuten.mobile.server.repo.ResponseTallyRepository.TallyRow;
+import com.rakuten.mobile.server.repo.SurveyRepository;
+import com.rakuten.mobile.server.tenancy.TenantContext;
+import com.rakuten.mobile.server.web.dto.results.QuestionResultRes;
+import com.rakuten.mobile.server.web.dto.results.SurveyResultsRes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains and serves per-question answer tallies so survey results can be read in
+ * O(questions) instead of scanning every response.
+ *
+ * - Each committed submission is counted in memory ({@link TallyAccumulator}); replays and
+ *   rolled-back submissions never reach the listener.
+ * - Choice answers are counted per chosen value, TEXT answers per question, and NUMBER answers
+ *   additionally feed sum/min/max.
+ * - {@link #rebuild(UUID)} recomputes a survey's tallies from {@code responses.answers_json}.
+ */
+@Service
+public class ResultsService {
+
+    private final TallyAccumulator accumulator;
+    private final ResponseTallyRepository tallies;
+    private final QuestionRepository questions;
+    private final SurveyRepository surveys;
+    private final TransactionTemplate tx;
+    private final ApplicationEventPublisher events;
+    private final Cache<UUID, Map<UUID, QuestionType>> questionTypes;
+
+    public ResultsService(TallyAccumulator accumulator,
+                          ResponseTallyRepository tallies,
+                          QuestionRepository questions,
+                          SurveyRepository surveys,
+                          PlatformTransactionManager txManager,
+                          ApplicationEventPublisher events,
+                          @Value("${app.results.question-types-ttl-seconds:60}") long typesTtlSeconds) {
+        this.accumulator = accumulator;
+        this.tallies = tallies;
+        this.questions = questions;
+        this.surveys = surveys;
+        this.tx = new TransactionTemplate(txManager);
+        this.events = events;
+        this.questionTypes = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(typesTtlSeconds))
+                .build();
+    }
+
+    /**
+     * Counts the answers of a committed submission. Runs on the committing thread and only
+     * touches in-memory counters (plus a question lookup on a cold cache).
+     */
+    @TransactionalEventListener
+    public void onResponseSubmitted(ResponseSubmittedEvent e) {
+        // The generation read by the submitting transaction, so a rebuild drops all of its counts or none
+        TallyAccumulator.Generation tally = accumulator.survey(e.surveyId(), e.tallyGeneration());
+        tally.count(e.tenantId(), TallyAccumulator.SURVEY_TOTAL, TallyAccumulator.NO_BUCKET);
+        if (e.answers() == null) return;
+
+        Map<UUID, QuestionType> types = questionTypes.get(e.surveyId(), this::loadTypes);
+        for (Map.Entry<UUID, QuestionType> q : types.entrySet()) {
+            Object value = e.answers().get(q.getKey().toString());
+            if (value == null) continue;
+            switch (q.getValue()) {
+                case SINGLE_CHOICE, MULTI_CHOICE -> {
+                    Collection<?> chosen = value instanceof Collection<?> c ? c : List.of(value);
+                    for (Object option : chosen) {
+                        if (option != null) {
+                            tally.count(e.tenantId(), q.getKey(), String.valueOf(option));
+                        }
+                    }
+                }
+                case NUMBER -> {
+                    if (value instanceof Number n) {
+                        tally.number(e.tenantId(), q.getKey(), n.doubleValue());
+                    } else {
+                        tally.count(e.tenantId(), q.getKey(), TallyAccumulator.NO_BUCKET);
+                    }
+                }
+                case TEXT -> tally.count(e.tenantId(), q.getKey(), TallyAccumulator.NO_BUCKET);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDefinitionChanged(SurveyDefinitionChangedEvent e) {
+        questionTypes.invalidate(e.surveyId());
+    }
+
+    /**
+     * Returns the aggregated results of a survey from the tally table.
+     *
+     * @param surveyId The ID of the survey.
+     * @return Response count and per-question counts / numeric statistics, in question order.
+     * @throws IllegalArgumentException If the survey is not found.
+     */
+    @Transactional(readOnly = true)
+    public SurveyResultsRes results(UUID surveyId) {
+        surveys.findById(surveyId).orElseThrow(() -> new IllegalArgumentException("Survey not found"));
+        UUID tenantId = UUID.fromString(TenantContext.required());
+
+        Map<UUID, List<TallyRow>> byQuestion = tallies.findBySurvey(tenantId, surveyId).stream()
+                .collect(Collectors.groupingBy(TallyRow::questionId));
+        long total = byQuestion.getOrDefault(TallyAccumulator.SURVEY_TOTAL, List.of()).stream()
+                .mapToLong(TallyRow::count).sum();
+
+        List<QuestionResultRes> out = new ArrayList<>();
+        for (Question q : questions.findBySurveyIdOrderByPositionAsc(surveyId)) {
+            out.add(toResult(q, byQuestion.getOrDefault(q.getId(), List.of())));
+        }
+        return new SurveyResultsRes(surveyId, total, out);
+    }
+
+    /**
+     * Recomputes the tallies of a survey from its stored responses and moves the survey to its
+     * next tally generation. Each submission is counted exactly once: one that committed before
+     * the rebuild took its lock is in the recomputed rows, and its pending deltas on every node are
+     * dropped at their next flush; one that commits later reads the new generation and is added by
+     * a flush.
+     *
+     * @param surveyId The ID of the survey.
+     * @return The number of tally rows written.
+     * @throws IllegalArgumentException If the survey is not found.
+     */
+    public int rebuild(UUID surveyId) {
+        surveys.findById(surveyId).orElseThrow(() -> new IllegalArgumentException("Survey not found"));
+        UUID tenantId = UUID.fromString(TenantContext.required());
+        questionTypes.invalidate(surveyId);
+
+        int[] written = new int[1];
+        tx.executeWithoutResult(status -> {
+            written[0] = tallies.rebuild(tenantId, surveyId);
+            events.publishEvent(new TalliesRebuiltEvent(tenantId, surveyId));
+        });
+        return written[0];
+    }
+
+    private Map<UUID, QuestionType> loadTypes(UUID surveyId) {
+        Map<UUID, QuestionType> types = new HashMap<>();
+        for (Question q : questions.findBySurveyIdOrderByPositionAsc(surveyId)) {
+            types.put(q.getId(), q.getType());
+        }
+        return types;
+    }
+
+    private static QuestionResultRes toResult(Question q, List<TallyRow> rows) {
+        long answered = 0;
+        Map<String, Long> options = new LinkedHashMap<>();
+        QuestionResultRes.NumericStats stats = null;
+
+        for (TallyRow row : rows) {
+            if (q.getType() == QuestionType.SINGLE_CHOICE || q.getType() == QuestionType.MULTI_CHOICE) {
+                options.put(row.bucket(), row.count());
+            } else {
+                answered += row.count();
+                if (row.numeric() > 0) {
+                    stats = new QuestionResultRes.NumericStats(row.numeric(), row.sum(),
+                            row.min(), row.max(), row.sum() / row.numeric());
+                }
+            }
+        }
+        if (!options.isEmpty()) {
+            // Distinct respondents are not tracked per option; for MULTI_CHOICE this is the number of selections.
+            answered = options.values().stream().mapToLong(Long::longValue).sum();
+        }
+        return new QuestionResultRes(q.getId(), q.getText(), q.getType(), answered,
+                options.isEmpty() ? null : options, stats);
+    }
+}
@@ -0,0 +1,145 @@
+package com.rakuten.mobile.server.results;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped in-memory accumulators for per-survey, per-question, per-bucket answer tallies.
+ *
+ * Request threads only touch {@link LongAdder}/{@link DoubleAdder}/{@link DoubleAccumulator}
+ * cells, which spread contention across internal stripes, so recording never blocks. The
+ * {@link TallyFlusher} periodically drains the accumulated deltas and adds them to the
+ * {@code response_tallies} table.
+ *
+ * Cells are grouped per survey and tally generation into a {@link Generation}. A submission is
+ * recorded into the generation it read in its own transaction, and the flusher only adds deltas
+ * of a survey's current generation, so a rebuild on any node drops or keeps each submission's
+ * counts as a whole (see {@link com.rakuten.mobile.server.repo.ResponseTallyRepository}).
+ */
+@Component
+public class TallyAccumulator {
+
+    /** Question id used for the survey-level "responses received" counter. */
+    public static final UUID SURVEY_TOTAL = new UUID(0L, 0L);
+
+    /** Bucket used for counters that are not split by option (TEXT, NUMBER, survey total). */
+    public static final String NO_BUCKET = "";
+
+    private final ConcurrentHashMap<GenerationKey, Generation> generations = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cells of a survey's tally generation; record all counts of one submission through it.
+     */
+    public Generation survey(UUID surveyId, long generation) {
+        return generations.computeIfAbsent(new GenerationKey(surveyId, generation),
+                k -> new Generation(surveyId, generation));
+    }
+
+    /**
+     * Takes and resets every non-empty cell. Recording may continue concurrently; anything
+     * recorded after a cell is read is picked up by the next drain.
+     *
+     * @return The deltas accumulated since the previous drain.
+     */
+    public List<TallyDelta> drain() {
+        List<TallyDelta> out = new ArrayList<>();
+        generations.values().forEach(g -> g.cells.forEach((key, c) -> {
+            TallyDelta d = c.drain(key);
+            if (d != null) out.add(d);
+        }));
+        return out;
+    }
+
+    /**
+     * Puts deltas back after a failed flush so they are retried with the next one.
+     */
+    public void restore(List<TallyDelta> deltas) {
+        for (TallyDelta d : deltas) {
+            Cell c = survey(d.key().surveyId(), d.key().generation()).cell(d.key());
+            c.count.add(d.count());
+            if (d.numeric() > 0) {
+                c.numeric.add(d.numeric());
+                c.sum.add(d.sum());
+                c.min.accumulate(d.min());
+                c.max.accumulate(d.max());
+            }
+        }
+    }
+
+    /**
+     * Drops the cells of generations older than their survey's current one. Their deltas would not
+     * be added anyway: the rebuild that superseded them already counted those submissions.
+     *
+     * @param current The current generation per survey id; other surveys are left alone.
+     */
+    public void retire(Map<UUID, Long> current) {
+        generations.keySet().removeIf(k -> {
+            Long c = current.get(k.surveyId());
+            return c != null && k.generation() < c;
+        });
+    }
+
+    /** The cells of one survey counted under one tally generation. */
+    public static final class Generation {
+        private final UUID surveyId;
+        private final long generation;
+        private final ConcurrentHashMap<TallyKey, Cell> cells = new ConcurrentHashMap<>();
+
+        private Generation(UUID surveyId, long generation) {
+            this.surveyId = surveyId;
+            this.generation = generation;
+        }
+
+        public void count(UUID tenantId, UUID questionId, String bucket) {
+            cell(new TallyKey(tenantId, surveyId, generation, questionId, bucket)).count.increment();
+        }
+
+        public void number(UUID tenantId, UUID questionId, double value) {
+            Cell c = cell(new TallyKey(tenantId, surveyId, generation, questionId, NO_BUCKET));
+            c.count.increment();
+            c.numeric.increment();
+            c.sum.add(value);
+            c.min.accumulate(value);
+            c.max.accumulate(value);
+        }
+
+        private Cell cell(TallyKey key) {
+            return cells.computeIfAbsent(key, k -> new Cell());
+        }
+    }
+
+    public record TallyKey(UUID tenantId, UUID surveyId, long generation, UUID questionId, String bucket) {}
+
+    private record GenerationKey(UUID surveyId, long generation) {}
+
+    /**
+     * Accumulated change for one tally row; sum/min/max are only meaningful when numeric > 0.
+     */
+    public record TallyDelta(TallyKey key, long count, long numeric, double sum, double min, double max) {}
+
+    private static final class Cell {
+        final LongAdder count = new LongAdder();
+        final LongAdder numeric = new LongAdder();
+        final DoubleAdder sum = new DoubleAdder();
+        final DoubleAccumulator min = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+        final DoubleAccumulator max = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+
+        TallyDelta drain(TallyKey key) {
+            long n = count.sumThenReset();
+            if (n == 0) return null;
+            long numericCount = numeric.sumThenReset();
+            double s = sum.sumThenReset();
+            double lo = min.getThenReset();
+            double hi = max.getThenReset();
+            return new TallyDelta(key, n, numericCount, s, lo, hi);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.rakuten.mobile.server.results;
+
+import com.rakuten.mobile.server.repo.ResponseTallyRepository;
+import com.rakuten.mobile.server.repo.ResponseTallyRepository.SurveyRef;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically moves the deltas collected by {@link TallyAccumulator} into {@code response_tallies}.
+ *
+ * Each flush is one transaction that reads the current tally generation of the surveys it touches
+ * and adds their deltas with one JDBC batch of upserts, however many submissions were counted since
+ * the previous flush. Deltas of an older generation are dropped: a rebuild has already counted
+ * them. A failed flush puts its deltas back so nothing is lost. Stored tallies therefore trail
+ * committed responses by at most {@code app.results.flush-interval-ms}.
+ */
+@Slf4j
+@Component
+public class TallyFlusher {
+
+    private final TallyAccumulator accumulator;
+    private final ResponseTallyRepository tallies;
+    private final TransactionTemplate tx;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public TallyFlusher(TallyAccumulator accumulator,
+                        ResponseTallyRepository tallies,
+                        PlatformTransactionManager txManager) {
+        this.accumulator = accumulator;
+        this.tallies = tallies;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /**
+     * Writes the pending deltas.
+     */
+    @Scheduled(fixedDelayString = "${app.results.flush-interval-ms:5000}")
+    public void flush() {
+        lock.lock();
+        try {
+            List<TallyAccumulator.TallyDelta> deltas = accumulator.drain();
+            if (deltas.isEmpty()) return;
+            try {
+                Map<UUID, Long> current = tx.execute(status -> {
+                    Map<UUID, Long> generations = tallies.generations(deltas.stream()
+                            .map(d -> new SurveyRef(d.key().tenantId(), d.key().surveyId()))
+                            .collect(Collectors.toSet()));
+                    List<TallyAccumulator.TallyDelta> live = deltas.stream()
+                            .filter(d -> generations.get(d.key().surveyId()) == d.key().generation())
+                            .toList();
+                    if (live.size() < deltas.size()) {
+                        log.debug("Dropped {} tally deltas superseded by a rebuild", deltas.size() - live.size());
+                    }
+                    tallies.addAll(live);
+                    return generations;
+                });
+                accumulator.retire(current);
+            } catch (RuntimeException e) {
+                accumulator.restore(deltas);
+                log.warn("Flushing {} tally deltas failed; will retry", deltas.size(), e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
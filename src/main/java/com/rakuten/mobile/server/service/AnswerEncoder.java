@@ -0,0 +1,107 @@
+package com.rakuten.mobile.server.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rakuten.mobile.server.events.SurveyDefinitionChangedEvent;
+import com.rakuten.mobile.server.repo.EncodedAnswers;
+import com.rakuten.mobile.server.repo.SurveySchemaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Serializes submitted answers for {@code responses.answers_json}.
+ *
+ * With {@code app.answers.encoding=keyed} (the default) answers are stored as an object keyed by
+ * question ID. With {@code compact} they are stored as a positional array against the current
+ * {@link SurveySchema} snapshot of the survey, and {@code responses.schema_version} records which
+ * one; reads decode them back in SQL ({@code decode_response_answers}), so API clients see the
+ * keyed form either way. Answers the snapshot cannot represent exactly stay keyed.
+ *
+ * Snapshots are cached per (tenant, survey) and dropped when {@link SurveyDefinitionChangedEvent}
+ * commits on this node. A stale snapshot on another node is still a stored, immutable one, so rows
+ * encoded against it decode correctly.
+ */
+@Component
+public class AnswerEncoder {
+
+    private final ObjectMapper om;
+    private final SurveySchemaRepository schemas;
+    private final TransactionTemplate snapshotTx;
+    private final boolean compact;
+    private final Cache<Key, SurveySchema> current;
+
+    public AnswerEncoder(ObjectMapper om,
+                         SurveySchemaRepository schemas,
+                         PlatformTransactionManager txManager,
+                         @Value("${app.answers.encoding:keyed}") String encoding,
+                         @Value("${app.answers.schema-cache.max-size:10000}") long maxSize,
+                         @Value("${app.answers.schema-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.om = om;
+        this.schemas = schemas;
+        // Snapshots commit on their own: a response rolled back must not take the snapshot with it
+        // while this node keeps encoding against the cached version.
+        this.snapshotTx = new TransactionTemplate(txManager);
+        this.snapshotTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.compact = "compact".equalsIgnoreCase(encoding);
+        this.current = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /** Whether new answers are written in the compact format. */
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Serializes the answers of a response in the configured format.
+     *
+     * @param tenantId The tenant owning the survey.
+     * @param surveyId The ID of the survey.
+     * @param answers Answers keyed by question ID.
+     * @return The JSON to store and the schema version it is encoded against (null when keyed).
+     */
+    public EncodedAnswers encode(UUID tenantId, UUID surveyId, Map<String, Object> answers) {
+        if (compact) {
+            SurveySchema schema = current.get(new Key(tenantId, surveyId), this::load);
+            List<Object> positional = schema == null ? null : schema.encode(answers);
+            if (positional != null) {
+                return new EncodedAnswers(toJson(positional), schema.version());
+            }
+        }
+        return EncodedAnswers.keyed(toJson(answers));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDefinitionChanged(SurveyDefinitionChangedEvent e) {
+        current.invalidate(new Key(e.tenantId(), e.surveyId()));
+    }
+
+    private SurveySchema load(Key k) {
+        return snapshotTx.execute(status -> schemas.snapshot(k.tenantId(), k.surveyId())
+                .map(s -> SurveySchema.compile(s.version(), s.questionsJson(), om))
+                .orElse(null));
+    }
+
+    private String toJson(Object answers) {
+        try {
+            return om.writeValueAsString(answers);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Answers are not serializable", e);
+        }
+    }
+
+    private record Key(UUID tenantId, UUID surveyId) {}
+}
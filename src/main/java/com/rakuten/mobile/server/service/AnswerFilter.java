@@ -0,0 +1,263 @@
+package com.rakuten.mobile.server.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A parsed answer filter, compiled to a SQL/JSON path predicate over {@code responses.answers_json}.
+ *
+ * Syntax: comparisons of a question id with a literal, combined with {@code and}, {@code or},
+ * {@code not} and parentheses, e.g.
+ * {@code 6f1c...-... = "yes" and (4a2b...-... > 5 or not 4a2b...-... = 0)}.
+ *  - Operators: {@code = != <> > >= < <=}.
+ *  - Literals: double-quoted strings (JSON escapes), numbers (at most 100 digits before and
+ *    after the decimal point), {@code true}, {@code false}.
+ *  - {@code =} on a multiple-choice answer matches when any chosen option is equal.
+ *
+ * The predicate is rebuilt from the parsed tree, never copied from the input: question ids must be
+ * UUIDs and literals are re-encoded, so nothing but path syntax produced here reaches the database.
+ * The result is bound as a parameter and evaluated with {@code @@}, which the GIN
+ * {@code jsonb_path_ops} index on {@code answers_json} serves.
+ */
+public final class AnswerFilter {
+
+    private static final int MAX_LENGTH = 4000;
+    private static final int MAX_COMPARISONS = 50;
+    private static final int MAX_DEPTH = 16;
+    // Digits before and after the decimal point of a number literal. Bounds the plain rendering,
+    // which for an exponent like 1e999999999 would otherwise be a billion characters long.
+    private static final int MAX_NUMBER_DIGITS = 100;
+
+    private static final Pattern UUID_PATTERN =
+            Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private final String jsonPath;
+
+    private AnswerFilter(String jsonPath) {
+        this.jsonPath = jsonPath;
+    }
+
+    /**
+     * Parses a filter expression.
+     *
+     * @param expression The filter expression; null or blank means no filter.
+     * @return The parsed filter, or null if there is none.
+     * @throws IllegalStateException If the expression is malformed or too large.
+     */
+    public static AnswerFilter parse(String expression) {
+        if (expression == null || expression.isBlank()) return null;
+        if (expression.length() > MAX_LENGTH) throw invalid("expression is too long");
+        Parser p = new Parser(tokenize(expression));
+        String path = p.orExpr(0);
+        if (!p.atEnd()) throw invalid("unexpected '" + p.peek().text() + "'");
+        return new AnswerFilter(path);
+    }
+
+    /** The SQL/JSON path predicate, to be bound as a {@code jsonpath} parameter. */
+    public String jsonPath() {
+        return jsonPath;
+    }
+
+    @Override
+    public String toString() {
+        return jsonPath;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+
+    private enum Kind { LPAREN, RPAREN, OP, STRING, WORD }
+
+    private record Token(Kind kind, String text) {}
+
+    private static List<Token> tokenize(String s) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(new Token(c == '(' ? Kind.LPAREN : Kind.RPAREN, String.valueOf(c)));
+                i++;
+            } else if (c == '=' || c == '!' || c == '<' || c == '>') {
+                int start = i++;
+                if (i < s.length() && (s.charAt(i) == '=' || (c == '<' && s.charAt(i) == '>'))) i++;
+                String op = s.substring(start, i);
+                if (op.equals("!")) throw invalid("unexpected '!'");
+                tokens.add(new Token(Kind.OP, op));
+            } else if (c == '"') {
+                StringBuilder sb = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= s.length()) throw invalid("unterminated string");
+                    char d = s.charAt(i++);
+                    if (d == '"') break;
+                    if (d == '\\') {
+                        if (i >= s.length()) throw invalid("unterminated string");
+                        char e = s.charAt(i++);
+                        switch (e) {
+                            case '"', '\\', '/' -> sb.append(e);
+                            case 'n' -> sb.append('\n');
+                            case 't' -> sb.append('\t');
+                            case 'r' -> sb.append('\r');
+                            case 'b' -> sb.append('\b');
+                            case 'f' -> sb.append('\f');
+                            case 'u' -> {
+                                if (i + 4 > s.length()) throw invalid("bad \\u escape");
+                                try {
+                                    sb.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+                                } catch (NumberFormatException ex) {
+                                    throw invalid("bad \\u escape");
+                                }
+                                i += 4;
+                            }
+                            default -> throw invalid("bad escape '\\" + e + "'");
+                        }
+                    } else {
+                        sb.append(d);
+                    }
+                }
+                tokens.add(new Token(Kind.STRING, sb.toString()));
+            } else if (Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.') {
+                int start = i;
+                while (i < s.length()) {
+                    char d = s.charAt(i);
+                    if (!(Character.isLetterOrDigit(d) || d == '-' || d == '+' || d == '.' || d == '_')) break;
+                    i++;
+                }
+                tokens.add(new Token(Kind.WORD, s.substring(start, i)));
+            } else {
+                throw invalid("unexpected character '" + c + "'");
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Parser {
+        private final List<Token> tokens;
+        private int pos;
+        private int comparisons;
+
+        Parser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean atEnd() {
+            return pos >= tokens.size();
+        }
+
+        Token peek() {
+            return atEnd() ? null : tokens.get(pos);
+        }
+
+        Token next() {
+            if (atEnd()) throw invalid("unexpected end of expression");
+            return tokens.get(pos++);
+        }
+
+        boolean keyword(String word) {
+            Token t = peek();
+            if (t != null && t.kind() == Kind.WORD && t.text().equalsIgnoreCase(word)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        String orExpr(int depth) {
+            if (depth > MAX_DEPTH) throw invalid("expression is nested too deeply");
+            String left = andExpr(depth);
+            while (keyword("or")) {
+                left = left + " || " + andExpr(depth);
+            }
+            return left;
+        }
+
+        String andExpr(int depth) {
+            String left = unary(depth);
+            while (keyword("and")) {
+                left = left + " && " + unary(depth);
+            }
+            return left;
+        }
+
+        String unary(int depth) {
+            if (keyword("not")) {
+                return "!(" + unary(depth + 1) + ")";
+            }
+            Token t = peek();
+            if (t != null && t.kind() == Kind.LPAREN) {
+                pos++;
+                String inner = orExpr(depth + 1);
+                if (next().kind() != Kind.RPAREN) throw invalid("expected ')'");
+                return "(" + inner + ")";
+            }
+            return comparison();
+        }
+
+        String comparison() {
+            if (++comparisons > MAX_COMPARISONS) throw invalid("too many comparisons");
+            Token q = next();
+            if (q.kind() != Kind.WORD || !UUID_PATTERN.matcher(q.text()).matches()) {
+                throw invalid("expected a question id, got '" + q.text() + "'");
+            }
+            Token op = next();
+            if (op.kind() != Kind.OP) throw invalid("expected an operator after " + q.text());
+            String pathOp = switch (op.text()) {
+                case "=", "==" -> "==";
+                case "!=", "<>" -> "!=";
+                default -> op.text();
+            };
+            return "$.\"" + q.text().toLowerCase(Locale.ROOT) + "\" " + pathOp + " " + literal(next());
+        }
+
+        String literal(Token t) {
+            if (t.kind() == Kind.STRING) return quote(t.text());
+            if (t.kind() == Kind.WORD) {
+                String w = t.text().toLowerCase(Locale.ROOT);
+                if (w.equals("true") || w.equals("false")) return w;
+                BigDecimal n;
+                try {
+                    n = new BigDecimal(t.text());
+                } catch (NumberFormatException e) {
+                    n = null;
+                }
+                if (n != null) {
+                    n = n.stripTrailingZeros();
+                    if (n.scale() > MAX_NUMBER_DIGITS || n.precision() - n.scale() > MAX_NUMBER_DIGITS) {
+                        throw invalid("number " + abbreviate(t.text()) + " has too many digits");
+                    }
+                    return n.toPlainString();
+                }
+            }
+            throw invalid("expected a string, number or boolean, got '" + t.text() + "'");
+        }
+    }
+
+    /** Encodes a string as a path string literal; anything outside printable ASCII is escaped. */
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String abbreviate(String s) {
+        return s.length() <= 32 ? s : s.substring(0, 32) + "...";
+    }
+
+    private static IllegalStateException invalid(String reason) {
+        return new IllegalStateException("Invalid filter: " + reason);
+    }
+}
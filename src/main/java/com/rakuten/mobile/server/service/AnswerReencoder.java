@@ -0,0 +1,143 @@
+package com.rakuten.mobile.server.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakuten.mobile.server.repo.EncodedAnswers;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Offline job that rewrites existing keyed responses into the compact answer format
+ * (see {@link AnswerEncoder}), oldest first.
+ *
+ * - Walks {@code responses} in (submitted_at, id) order from the {@code answers_reencode}
+ *   checkpoint in {@code projection_checkpoints}; each batch commits with its checkpoint.
+ * - Rows whose answers the current survey schema cannot represent exactly are left keyed.
+ * - The checkpoint row is locked with SKIP LOCKED: one node re-encodes at a time.
+ *
+ * Only runs with {@code app.answers.reencode.enabled=true} and {@code app.answers.encoding=compact}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.answers.reencode", name = "enabled", havingValue = "true")
+public class AnswerReencoder {
+
+    static final String CHECKPOINT = "answers_reencode";
+
+    private static final TypeReference<Map<String, Object>> ANSWERS = new TypeReference<>() {};
+
+    private static final String LOCK_CHECKPOINT_SQL = """
+            SELECT position_at, position_id FROM projection_checkpoints
+            WHERE name = ? FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String NEXT_BATCH_SQL = """
+            SELECT submitted_at, id, tenant_id, survey_id, schema_version, answers_json::text
+            FROM responses
+            WHERE (submitted_at, id) > (?, ?) AND submitted_at >= ?
+            ORDER BY submitted_at, id
+            LIMIT ?
+            """;
+
+    private static final String REWRITE_SQL = """
+            UPDATE responses SET answers_json = CAST(? AS jsonb), schema_version = ?
+            WHERE id = ? AND submitted_at = ? AND tenant_id = ? AND schema_version IS NULL
+            """;
+
+    private static final String SAVE_CHECKPOINT_SQL = """
+            UPDATE projection_checkpoints SET position_at = ?, position_id = ?, updated_at = now()
+            WHERE name = ?
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final AnswerEncoder encoder;
+    private final ObjectMapper om;
+    private final int batchSize;
+
+    public AnswerReencoder(JdbcTemplate jdbc,
+                           PlatformTransactionManager txManager,
+                           AnswerEncoder encoder,
+                           ObjectMapper om,
+                           @Value("${app.answers.reencode.batch-size:500}") int batchSize) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.encoder = encoder;
+        this.om = om;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Re-encodes batches until the job has reached the newest response.
+     */
+    @Scheduled(fixedDelayString = "${app.answers.reencode.interval-ms:60000}")
+    public void run() {
+        if (!encoder.isCompact()) return;
+        try {
+            Integer n;
+            do {
+                n = tx.execute(status -> reencodeBatch());
+            } while (n != null && n == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Answer re-encoding failed; will resume from the last checkpoint", e);
+        }
+    }
+
+    /** Re-encodes one batch and advances the checkpoint; returns the number of responses read. */
+    private int reencodeBatch() {
+        List<Position> from = jdbc.query(LOCK_CHECKPOINT_SQL,
+                (rs, i) -> new Position(rs.getTimestamp(1), rs.getObject(2, UUID.class)), CHECKPOINT);
+        if (from.isEmpty()) return 0; // another node holds the checkpoint
+        Position start = from.get(0);
+
+        List<Row> batch = jdbc.query(NEXT_BATCH_SQL,
+                (rs, i) -> new Row(rs.getTimestamp(1), rs.getObject(2, UUID.class), rs.getObject(3, UUID.class),
+                        rs.getObject(4, UUID.class), rs.getObject(5, Long.class), rs.getString(6)),
+                start.at(), start.id(), start.at(), batchSize);
+        if (batch.isEmpty()) return 0;
+
+        List<Object[]> rewrites = new ArrayList<>();
+        for (Row r : batch) {
+            if (r.schemaVersion() != null || r.answersJson() == null) continue;
+            Map<String, Object> answers = parse(r.answersJson());
+            if (answers == null) continue;
+            EncodedAnswers encoded = encoder.encode(r.tenantId(), r.surveyId(), answers);
+            if (encoded.schemaVersion() == null) continue; // not representable; stays keyed
+            rewrites.add(new Object[]{encoded.json(), encoded.schemaVersion(), r.id(), r.at(), r.tenantId()});
+        }
+        if (!rewrites.isEmpty()) {
+            jdbc.batchUpdate(REWRITE_SQL, rewrites);
+        }
+
+        Row end = batch.get(batch.size() - 1);
+        jdbc.update(SAVE_CHECKPOINT_SQL, end.at(), end.id(), CHECKPOINT);
+        log.debug("Re-encoded {} of {} responses up to {}", rewrites.size(), batch.size(), end.at());
+        return batch.size();
+    }
+
+    /** The keyed answers of a row, or null if the stored JSON is not an object. */
+    private Map<String, Object> parse(String answersJson) {
+        try {
+            return om.readValue(answersJson, ANSWERS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private record Position(Timestamp at, UUID id) {}
+
+    private record Row(Timestamp at, UUID id, UUID tenantId, UUID surveyId, Long schemaVersion, String answersJson) {}
+}
@@ -0,0 +1,107 @@
+package com.rakuten.mobile.server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-JVM cache of completed idempotent submissions, keyed by (tenantId, idemKey).
+ *
+ * - Completed results are kept in a bounded, TTL-evicting cache so client retries are answered
+ *   without touching the database.
+ * - Concurrent requests for a key that is still being written share the single in-flight
+ *   computation instead of each opening a transaction (single-flight).
+ * - Only committed results are cached: a failed computation is propagated to every waiter
+ *   and nothing is remembered, so the next retry runs again.
+ *
+ * Hit, miss and coalesce counts are published as {@code idempotency.cache.requests{result=...}}.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final Cache<Key, UUID> completed;
+    private final ConcurrentHashMap<Key, CompletableFuture<UUID>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public IdempotencyCache(@Value("${app.idempotency.cache.max-size:100000}") long maxSize,
+                            @Value("${app.idempotency.cache.ttl-seconds:3600}") long ttlSeconds,
+                            MeterRegistry registry) {
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+
+        FunctionCounter.builder("idempotency.cache.requests", hits, LongAdder::sum).tag("result", "hit").register(registry);
+        FunctionCounter.builder("idempotency.cache.requests", misses, LongAdder::sum).tag("result", "miss").register(registry);
+        FunctionCounter.builder("idempotency.cache.requests", coalesced, LongAdder::sum).tag("result", "coalesced").register(registry);
+        Gauge.builder("idempotency.cache.in-flight", inFlight, ConcurrentHashMap::size).register(registry);
+    }
+
+    /**
+     * Returns the response id for the key, computing it at most once per JVM at a time.
+     *
+     * @param tenantId The tenant owning the key.
+     * @param idemKey The client-supplied Idempotency-Key.
+     * @param loader Performs the (committed) submission when the key is not cached; it must not
+     *               return null.
+     * @return The response id recorded for the key.
+     */
+    public UUID resolve(UUID tenantId, String idemKey, Supplier<UUID> loader) {
+        Key key = new Key(tenantId, idemKey);
+        UUID cached = completed.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        CompletableFuture<UUID> mine = new CompletableFuture<>();
+        CompletableFuture<UUID> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        misses.increment();
+        try {
+            // The previous owner may have finished between the cache check and our claim.
+            UUID id = completed.getIfPresent(key);
+            if (id == null) {
+                id = loader.get();
+                completed.put(key, id);
+            }
+            mine.complete(id);
+            return id;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static UUID await(CompletableFuture<UUID> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    private record Key(UUID tenantId, String idemKey) {}
+}
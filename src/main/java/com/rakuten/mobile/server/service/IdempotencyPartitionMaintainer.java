@@ -0,0 +1,149 @@
+package com.rakuten.mobile.server.service;
+
+import com.rakuten.mobile.server.repo.IdempotencyClaimRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Keeps the daily partitions of {@code idempotency_keys} in shape.
+ *
+ * - Creates the partitions for today and the next few days ahead of time, with the
+ *   {@code create_idempotency_day_partition} SQL function (see V19), which also moves rows of the
+ *   new day out of {@code idempotency_keys_default}.
+ * - Drops (or only detaches, for archiving) whole partitions older than the retention window
+ *   instead of deleting expired keys row by row.
+ * - Purges expired rows that fell into the default partition.
+ *
+ * Runs at startup and then on a cron schedule. Each day is created in its own transaction and
+ * expiry runs in another, so a step that fails does not hold back the others. A transaction-scoped
+ * advisory lock makes sure only one node runs each step at a time.
+ */
+@Slf4j
+@Component
+public class IdempotencyPartitionMaintainer {
+
+    private static final String PARENT = "idempotency_keys";
+    private static final String PREFIX = PARENT + "_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final IdempotencyClaimRepository claims;
+    private final int daysAhead;
+    private final boolean detachOnly;
+
+    public IdempotencyPartitionMaintainer(JdbcTemplate jdbc,
+                                          PlatformTransactionManager txManager,
+                                          IdempotencyClaimRepository claims,
+                                          @Value("${app.idempotency.partitions-ahead:2}") int daysAhead,
+                                          @Value("${app.idempotency.expired-partitions:drop}") String expiredAction) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.claims = claims;
+        this.daysAhead = daysAhead;
+        this.detachOnly = "detach".equalsIgnoreCase(expiredAction);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    /**
+     * Creates upcoming partitions and expires old ones.
+     */
+    @Scheduled(cron = "${app.idempotency.maintenance-cron:0 5 0 * * *}", zone = "UTC")
+    public void maintain() {
+        LocalDate today = claims.today();
+        for (int i = 0; i <= daysAhead; i++) {
+            createDay(today.plusDays(i));
+        }
+        expire(claims.liveFrom());
+    }
+
+    /**
+     * Creates one day's partition unless another node holds the maintenance lock.
+     *
+     * @param day The day (UTC).
+     */
+    public void createDay(LocalDate day) {
+        try {
+            tx.executeWithoutResult(status -> {
+                if (!locked()) return;
+                jdbc.query("SELECT public.create_idempotency_day_partition(?)", (RowCallbackHandler) rs -> {}, day);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Creating the idempotency partition for {} failed", day, e);
+        }
+    }
+
+    /**
+     * Drops or detaches the partitions of days before {@code liveFrom} and purges expired rows from
+     * the default partition, unless another node holds the maintenance lock.
+     *
+     * @param liveFrom The first day whose keys are still live.
+     */
+    public void expire(LocalDate liveFrom) {
+        try {
+            tx.executeWithoutResult(status -> {
+                if (locked()) expirePartitions(liveFrom);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Expiring idempotency partitions failed", e);
+        }
+    }
+
+    private boolean locked() {
+        return Boolean.TRUE.equals(jdbc.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(hashtext('idempotency_keys_maintenance'))", Boolean.class));
+    }
+
+    private void expirePartitions(LocalDate liveFrom) {
+        List<String> partitions = jdbc.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = ?
+                """, String.class, PARENT);
+
+        for (String name : partitions) {
+            LocalDate day = dayOf(name);
+            if (day == null || !day.isBefore(liveFrom)) continue;
+
+            jdbc.execute("ALTER TABLE public." + PARENT + " DETACH PARTITION public." + name);
+            if (!detachOnly) {
+                jdbc.execute("DROP TABLE public." + name);
+            }
+            log.info("Expired idempotency partition {} ({})", name, detachOnly ? "detached" : "dropped");
+        }
+
+        int purged = jdbc.update("DELETE FROM public." + PARENT + "_default WHERE created_day < ?", liveFrom);
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys from the default partition", purged);
+        }
+    }
+
+    /** Parses the day out of a partition name; null for partitions not created by this job. */
+    private static LocalDate dayOf(String partition) {
+        if (!partition.startsWith(PREFIX)) return null;
+        try {
+            return LocalDate.parse(partition.substring(PREFIX.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
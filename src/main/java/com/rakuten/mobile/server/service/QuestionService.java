@@ -1,29 +1,60 @@
 package com.rakuten.mobile.server.service;
 
+import com.rakuten.mobile.server.domain.Answer;
 import com.rakuten.mobile.server.domain.OptionChoice;
 import com.rakuten.mobile.server.domain.Question;
 import com.rakuten.mobile.server.domain.QuestionType;
+import com.rakuten.mobile.server.events.SurveyDefinitionChangedEvent;
+import com.rakuten.mobile.server.repo.AnswerRepository;
 import com.rakuten.mobile.server.repo.OptionChoiceRepository;
 import com.rakuten.mobile.server.repo.QuestionRepository;
+import com.rakuten.mobile.server.repo.SurveyRepository;
 import com.rakuten.mobile.server.tenancy.TenantContext;
 import com.rakuten.mobile.server.web.dto.question.CreateQuestionReq;
 import com.rakuten.mobile.server.web.dto.question.ReplaceQuestionsReq;
 import com.rakuten.mobile.server.web.dto.question.UpdateQuestionReq;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Service class to manage the questions of a survey and their options.
+ *
+ * Writes are set-based: existing rows are removed with bulk DELETE statements and new rows are
+ * persisted (not merged, as their ids are assigned up front) so Hibernate sends them as JDBC
+ * batches at flush time (see {@code hibernate.jdbc.batch_size}).
+ */
 @Service
 public class QuestionService {
 
     private final QuestionRepository qRepo;
     private final OptionChoiceRepository oRepo;
-
-    public QuestionService(QuestionRepository qRepo, OptionChoiceRepository oRepo) {
+    private final SurveyRepository sRepo;
+    private final AnswerRepository aRepo;
+    private final EntityManager em;
+    private final ApplicationEventPublisher events;
+
+    public QuestionService(QuestionRepository qRepo,
+                           OptionChoiceRepository oRepo,
+                           SurveyRepository sRepo,
+                           AnswerRepository aRepo,
+                           EntityManager em,
+                           ApplicationEventPublisher events) {
         this.qRepo = qRepo;
         this.oRepo = oRepo;
+        this.sRepo = sRepo;
+        this.aRepo = aRepo;
+        this.em = em;
+        this.events = events;
     }
 
     @Transactional(readOnly = true)
@@ -31,6 +62,18 @@ public class QuestionService {
         return qRepo.findBySurveyIdOrderByPositionAsc(surveyId);
     }
 
+    /**
+     * Answers given to one question, read from the normalized {@code answers} projection.
+     * A response is queued for the projector when its transaction commits and appears here once
+     * a projector batch has taken it off {@code answers_projection_queue}, so this trails
+     * submissions by up to one projector interval plus any queue backlog
+     * ({@code answers.projector.lag}).
+     */
+    @Transactional(readOnly = true)
+    public Page<Answer> answers(UUID questionId, Pageable pageable) {
+        return aRepo.findByQuestionId(questionId, pageable);
+    }
+
     @Transactional
     public Question create(UUID surveyId, CreateQuestionReq req) {
         int nextPos = Math.toIntExact(qRepo.countBySurveyId(surveyId)) + 1;
@@ -45,9 +88,10 @@ public class QuestionService {
         q.setText(req.text());         // <— set text
         q.setRequired(req.required());
         q.setPosition(nextPos);
-        qRepo.save(q);
+        em.persist(q);
 
         createOrReplaceOptions(q, req.options());
+        definitionChanged(surveyId);
         return q;
     }
 
@@ -61,14 +105,15 @@ public class QuestionService {
 
         if (q.getType() == QuestionType.SINGLE_CHOICE || q.getType() == QuestionType.MULTI_CHOICE) {
             if (req.options() != null) {
-                deleteAllOptions(q.getId());
+                deleteAllOptions(q);
                 createOrReplaceOptions(q, req.options());
             }
         } else {
             // non-choice types should not have options
-            deleteAllOptions(q.getId());
+            deleteAllOptions(q);
         }
 
+        definitionChanged(q.getSurveyId());
         return q;
     }
 
@@ -78,21 +123,21 @@ public class QuestionService {
         if (!q.getSurveyId().equals(surveyId)) {
             throw new IllegalArgumentException("Question does not belong to survey");
         }
-        deleteAllOptions(questionId);
-        qRepo.deleteById(questionId);
-        resequencePositions(surveyId);
+        deleteAllOptions(q);
+        qRepo.deleteOne(q.getTenantId(), questionId);
+        qRepo.resequence(q.getTenantId(), surveyId);
+        definitionChanged(surveyId);
     }
 
     @Transactional
     public List<Question> replaceAll(UUID surveyId, ReplaceQuestionsReq req) {
-        // remove existing
-        qRepo.findBySurveyIdOrderByPositionAsc(surveyId)
-                .forEach(q -> {
-                    deleteAllOptions(q.getId());
-                    qRepo.deleteById(q.getId());
-                });
-
         UUID tenant = UUID.fromString(TenantContext.required());
+
+        // remove existing: two set-based statements regardless of survey size
+        oRepo.deleteAllBySurvey(tenant, surveyId);
+        qRepo.deleteAllBySurvey(tenant, surveyId);
+
+        List<Question> created = new ArrayList<>(req.questions().size());
         int pos = 1;
         for (CreateQuestionReq cq : req.questions()) {
             Question q = new Question();
@@ -103,10 +148,12 @@ public class QuestionService {
             q.setText(cq.text());
             q.setRequired(cq.required());
             q.setPosition(pos++);
-            qRepo.save(q);
+            em.persist(q);
             createOrReplaceOptions(q, cq.options());
+            created.add(q);
         }
-        return qRepo.findBySurveyIdOrderByPositionAsc(surveyId);
+        definitionChanged(surveyId);
+        return created;
     }
 
     @Transactional(readOnly = true)
@@ -114,8 +161,32 @@ public class QuestionService {
         return oRepo.findByQuestionIdOrderByPositionAsc(questionId);
     }
 
+    /**
+     * Loads the options of several questions with a single IN query instead of one query per question.
+     *
+     * @param qs The questions whose options are needed.
+     * @return The options of each question, ordered by position; questions without options map to an empty list.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, List<OptionChoice>> optionsByQuestion(List<Question> qs) {
+        if (qs.isEmpty()) return Map.of();
+        List<UUID> ids = qs.stream().map(Question::getId).toList();
+        Map<UUID, List<OptionChoice>> byQuestion = new HashMap<>();
+        for (OptionChoice o : oRepo.findByQuestionIdInOrderByPositionAsc(ids)) {
+            byQuestion.computeIfAbsent(o.getQuestionId(), k -> new ArrayList<>()).add(o);
+        }
+        return byQuestion;
+    }
+
     /* helpers */
 
+    private void definitionChanged(UUID surveyId) {
+        UUID tenant = UUID.fromString(TenantContext.required());
+        sRepo.bumpDefinitionVersion(tenant, surveyId);
+        // Drops cached validation plans and rendered definitions once the change commits.
+        events.publishEvent(new SurveyDefinitionChangedEvent(tenant, surveyId));
+    }
+
     private void createOrReplaceOptions(Question q, List<com.rakuten.mobile.server.web.dto.question.CreateQuestionReq.OptionReq> incoming) {
         if (q.getType() != QuestionType.SINGLE_CHOICE && q.getType() != QuestionType.MULTI_CHOICE) return;
         if (incoming == null) return;
@@ -130,23 +201,11 @@ public class QuestionService {
             oc.setLabel(o.label());
             oc.setValue(o.value());
             oc.setPosition(i++);
-            oRepo.save(oc);
+            em.persist(oc);
         }
     }
 
-    private void deleteAllOptions(UUID questionId) {
-        oRepo.findByQuestionIdOrderByPositionAsc(questionId)
-                .forEach(o -> oRepo.deleteById(o.getId()));
-    }
-
-    private void resequencePositions(UUID surveyId) {
-        List<Question> qs = qRepo.findBySurveyIdOrderByPositionAsc(surveyId);
-        int i = 1;
-        for (Question q : qs) {
-            if (q.getPosition() != i) {
-                q.setPosition(i);
-            }
-            i++;
-        }
+    private void deleteAllOptions(Question q) {
+        oRepo.deleteAllByQuestion(q.getTenantId(), q.getId());
     }
 }
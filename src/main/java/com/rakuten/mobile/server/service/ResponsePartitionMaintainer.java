@@ -0,0 +1,76 @@
+package com.rakuten.mobile.server.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Creates the monthly partitions of {@code responses} (and their tenant hash subpartitions)
+ * ahead of time, so new submissions never land in the default partition.
+ *
+ * Runs at startup and then on a cron schedule. The partition layout lives in the
+ * {@code create_responses_month_partition} SQL function (see V10 and V16), which also moves rows
+ * of the new month out of {@code responses_default}. Each month is created in its own
+ * transaction, under a transaction-scoped advisory lock so only one node runs the DDL at a time;
+ * a month that fails does not hold back the others.
+ */
+@Slf4j
+@Component
+public class ResponsePartitionMaintainer {
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int monthsAhead;
+
+    public ResponsePartitionMaintainer(JdbcTemplate jdbc,
+                                       PlatformTransactionManager txManager,
+                                       @Value("${app.responses.partitions-ahead-months:3}") int monthsAhead) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    /**
+     * Creates the partitions for the current month and the next few months.
+     */
+    @Scheduled(cron = "${app.responses.partition-cron:0 10 0 * * *}", zone = "UTC")
+    public void maintain() {
+        LocalDate month = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        for (int i = 0; i <= monthsAhead; i++) {
+            createMonth(month.plusMonths(i));
+        }
+    }
+
+    /**
+     * Creates one month's partitions unless another node holds the maintenance lock.
+     *
+     * @param month The first day of the month (UTC).
+     */
+    public void createMonth(LocalDate month) {
+        try {
+            tx.executeWithoutResult(status -> {
+                Boolean locked = jdbc.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(hashtext('responses_partition_maintenance'))", Boolean.class);
+                if (!Boolean.TRUE.equals(locked)) return;
+                jdbc.query("SELECT public.create_responses_month_partition(?)", (RowCallbackHandler) rs -> {}, month);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Creating the responses partition for {} failed", month, e);
+        }
+    }
+}
@@ -1,18 +1,30 @@
 package com.rakuten.mobile.server.service;
 
-import com.rakuten.mobile.server.domain.IdempotencyKey;
 import com.rakuten.mobile.server.domain.Response;
-import com.rakuten.mobile.server.repo.IdempotencyKeyRepository;
+import com.rakuten.mobile.server.domain.ResponseView;
+import com.rakuten.mobile.server.events.ResponseSubmittedEvent;
+import com.rakuten.mobile.server.repo.EncodedAnswers;
+import com.rakuten.mobile.server.repo.IdempotencyClaimRepository;
+import com.rakuten.mobile.server.repo.ResponseExportRow;
 import com.rakuten.mobile.server.repo.ResponseRepository;
+import com.rakuten.mobile.server.repo.ResponseViewRepository;
+import com.rakuten.mobile.server.tenancy.TenantContext;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service class to handle the submission and listing of responses to surveys.
@@ -22,59 +34,134 @@ import java.util.UUID;
 public class ResponseService {
 
     private final ResponseRepository responseRepo;
-    private final IdempotencyKeyRepository idemRepo;
+    private final ResponseViewRepository viewRepo;
+    private final IdempotencyClaimRepository claims;
+    private final IdempotencyCache idemCache;
+    private final SubmissionValidator validator;
+    private final AnswerEncoder encoder;
+    private final TransactionTemplate tx;
+    private final ApplicationEventPublisher events;
 
     public ResponseService(ResponseRepository responseRepo,
-                           IdempotencyKeyRepository idemRepo) {
+                           ResponseViewRepository viewRepo,
+                           IdempotencyClaimRepository claims,
+                           IdempotencyCache idemCache,
+                           SubmissionValidator validator,
+                           AnswerEncoder encoder,
+                           PlatformTransactionManager txManager,
+                           ApplicationEventPublisher events) {
         this.responseRepo = responseRepo;
-        this.idemRepo = idemRepo;
+        this.viewRepo = viewRepo;
+        this.claims = claims;
+        this.idemCache = idemCache;
+        this.validator = validator;
+        this.encoder = encoder;
+        this.tx = new TransactionTemplate(txManager);
+        this.events = events;
     }
 
     /**
-     * Lists all responses for a specific survey, with pagination support.
+     * Lists the responses of a survey, optionally only those whose answers match a filter,
+     * with pagination support.
      *
      * @param surveyId The ID of the survey to list responses for.
+     * @param filter The answer filter, or null to list every response.
      * @param pageable Pagination information.
-     * @return A page of responses for the specified survey.
+     * @return A page of matching responses.
      */
-    public Page<Response> list(UUID surveyId, Pageable pageable) {
-        return responseRepo.findBySurveyId(surveyId, pageable);
+    @Transactional(readOnly = true)
+    public Page<ResponseView> list(UUID surveyId, AnswerFilter filter, Pageable pageable) {
+        return filter == null
+                ? viewRepo.findBySurveyId(surveyId, pageable)
+                : viewRepo.findBySurveyIdMatching(surveyId, filter.jsonPath(), pageable);
+    }
+
+    /**
+     * Lists responses for a survey with keyset pagination, newest first.
+     * Unlike {@link #list(UUID, AnswerFilter, Pageable)} this never runs OFFSET scans or a count query.
+     *
+     * @param surveyId The ID of the survey to list responses for.
+     * @param afterAt Submission time of the last row of the previous page, or null for the first page.
+     * @param afterId ID of the last row of the previous page, or null for the first page.
+     * @param limit Maximum number of rows to return.
+     * @return Up to {@code limit} responses strictly after the given position.
+     */
+    @Transactional(readOnly = true)
+    public List<ResponseView> listSeek(UUID surveyId, Instant afterAt, UUID afterId, int limit) {
+        UUID tenantId = UUID.fromString(TenantContext.required());
+        return (afterAt == null)
+                ? viewRepo.findFirstSeekPage(tenantId, surveyId, Limit.of(limit))
+                : viewRepo.findSeekPageAfter(tenantId, surveyId, afterAt, afterId, Limit.of(limit));
+    }
+
+    /**
+     * Counts the responses of a survey.
+     *
+     * @param surveyId The ID of the survey.
+     * @return The number of responses.
+     */
+    @Transactional(readOnly = true)
+    public long count(UUID surveyId) {
+        return responseRepo.countBySurveyId(surveyId);
     }
 
     /**
      * Validates and processes the answers submitted by a respondent for a survey.
      *
      * - Ensures the survey is active before submission.
-     * - Validates the answers against the survey schema (required questions).
+     * - Validates the answers against the survey schema (required questions, question types and
+     *   allowed options) using a cached {@link SurveyValidationPlan}, without extra queries.
      * - Saves the response and the answers to the database.
      *
+     * Idempotency is enforced with an atomic claim on (tenantId, idempotencyKey): a replayed key
+     * costs a single statement, and concurrent retries of the same key serialize on the unique
+     * index so exactly one of them writes a response. Completed keys are served from
+     * {@link IdempotencyCache} without a transaction.
+     *
      * @param surveyId The ID of the survey.
      * @param tenantId The ID of the tenancy.
      * @param answersJson The JSON of answers provided by the respondent.
-     * @param idempotencyKey The Key of tenancy
+     * @param idempotencyKey The Key of tenancy; null disables de-duplication.
      * @return The ID of the saved response.
-     * @throws IllegalArgumentException If the survey is not found or there are missing required answers.
-     * @throws IllegalStateException If the survey is not active.
+     * @throws IllegalArgumentException If the survey is not found.
+     * @throws IllegalStateException If the survey is not active or an answer is missing or invalid.
      */
-    @Transactional
     public UUID submit(UUID surveyId,
                        UUID tenantId,
                        UUID respondentId,
                        Map<String, Object> answersJson,
                        String idempotencyKey) {
 
-        // 1) Check existing idempotency record by (tenantId, idemKey)
-        Optional<IdempotencyKey> existing = idemRepo.findByTenantIdAndIdemKey(tenantId, idempotencyKey);
-        if (existing.isPresent()) {
-            UUID already = existing.get().getResponseId();
+        if (idempotencyKey == null) {
+            validator.validate(tenantId, surveyId, answersJson);
+            EncodedAnswers encoded = encoder.encode(tenantId, surveyId, answersJson);
+            return tx.execute(status -> write(surveyId, tenantId, respondentId, answersJson, encoded, null));
+        }
+        // Retries answered from memory; concurrent duplicates share one transaction.
+        return idemCache.resolve(tenantId, idempotencyKey,
+                () -> {
+                    validator.validate(tenantId, surveyId, answersJson);
+                    EncodedAnswers encoded = encoder.encode(tenantId, surveyId, answersJson);
+                    return tx.execute(status -> write(surveyId, tenantId, respondentId, answersJson, encoded, idempotencyKey));
+                });
+    }
+
+    private UUID write(UUID surveyId,
+                       UUID tenantId,
+                       UUID respondentId,
+                       Map<String, Object> answersJson,
+                       EncodedAnswers encoded,
+                       String idempotencyKey) {
+
+        // 1) Claim the key; an existing response id means this is a replay.
+        if (idempotencyKey != null) {
+            UUID already = claims.claim(tenantId, idempotencyKey);
             if (already != null) {
-                // Return the same response id — idempotent success
                 return already;
             }
-            // Exists but responseId is null (prior failure/in-flight) — proceed to write response and update this row.
         }
 
-        // 2) Create and persist the Response (no findById usage)
+        // 2) Insert the response and, when keyed, point the claim at it in the same statement.
         Response r = new Response();
         r.setId(UUID.randomUUID());
         r.setTenantId(tenantId);
@@ -82,28 +169,44 @@ public class ResponseService {
         r.setSurveyId(surveyId);
         r.setSubmittedAt(Instant.now());
         r.setAnswersJson(answersJson);
+        r.setSchemaVersion(encoded.schemaVersion());
 
-        r = responseRepo.save(r);
+        long tallyGeneration = idempotencyKey != null
+                ? claims.insertResponseAndComplete(r, encoded, idempotencyKey)
+                : claims.insertResponse(r, encoded);
+        // Listeners (e.g. result tallies) run after commit, so replays and rollbacks are never counted.
+        events.publishEvent(new ResponseSubmittedEvent(tenantId, surveyId, r.getId(), answersJson, tallyGeneration));
+        return r.getId();
+    }
 
-        // 3) Upsert idempotency record (no tuple IN, no reserved "key" column)
-        IdempotencyKey ik = existing.orElseGet(IdempotencyKey::new);
-        if (ik.getId() == null) {
-            ik.setId(UUID.randomUUID());
-            ik.setCreatedAtEpoch(System.currentTimeMillis());
+    /**
+     * Streams the (matching) responses of a survey to the given action, one row at a time.
+     * The rows come from a forward-only cursor inside a read-only transaction, so heap use
+     * does not depend on the number of responses.
+     *
+     * @param surveyId The ID of the survey to export.
+     * @param filter The answer filter, or null to export every response.
+     * @param action Callback invoked for each exported row.
+     */
+    @Transactional(readOnly = true)
+    public void forEachExportRow(UUID surveyId, AnswerFilter filter, Consumer<ResponseExportRow> action) {
+        try (Stream<ResponseExportRow> rows = filter == null
+                ? viewRepo.streamExportRows(surveyId)
+                : viewRepo.streamExportRowsMatching(surveyId, filter.jsonPath())) {
+            rows.forEach(action);
         }
-        ik.setTenantId(tenantId);
-        ik.setIdemKey(idempotencyKey);
-        ik.setResponseId(r.getId());
-        idemRepo.save(ik);
-
-        return r.getId();
     }
 
     /**
-     * Retrieves a response by its ID.
+     * Retrieves a response of the current tenant by its ID.
      *
+     * @param surveyId The ID of the survey the response belongs to.
      * @param id The ID of the response to retrieve.
      * @return An Optional containing the response if found, or empty if not found.
      */
-    public Optional<Response> get(UUID id) { return responseRepo.findById(id); }
+    @Transactional(readOnly = true)
+    public Optional<ResponseView> get(UUID surveyId, UUID id) {
+        UUID tenantId = UUID.fromString(TenantContext.required());
+        return viewRepo.findOne(tenantId, surveyId, id);
+    }
 }
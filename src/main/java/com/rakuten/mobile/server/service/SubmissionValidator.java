@@ -0,0 +1,94 @@
+package com.rakuten.mobile.server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rakuten.mobile.server.domain.Question;
+import com.rakuten.mobile.server.domain.Survey;
+import com.rakuten.mobile.server.events.SurveyDefinitionChangedEvent;
+import com.rakuten.mobile.server.repo.OptionChoiceRepository;
+import com.rakuten.mobile.server.repo.QuestionRepository;
+import com.rakuten.mobile.server.repo.SurveyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Validates submissions against a cached {@link SurveyValidationPlan} per (tenant, survey).
+ *
+ * A plan is compiled on first use with three queries (survey, questions, options) and then
+ * reused, so validation adds no database round trips on the hot path. Plans are dropped when
+ * {@link SurveyDefinitionChangedEvent} commits on this node; the TTL bounds staleness on other nodes.
+ */
+@Component
+public class SubmissionValidator {
+
+    private final SurveyRepository surveys;
+    private final QuestionRepository questions;
+    private final OptionChoiceRepository options;
+    private final Cache<Key, SurveyValidationPlan> plans;
+
+    public SubmissionValidator(SurveyRepository surveys,
+                               QuestionRepository questions,
+                               OptionChoiceRepository options,
+                               @Value("${app.validation.cache.max-size:10000}") long maxSize,
+                               @Value("${app.validation.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.surveys = surveys;
+        this.questions = questions;
+        this.options = options;
+        this.plans = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Validates the answers of a submission.
+     *
+     * @param tenantId The tenant submitting.
+     * @param surveyId The ID of the survey.
+     * @param answers Answers keyed by question ID.
+     * @throws IllegalArgumentException If the survey is not found.
+     * @throws IllegalStateException If the survey is not active or an answer is missing or invalid.
+     */
+    public void validate(UUID tenantId, UUID surveyId, Map<String, Object> answers) {
+        plan(tenantId, surveyId).validate(answers);
+    }
+
+    /**
+     * Checks that the survey exists for the tenant, compiling its plan if needed, so callers can
+     * fail before they start consuming input.
+     *
+     * @throws IllegalArgumentException If the survey is not found.
+     */
+    public void requireSurvey(UUID tenantId, UUID surveyId) {
+        plan(tenantId, surveyId);
+    }
+
+    private SurveyValidationPlan plan(UUID tenantId, UUID surveyId) {
+        return plans.get(new Key(tenantId, surveyId), this::compile);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDefinitionChanged(SurveyDefinitionChangedEvent e) {
+        plans.invalidate(new Key(e.tenantId(), e.surveyId()));
+    }
+
+    private SurveyValidationPlan compile(Key key) {
+        UUID surveyId = key.surveyId();
+        // findById is not covered by the tenant filter, so the owner is checked here
+        Survey survey = surveys.findById(surveyId)
+                .filter(s -> key.tenantId().equals(s.getTenantId()))
+                .orElseThrow(() -> new IllegalArgumentException("Survey not found"));
+        List<Question> qs = questions.findBySurveyIdOrderByPositionAsc(surveyId);
+        List<UUID> ids = qs.stream().map(Question::getId).toList();
+        return SurveyValidationPlan.compile(survey, qs,
+                ids.isEmpty() ? List.of() : options.findByQuestionIdInOrderByPositionAsc(ids));
+    }
+
+    private record Key(UUID tenantId, UUID surveyId) {}
+}
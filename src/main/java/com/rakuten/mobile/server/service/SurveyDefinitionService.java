@@ -0,0 +1,118 @@
+package com.rakuten.mobile.server.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rakuten.mobile.server.domain.OptionChoice;
+import com.rakuten.mobile.server.domain.Question;
+import com.rakuten.mobile.server.domain.Survey;
+import com.rakuten.mobile.server.events.SurveyDefinitionChangedEvent;
+import com.rakuten.mobile.server.repo.SurveyRepository;
+import com.rakuten.mobile.server.tenancy.TenantContext;
+import com.rakuten.mobile.server.web.dto.SurveyDefinitionRes;
+import com.rakuten.mobile.server.web.dto.SurveyRes;
+import com.rakuten.mobile.server.web.dto.question.QuestionRes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves survey definitions (survey, questions and options) as pre-rendered byte buffers.
+ *
+ * A definition is loaded with three queries, serialized once, gzip-compressed once and cached
+ * per (tenant, survey) together with its version. Requests for a cached definition do no
+ * database work and no serialization. Cached entries are dropped when a
+ * {@link SurveyDefinitionChangedEvent} commits; the TTL bounds staleness on other nodes.
+ */
+@Service
+public class SurveyDefinitionService {
+
+    private final SurveyRepository surveys;
+    private final QuestionService questions;
+    private final ObjectMapper om;
+    private final Cache<Key, Rendered> rendered;
+
+    public SurveyDefinitionService(SurveyRepository surveys,
+                                   QuestionService questions,
+                                   ObjectMapper om,
+                                   @Value("${app.definition.cache.max-size:10000}") long maxSize,
+                                   @Value("${app.definition.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.surveys = surveys;
+        this.questions = questions;
+        this.om = om;
+        this.rendered = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Returns the rendered definition of a survey, loading it on a cache miss.
+     *
+     * @param surveyId The ID of the survey.
+     * @return The rendered definition.
+     * @throws IllegalArgumentException If the survey is not found.
+     */
+    public Rendered get(UUID surveyId) {
+        UUID tenantId = UUID.fromString(TenantContext.required());
+        return rendered.get(new Key(tenantId, surveyId), this::render);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDefinitionChanged(SurveyDefinitionChangedEvent e) {
+        rendered.invalidate(new Key(e.tenantId(), e.surveyId()));
+    }
+
+    private Rendered render(Key key) {
+        UUID surveyId = key.surveyId();
+        // findById is not covered by the tenant filter, so the owner is checked here
+        Survey s = surveys.findById(surveyId)
+                .filter(found -> key.tenantId().equals(found.getTenantId()))
+                .orElseThrow(() -> new IllegalArgumentException("Survey not found"));
+        List<Question> qs = questions.list(surveyId);
+        Map<UUID, List<OptionChoice>> opts = questions.optionsByQuestion(qs);
+        SurveyDefinitionRes def = new SurveyDefinitionRes(s.getDefinitionVersion(), SurveyRes.from(s),
+                qs.stream().map(q -> QuestionRes.from(q, opts.getOrDefault(q.getId(), List.of()))).toList());
+
+        byte[] json;
+        try {
+            json = om.writeValueAsBytes(def);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Survey definition is not serializable", e);
+        }
+        String etag = "W/\"" + surveyId + "-" + s.getDefinitionVersion() + "\"";
+        return new Rendered(s.getDefinitionVersion(), etag, json, gzip(json));
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A pre-rendered definition.
+     *
+     * @param version The survey's definition version.
+     * @param etag Weak entity tag derived from survey id and version.
+     * @param json The JSON document.
+     * @param gzip The same document, gzip-compressed.
+     */
+    public record Rendered(long version, String etag, byte[] json, byte[] gzip) {}
+
+    private record Key(UUID tenantId, UUID surveyId) {}
+}
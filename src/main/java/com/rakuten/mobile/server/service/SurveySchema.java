@@ -0,0 +1,118 @@
+package com.rakuten.mobile.server.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakuten.mobile.server.domain.QuestionType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, compiled form of a {@code survey_schemas} snapshot, used to encode answers into the
+ * compact positional format (see V13 for the format and the SQL decoder).
+ *
+ * Encoding is lossless or not done at all: answers that the snapshot cannot represent exactly
+ * (unknown questions, unknown options, null values) make {@link #encode(Map)} return null, and
+ * the caller keeps the keyed format.
+ */
+public final class SurveySchema {
+
+    private static final int MAX_BITSET_OPTIONS = 63;
+
+    private final long version;
+    private final Map<String, Integer> positions;   // question id -> index in the encoded array
+    private final QuestionType[] types;
+    private final List<Map<String, Integer>> ordinals; // option value -> ordinal, per position
+    private final int[] optionCounts;
+
+    private SurveySchema(long version, Map<String, Integer> positions, QuestionType[] types,
+                         List<Map<String, Integer>> ordinals, int[] optionCounts) {
+        this.version = version;
+        this.positions = positions;
+        this.types = types;
+        this.ordinals = ordinals;
+        this.optionCounts = optionCounts;
+    }
+
+    /**
+     * Compiles a snapshot.
+     *
+     * @param version The definition version of the snapshot.
+     * @param questionsJson {@code [{id, type, options:[value...]}]} in position order.
+     * @param om Mapper used to read the snapshot.
+     * @return The compiled schema.
+     */
+    public static SurveySchema compile(long version, String questionsJson, ObjectMapper om) {
+        JsonNode questions;
+        try {
+            questions = om.readTree(questionsJson);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable survey schema " + version, e);
+        }
+        Map<String, Integer> positions = new HashMap<>();
+        QuestionType[] types = new QuestionType[questions.size()];
+        List<Map<String, Integer>> ordinals = new ArrayList<>(questions.size());
+        int[] optionCounts = new int[questions.size()];
+        for (int i = 0; i < questions.size(); i++) {
+            JsonNode q = questions.get(i);
+            positions.put(q.path("id").asText(), i);
+            types[i] = QuestionType.valueOf(q.path("type").asText());
+            Map<String, Integer> opts = new HashMap<>();
+            JsonNode options = q.path("options");
+            for (int o = 0; o < options.size(); o++) {
+                opts.putIfAbsent(options.get(o).asText(), o);
+            }
+            ordinals.add(Map.copyOf(opts));
+            optionCounts[i] = options.size();
+        }
+        return new SurveySchema(version, Map.copyOf(positions), types, List.copyOf(ordinals), optionCounts);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Encodes answers keyed by question ID into the positional form.
+     *
+     * @param answers Answers keyed by question ID.
+     * @return The encoded array, or null if the answers cannot be represented exactly.
+     */
+    public List<Object> encode(Map<String, Object> answers) {
+        Object[] slots = new Object[types.length];
+        int last = -1;
+        for (Map.Entry<String, Object> a : answers.entrySet()) {
+            Integer pos = positions.get(a.getKey());
+            if (pos == null || a.getValue() == null) return null;
+            Object slot = switch (types[pos]) {
+                case SINGLE_CHOICE -> a.getValue() instanceof String s ? ordinals.get(pos).get(s) : null;
+                case MULTI_CHOICE -> a.getValue() instanceof List<?> chosen
+                        ? encodeChoices(ordinals.get(pos), optionCounts[pos], chosen) : null;
+                case TEXT, NUMBER -> a.getValue();
+            };
+            if (slot == null) return null;
+            slots[pos] = slot;
+            last = Math.max(last, pos);
+        }
+        return Arrays.asList(slots).subList(0, last + 1);
+    }
+
+    /** A bitset when the choices are distinct and in option order (the usual case), else their ordinals. */
+    private static Object encodeChoices(Map<String, Integer> ordinals, int optionCount, List<?> chosen) {
+        List<Integer> picked = new ArrayList<>(chosen.size());
+        boolean ascending = true;
+        for (Object c : chosen) {
+            Integer ordinal = c instanceof String s ? ordinals.get(s) : null;
+            if (ordinal == null) return null;
+            if (!picked.isEmpty() && ordinal <= picked.get(picked.size() - 1)) ascending = false;
+            picked.add(ordinal);
+        }
+        if (!ascending || optionCount > MAX_BITSET_OPTIONS) return picked;
+        long bits = 0;
+        for (int ordinal : picked) bits |= 1L << ordinal;
+        return bits;
+    }
+}
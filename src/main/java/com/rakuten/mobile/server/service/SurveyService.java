@@ -1,6 +1,7 @@
 package com.rakuten.mobile.server.service;
 
 import com.rakuten.mobile.server.domain.Survey;
+import com.rakuten.mobile.server.events.SurveyDefinitionChangedEvent;
 import com.rakuten.mobile.server.events.SurveyPublishedEvent;
 import com.rakuten.mobile.server.repo.SurveyRepository;
 import com.rakuten.mobile.server.tenancy.TenantContext;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -47,7 +49,10 @@ public class SurveyService {
         if (req.status() != null) s.setStatus(req.status()); else s.setStatus("DRAFT");
         s.setCreatedAt(Instant.now());
         s.setUpdatedAt(Instant.now());
-        return repo.save(s);
+        Survey saved = repo.save(s);
+        // Marks the tenant's write, so reading the new survey right away does not go to a lagging replica
+        events.publishEvent(new SurveyDefinitionChangedEvent(saved.getTenantId(), saved.getId()));
+        return saved;
     }
 
     /**
@@ -58,18 +63,53 @@ public class SurveyService {
      * @param pageable Pagination information.
      * @return A page of surveys.
      */
+    @Transactional(readOnly = true)
     public Page<Survey> list(String status, Pageable pageable) {
         return (status == null || status.isBlank())
                 ? repo.findAll(pageable)
                 : repo.findByStatus(status, pageable);
     }
 
+    /**
+     * Retrieves surveys with keyset pagination, newest first, optionally filtered by status.
+     * Unlike {@link #list(String, Pageable)} this never runs OFFSET scans or a count query.
+     *
+     * @param status The status to filter by, or null/blank for all surveys.
+     * @param afterAt Creation time of the last row of the previous page, or null for the first page.
+     * @param afterId ID of the last row of the previous page, or null for the first page.
+     * @param limit Maximum number of rows to return.
+     * @return Up to {@code limit} surveys strictly after the given position.
+     */
+    @Transactional(readOnly = true)
+    public List<Survey> listSeek(String status, Instant afterAt, UUID afterId, int limit) {
+        UUID tenantId = UUID.fromString(TenantContext.required());
+        boolean all = status == null || status.isBlank();
+        if (afterAt == null) {
+            return all ? repo.findFirstSeekPage(tenantId, limit)
+                       : repo.findFirstSeekPageByStatus(tenantId, status, limit);
+        }
+        return all ? repo.findSeekPageAfter(tenantId, afterAt, afterId, limit)
+                   : repo.findSeekPageByStatusAfter(tenantId, status, afterAt, afterId, limit);
+    }
+
+    /**
+     * Counts surveys, optionally filtered by status.
+     *
+     * @param status The status to filter by, or null/blank for all surveys.
+     * @return The number of matching surveys.
+     */
+    @Transactional(readOnly = true)
+    public long count(String status) {
+        return (status == null || status.isBlank()) ? repo.count() : repo.countByStatus(status);
+    }
+
     /**
      * Retrieves a survey by its ID.
      *
      * @param id The ID of the survey to retrieve.
      * @return An Optional containing the survey if found, or empty if not found.
      */
+    @Transactional(readOnly = true)
     public Optional<Survey> get(UUID id) { return repo.findById(id); }
 
     /**
@@ -84,8 +124,10 @@ public class SurveyService {
     public Survey publish(UUID id) {
         Survey s = repo.findById(id).orElseThrow(() -> new IllegalArgumentException("Survey not found"));
         s.setStatus("ACTIVE");   // dirty checking
+        s.setDefinitionVersion(s.getDefinitionVersion() + 1);
         // Emit event outside the entity mutation so listeners can react asynchronously.
         events.publishEvent(new SurveyPublishedEvent(s.getTenantId(), s.getId(), s.getTitle()));
+        events.publishEvent(new SurveyDefinitionChangedEvent(s.getTenantId(), s.getId()));
         return s;
     }
 
@@ -105,6 +147,8 @@ public class SurveyService {
             throw new IllegalArgumentException("endsAt must be after startsAt");
         }
 
+        s.setDefinitionVersion(s.getDefinitionVersion() + 1);
+        events.publishEvent(new SurveyDefinitionChangedEvent(s.getTenantId(), s.getId()));
         return repo.save(s);
     }
 
@@ -114,7 +158,10 @@ public class SurveyService {
      * @param id The ID of the survey to delete.
      */
     @Transactional
-    public void delete(UUID id) { repo.deleteById(id); }
+    public void delete(UUID id) {
+        repo.deleteById(id);
+        events.publishEvent(new SurveyDefinitionChangedEvent(UUID.fromString(TenantContext.required()), id));
+    }
 
 
 }
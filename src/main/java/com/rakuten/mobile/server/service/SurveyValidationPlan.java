@@ -0,0 +1,126 @@
+package com.rakuten.mobile.server.service;
+
+import com.rakuten.mobile.server.domain.OptionChoice;
+import com.rakuten.mobile.server.domain.Question;
+import com.rakuten.mobile.server.domain.QuestionType;
+import com.rakuten.mobile.server.domain.Survey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable, pre-compiled validation rules for submissions to one survey.
+ *
+ * Built once from the survey, its questions and their options; validating an answers map
+ * afterwards is pure in-memory hash lookups, proportional to the number of answers and
+ * required questions.
+ */
+public final class SurveyValidationPlan {
+
+    private final boolean active;
+    private final Map<String, Rule> rules;   // question id (string form, as used in answers_json) -> rule
+    private final List<String> required;
+
+    private SurveyValidationPlan(boolean active, Map<String, Rule> rules, List<String> required) {
+        this.active = active;
+        this.rules = rules;
+        this.required = required;
+    }
+
+    /**
+     * Compiles the plan of a survey.
+     *
+     * @param survey The survey.
+     * @param questions Its questions.
+     * @param options The options of all its questions.
+     * @return The compiled plan.
+     */
+    public static SurveyValidationPlan compile(Survey survey, List<Question> questions, List<OptionChoice> options) {
+        Map<UUID, Set<String>> allowed = new HashMap<>();
+        for (OptionChoice o : options) {
+            // Options created without a value are answered with their label.
+            String v = o.getValue() != null ? o.getValue() : o.getLabel();
+            allowed.computeIfAbsent(o.getQuestionId(), k -> new HashSet<>()).add(v);
+        }
+
+        Map<String, Rule> rules = new HashMap<>();
+        List<String> required = new ArrayList<>();
+        for (Question q : questions) {
+            String id = q.getId().toString();
+            rules.put(id, new Rule(q.getType(), Set.copyOf(allowed.getOrDefault(q.getId(), Set.of()))));
+            if (q.isRequired()) required.add(id);
+        }
+        return new SurveyValidationPlan("ACTIVE".equals(survey.getStatus()), Map.copyOf(rules), List.copyOf(required));
+    }
+
+    /**
+     * Validates a submission against the plan.
+     *
+     * @param answers Answers keyed by question ID.
+     * @throws IllegalStateException If the survey is not active or an answer is missing or invalid.
+     */
+    public void validate(Map<String, Object> answers) {
+        if (!active) {
+            throw new IllegalStateException("Survey is not active");
+        }
+        for (String id : required) {
+            if (isBlank(answers.get(id))) {
+                throw new IllegalStateException("Missing answer for required question " + id);
+            }
+        }
+        for (Map.Entry<String, Object> a : answers.entrySet()) {
+            Rule rule = rules.get(a.getKey());
+            if (rule == null) {
+                throw new IllegalStateException("Unknown question " + a.getKey());
+            }
+            if (a.getValue() != null) {
+                rule.check(a.getKey(), a.getValue());
+            }
+        }
+    }
+
+    private static boolean isBlank(Object v) {
+        return v == null
+                || (v instanceof String s && s.isBlank())
+                || (v instanceof Collection<?> c && c.isEmpty());
+    }
+
+    private record Rule(QuestionType type, Set<String> allowed) {
+
+        void check(String id, Object value) {
+            switch (type) {
+                case TEXT -> {
+                    if (!(value instanceof String)) throw invalid(id, "expected text");
+                }
+                case NUMBER -> {
+                    if (!(value instanceof Number)) throw invalid(id, "expected a number");
+                }
+                case SINGLE_CHOICE -> {
+                    if (value instanceof Collection<?> || value instanceof Map<?, ?>) throw invalid(id, "expected a single option");
+                    checkOption(id, value);
+                }
+                case MULTI_CHOICE -> {
+                    if (!(value instanceof Collection<?> chosen)) throw invalid(id, "expected a list of options");
+                    for (Object option : chosen) checkOption(id, option);
+                }
+            }
+        }
+
+        private void checkOption(String id, Object option) {
+            // A choice question without configured options accepts any scalar value.
+            if (option == null || (!allowed.isEmpty() && !allowed.contains(String.valueOf(option)))) {
+                throw invalid(id, "unknown option " + option);
+            }
+        }
+
+        private static IllegalStateException invalid(String id, String reason) {
+            return new IllegalStateException("Invalid answer for question " + id + ": " + reason);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.rakuten.mobile.server.web;
+
+import com.rakuten.mobile.server.domain.ExportJob;
+import com.rakuten.mobile.server.export.ExportJobService;
+import com.rakuten.mobile.server.export.ResponseExportWriter;
+import com.rakuten.mobile.server.web.dto.ExportJobRes;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * REST controller for asynchronous response exports.
+ * Provides endpoints to:
+ *  - submit an export job,
+ *  - poll its status,
+ *  - and download its result, resumable with HTTP Range requests.
+ */
+@RestController
+@RequestMapping("/api/surveys/{surveyId}/responses/export/jobs")
+public class ExportJobController {
+
+    private final ExportJobService exports;
+
+    public ExportJobController(ExportJobService exports) {
+        this.exports = exports;
+    }
+
+    /**
+     * Endpoint to submit an export job; the export runs in the background.
+     *
+     * @param surveyId The ID of the survey to export.
+     * @param format "csv" (default), "wide" or "json", as for the synchronous export.
+     * @param filter Optional answer filter (see AnswerFilter).
+     * @return The queued job.
+     */
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ExportJobRes submit(@PathVariable UUID surveyId,
+                               @RequestParam(defaultValue = "csv") String format,
+                               @RequestParam(required = false) String filter) {
+        return ExportJobRes.from(exports.submit(surveyId, format, filter));
+    }
+
+    /**
+     * Endpoint to get the status of an export job.
+     *
+     * @param surveyId The ID of the exported survey.
+     * @param jobId The ID of the job.
+     * @return The job; its result can be downloaded once the status is DONE.
+     */
+    @GetMapping("/{jobId}")
+    public ExportJobRes get(@PathVariable UUID surveyId, @PathVariable UUID jobId) {
+        return ExportJobRes.from(exports.get(surveyId, jobId));
+    }
+
+    /**
+     * Endpoint to download the result of a finished export job.
+     * Honors a single {@code Range} (and {@code If-Range}) so interrupted downloads can be resumed.
+     *
+     * @param surveyId The ID of the exported survey.
+     * @param jobId The ID of the job.
+     */
+    @GetMapping("/{jobId}/download")
+    public void download(@PathVariable UUID surveyId,
+                         @PathVariable UUID jobId,
+                         HttpServletRequest req,
+                         HttpServletResponse res) throws IOException {
+        ExportJob job = exports.get(surveyId, jobId);
+        Path file = exports.resultFile(job);
+        String suffix = ResponseExportWriter.WIDE.equals(job.getFormat()) ? "-export-wide." : "-export.";
+        res.setContentType(ResponseExportWriter.JSON.equals(job.getFormat()) ? MediaType.APPLICATION_JSON_VALUE : "text/csv");
+        res.setHeader("Content-Disposition", "attachment; filename=\"survey-" + surveyId + suffix
+                + ResponseExportWriter.fileExtension(job.getFormat()) + "\"");
+        FileRangeSender.send(file, job.getSizeBytes(), "\"" + job.getId() + "\"", req, res);
+    }
+}
@@ -0,0 +1,112 @@
+package com.rakuten.mobile.server.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Serves a file, or a single byte range of it, so interrupted downloads can be resumed.
+ *
+ * Supports {@code Range: bytes=a-b | a- | -n} and {@code If-Range} against the ETag. Multi-range
+ * and malformed headers are ignored and the whole file is sent, as RFC 9110 allows.
+ *
+ * The body is not copied through the heap: when the connector supports sendfile (Tomcat NIO/NIO2)
+ * the range is handed over through the sendfile request attributes and the kernel writes it to the
+ * socket; otherwise {@link FileChannel#transferTo} copies it into the response channel.
+ */
+final class FileRangeSender {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    private FileRangeSender() {}
+
+    /**
+     * Writes the file (or the requested range) with its length and range headers.
+     * Content type and disposition are left to the caller.
+     *
+     * @param file The file to send.
+     * @param size The size of the file.
+     * @param etag The strong ETag identifying this version of the file, quoted.
+     */
+    static void send(Path file, long size, String etag, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        res.setHeader("Accept-Ranges", "bytes");
+        res.setHeader("ETag", etag);
+
+        long start = 0;
+        long end = size - 1;
+        String range = req.getHeader("Range");
+        String ifRange = req.getHeader("If-Range");
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] r = parseRange(range, size);
+            if (r == UNSATISFIABLE) {
+                res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                res.setHeader("Content-Range", "bytes */" + size);
+                return;
+            }
+            if (r != null) {
+                start = r[0];
+                end = r[1];
+                res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                res.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        res.setContentLengthLong(length);
+        if (length <= 0) return;
+
+        if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+            req.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            req.setAttribute(SENDFILE_START, start);
+            req.setAttribute(SENDFILE_END, end + 1); // exclusive
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+            long pos = start;
+            while (pos <= end) {
+                pos += ch.transferTo(pos, end + 1 - pos, out);
+            }
+        }
+    }
+
+    /**
+     * Parses a single byte range.
+     *
+     * @return {start, end} (inclusive), {@link #UNSATISFIABLE}, or null to send the whole file.
+     */
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=")) return null;
+        String spec = header.substring("bytes=".length()).trim();
+        if (spec.indexOf(',') >= 0) return null;
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the last n bytes
+                long n = Long.parseLong(last);
+                if (n <= 0 || size == 0) return UNSATISFIABLE;
+                return new long[]{Math.max(0, size - n), size - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Long.parseLong(last);
+            if (start < 0 || end < start) return null;
+            if (start >= size) return UNSATISFIABLE;
+            return new long[]{start, Math.min(end, size - 1)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
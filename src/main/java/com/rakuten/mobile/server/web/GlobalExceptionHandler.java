@@ -1,6 +1,9 @@
 package com.rakuten.mobile.server.web;
 
+import com.rakuten.mobile.server.export.ExportQuotaExceededException;
+import com.rakuten.mobile.server.ingest.IngestBackpressureException;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -56,6 +59,38 @@ public class GlobalExceptionHandler {
         return ApiError.of("Validation error", req.getRequestURI());
     }
 
+    /**
+     * Handles IngestBackpressureException and returns a TOO_MANY_REQUESTS (429) response
+     * with a Retry-After hint.
+     *
+     * @param ex The exception that was thrown.
+     * @param req The HTTP request to generate the error response.
+     * @param res The HTTP response, used to set the Retry-After header.
+     * @return An ApiError object containing the error message and request URI.
+     */
+    @ExceptionHandler(IngestBackpressureException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ApiError backpressure(IngestBackpressureException ex, HttpServletRequest req, HttpServletResponse res) {
+        res.setHeader("Retry-After", "1");
+        return ApiError.of(ex.getMessage(), req.getRequestURI());
+    }
+
+    /**
+     * Handles ExportQuotaExceededException and returns a TOO_MANY_REQUESTS (429) response
+     * with a Retry-After hint.
+     *
+     * @param ex The exception that was thrown.
+     * @param req The HTTP request to generate the error response.
+     * @param res The HTTP response, used to set the Retry-After header.
+     * @return An ApiError object containing the error message and request URI.
+     */
+    @ExceptionHandler(ExportQuotaExceededException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ApiError exportQuota(ExportQuotaExceededException ex, HttpServletRequest req, HttpServletResponse res) {
+        res.setHeader("Retry-After", "30");
+        return ApiError.of(ex.getMessage(), req.getRequestURI());
+    }
+
     /**
      * Handles AccessDeniedException and returns a FORBIDDEN (403) response.
      *
@@ -69,6 +104,18 @@ public class GlobalExceptionHandler {
         return ApiError.of("Forbidden: " + ex.getMessage(), req.getRequestURI());
     }
 
+    /**
+     * Rethrows StreamedBodyAbortedException instead of writing an error body after part of a
+     * streamed one, so the container aborts the connection and the client does not mistake the
+     * truncated body for a complete one.
+     *
+     * @param ex The exception that was thrown.
+     */
+    @ExceptionHandler(StreamedBodyAbortedException.class)
+    public void aborted(StreamedBodyAbortedException ex) {
+        throw ex;
+    }
+
     /**
      * Handles all other unhandled exceptions and returns an INTERNAL_SERVER_ERROR (500) response.
      *
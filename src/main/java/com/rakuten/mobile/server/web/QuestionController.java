@@ -3,14 +3,18 @@ package com.rakuten.mobile.server.web;
 import com.rakuten.mobile.server.domain.OptionChoice;
 import com.rakuten.mobile.server.domain.Question;
 import com.rakuten.mobile.server.service.QuestionService;
+import com.rakuten.mobile.server.web.dto.question.AnswerRes;
 import com.rakuten.mobile.server.web.dto.question.CreateQuestionReq;
 import com.rakuten.mobile.server.web.dto.question.QuestionRes;
 import com.rakuten.mobile.server.web.dto.question.ReplaceQuestionsReq;
 import com.rakuten.mobile.server.web.dto.question.UpdateQuestionReq;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -20,7 +24,8 @@ import java.util.UUID;
  *  - list all questions,
  *  - get a specific question,
  *  - update an existing question,
- *  - and delete a question.
+ *  - delete a question,
+ *  - and list the answers given to a question.
  */
 
 @RestController
@@ -41,10 +46,7 @@ public class QuestionController {
      */
     @GetMapping
     public List<QuestionRes> list(@PathVariable UUID surveyId) {
-        List<Question> qs = questions.list(surveyId);
-        return qs.stream()
-                .map(q -> QuestionRes.from(q, questions.options(q.getId())))
-                .toList();
+        return withOptions(questions.list(surveyId));
     }
 
     /**
@@ -88,14 +90,24 @@ public class QuestionController {
         questions.delete(surveyId, questionId);
     }
 
+    /**
+     * Endpoint to list the answers given to a specific question, from the normalized answers table.
+     *
+     * @param surveyId The ID of the survey containing the question.
+     * @param questionId The ID of the question whose answers are listed.
+     * @param pageable Page request.
+     * @return A page of answers with the response each belongs to.
+     */
+    @GetMapping("/{questionId}/answers")
+    public Page<AnswerRes> answers(@PathVariable UUID surveyId, @PathVariable UUID questionId, Pageable pageable) {
+        return questions.answers(questionId, pageable).map(AnswerRes::from);
+    }
+
     /** REPLACE ALL: PUT /api/surveys/{surveyId}/questions  (bulk) */
     @PutMapping
     public List<QuestionRes> replaceAll(@PathVariable UUID surveyId,
                                         @Valid @RequestBody ReplaceQuestionsReq req) {
-        List<Question> qs = questions.replaceAll(surveyId, req);
-        return qs.stream()
-                .map(q -> QuestionRes.from(q, questions.options(q.getId())))
-                .toList();
+        return withOptions(questions.replaceAll(surveyId, req));
     }
 
     /** DELETE ALL: DELETE /api/surveys/{surveyId}/questions */
@@ -103,4 +115,12 @@ public class QuestionController {
     public void deleteAll(@PathVariable UUID surveyId) {
         questions.replaceAll(surveyId, new ReplaceQuestionsReq(List.of())); // replace with empty list
     }
+
+    /** Assembles the DTOs in memory from one batched option query, whatever the number of questions. */
+    private List<QuestionRes> withOptions(List<Question> qs) {
+        Map<UUID, List<OptionChoice>> opts = questions.optionsByQuestion(qs);
+        return qs.stream()
+                .map(q -> QuestionRes.from(q, opts.getOrDefault(q.getId(), List.of())))
+                .toList();
+    }
 }
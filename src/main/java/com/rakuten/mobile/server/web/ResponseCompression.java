@@ -0,0 +1,197 @@
+package com.rakuten.mobile.server.web;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.github.luben.zstd.util.Native;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Negotiates a content coding for streamed response bodies (exports, bulk upload results) and
+ * wraps the servlet output stream in a streaming compressor.
+ *
+ * zstd is preferred when the client accepts it and the native library loads on this platform,
+ * then gzip; otherwise the body is sent as is. Compression happens as the body is written: every
+ * flush of the wrapped stream emits what has been compressed so far, so nothing is buffered beyond
+ * the compressor's window and clients see rows as they are produced.
+ */
+@Slf4j
+@Component
+public class ResponseCompression {
+
+    static final String GZIP = "gzip";
+    static final String ZSTD = "zstd";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final boolean enabled;
+    private final int gzipLevel;
+    private final int zstdLevel;
+    private final boolean zstdAvailable;
+
+    public ResponseCompression(@Value("${app.exports.compression.enabled:true}") boolean enabled,
+                               @Value("${app.exports.compression.gzip-level:6}") int gzipLevel,
+                               @Value("${app.exports.compression.zstd-level:3}") int zstdLevel) {
+        this.enabled = enabled;
+        this.gzipLevel = gzipLevel;
+        this.zstdLevel = zstdLevel;
+        this.zstdAvailable = enabled && loadZstd();
+    }
+
+    /** Writes a response body to the stream it is given. */
+    @FunctionalInterface
+    public interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Picks the coding for the request, sets {@code Content-Encoding}/{@code Vary} and lets
+     * {@code body} write through the compressor. Call it once the body is about to be written,
+     * after any validation that may still fail.
+     *
+     * The stream is finished (compressed frame trailer, last chunk) only when {@code body} returns.
+     * When it throws, nothing more reaches the client: before the response is committed it is reset
+     * so the error is rendered as usual; after that the failure is rethrown as a
+     * {@link StreamedBodyAbortedException} and the container drops the connection, so the client
+     * sees a broken transfer rather than a well-formed, truncated body.
+     */
+    public void write(HttpServletRequest req, HttpServletResponse res, Body body) throws IOException {
+        res.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String coding = enabled ? negotiate(req.getHeader(HttpHeaders.ACCEPT_ENCODING), zstdAvailable) : null;
+        DetachableOutputStream sink = new DetachableOutputStream(res.getOutputStream());
+        OutputStream out = sink;
+        if (coding != null) {
+            res.setHeader(HttpHeaders.CONTENT_ENCODING, coding);
+            out = compressor(coding, ZSTD.equals(coding) ? zstdLevel : gzipLevel, sink);
+        }
+
+        try {
+            body.writeTo(out);
+        } catch (IOException | RuntimeException e) {
+            abort(res, sink, out);
+            if (res.isCommitted()) throw new StreamedBodyAbortedException(e);
+            throw e;
+        }
+        out.close();
+    }
+
+    /** Wraps {@code out} in a streaming gzip or zstd compressor at the given level. */
+    static OutputStream compressor(String coding, int level, OutputStream out) throws IOException {
+        return ZSTD.equals(coding) ? new ZstdOutputStream(out, level) : new LeveledGzipOutputStream(out, level);
+    }
+
+    /** Releases the compressor without letting it write anything, and drops the headers if still possible. */
+    private static void abort(HttpServletResponse res, DetachableOutputStream sink, OutputStream out) {
+        sink.detach();
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // nothing was written to the client
+        }
+        if (!res.isCommitted()) res.reset();
+    }
+
+    /**
+     * Chooses between zstd and gzip from an Accept-Encoding header, honoring q-values and "*".
+     * On equal weights zstd wins.
+     *
+     * @return The coding to use, or null for identity.
+     */
+    static String negotiate(String acceptEncoding, boolean zstdAvailable) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) return null;
+        double gzipQ = -1;
+        double zstdQ = -1;
+        double anyQ = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = qValue(params);
+            switch (coding) {
+                case GZIP, "x-gzip" -> gzipQ = q;
+                case ZSTD -> zstdQ = q;
+                case "*" -> anyQ = q;
+                default -> { }
+            }
+        }
+        if (gzipQ < 0) gzipQ = anyQ;
+        if (zstdQ < 0) zstdQ = anyQ;
+        if (!zstdAvailable) zstdQ = 0;
+
+        if (zstdQ > 0 && zstdQ >= gzipQ) return ZSTD;
+        if (gzipQ > 0) return GZIP;
+        return null;
+    }
+
+    private static double qValue(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String p = params[i].trim();
+            if (p.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(p.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static boolean loadZstd() {
+        try {
+            Native.load();
+            return true;
+        } catch (LinkageError | RuntimeException e) {
+            log.info("zstd native library unavailable, responses fall back to gzip: {}", e.toString());
+            return false;
+        }
+    }
+
+    /** Passes writes through to the servlet stream until detached, then discards them; close() never closes the servlet stream. */
+    private static final class DetachableOutputStream extends FilterOutputStream {
+        private boolean detached;
+
+        DetachableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        void detach() {
+            detached = true;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!detached) out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!detached) out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!detached) out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /** GZIP stream with a configurable level; flush() emits everything compressed so far. */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE, true);
+            def.setLevel(level);
+        }
+    }
+}
@@ -1,23 +1,30 @@
 package com.rakuten.mobile.server.web;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.rakuten.mobile.server.domain.Response;
-import com.rakuten.mobile.server.repo.ResponseRepository;
+import com.rakuten.mobile.server.domain.ResponseView;
+import com.rakuten.mobile.server.export.ResponseExportWriter;
+import com.rakuten.mobile.server.ingest.BulkResponseImporter;
+import com.rakuten.mobile.server.ingest.ResponseIngestPipeline;
+import com.rakuten.mobile.server.ingest.Submission;
+import com.rakuten.mobile.server.repo.ResponseCopyRepository;
+import com.rakuten.mobile.server.service.AnswerFilter;
 import com.rakuten.mobile.server.service.ResponseService;
+import com.rakuten.mobile.server.service.SurveyService;
+import com.rakuten.mobile.server.tenancy.TenantContext;
+import com.rakuten.mobile.server.web.dto.CursorPage;
 import com.rakuten.mobile.server.web.dto.ResponseRes;
 import com.rakuten.mobile.server.web.dto.SubmitResponseReq;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * REST controller to handle survey responses.
@@ -27,25 +34,69 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/surveys/{surveyId}/responses")
 public class ResponseController {
 
+    private static final int MAX_SEEK_PAGE_SIZE = 1000;
+    private static final String NDJSON = "application/x-ndjson";
+
     private final ResponseService responses;
-    private final ResponseRepository rRepo;
-    private final ObjectMapper om = new ObjectMapper();
+    private final ResponseExportWriter exporter;
+    private final BulkResponseImporter bulkImporter;
+    private final ResponseCopyRepository copies;
+    private final SurveyService surveys;
+    private final ResponseCompression compression;
+    private final ResponseIngestPipeline ingest; // null unless app.ingest.mode=batched
 
     public ResponseController(ResponseService responses,
-                              ResponseRepository rRepo) {
+                              ResponseExportWriter exporter,
+                              BulkResponseImporter bulkImporter,
+                              ResponseCopyRepository copies,
+                              SurveyService surveys,
+                              ResponseCompression compression,
+                              ObjectProvider<ResponseIngestPipeline> ingest) {
         this.responses = responses;
-        this.rRepo = rRepo;
+        this.exporter = exporter;
+        this.bulkImporter = bulkImporter;
+        this.copies = copies;
+        this.surveys = surveys;
+        this.compression = compression;
+        this.ingest = ingest.getIfAvailable();
     }
     /**
      * Endpoint to list responses for a specific survey with pagination.
      *
      * @param surveyId The ID of the survey to list responses for.
+     * @param filter Optional answer filter, e.g. {@code <questionId> = "yes" and <questionId> > 5} (see AnswerFilter).
      * @param pageable Pagination information (e.g., page number, page size).
      * @return A page of response data (minimal details such as response ID, submission timestamp, and respondent ID).
      */
     @GetMapping
-    public Page<ResponseRes> list(@PathVariable UUID surveyId, Pageable pageable) {
-        return responses.list(surveyId, pageable).map(ResponseRes::from);
+    public Page<ResponseRes> list(@PathVariable UUID surveyId,
+                                  @RequestParam(required = false) String filter,
+                                  Pageable pageable) {
+        return responses.list(surveyId, AnswerFilter.parse(filter), pageable).map(ResponseRes::from);
+    }
+
+    /**
+     * Endpoint to list responses for a survey with keyset (seek) pagination, newest first.
+     * Page cost does not grow with depth, and no count query runs unless asked for.
+     *
+     * @param surveyId The ID of the survey to list responses for.
+     * @param cursor Continuation token from the previous page; omit for the first page.
+     * @param size Page size (1-1000).
+     * @param withTotal Whether to include the total number of responses.
+     * @return One page of responses and the token for the next page, if any.
+     */
+    @GetMapping("/seek")
+    public CursorPage<ResponseRes> seek(@PathVariable UUID surveyId,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(defaultValue = "50") int size,
+                                        @RequestParam(defaultValue = "false") boolean withTotal) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SEEK_PAGE_SIZE));
+        SeekCursor after = SeekCursor.decode(cursor);
+        List<ResponseView> rows = responses.listSeek(surveyId,
+                after == null ? null : after.at(), after == null ? null : after.id(), pageSize + 1);
+        Long total = withTotal ? responses.count(surveyId) : null;
+        return SeekCursor.page(rows, pageSize, r -> new SeekCursor(r.getSubmittedAt(), r.getId()), total)
+                .map(ResponseRes::from);
     }
 
     /**
@@ -67,70 +118,118 @@ public class ResponseController {
             tenantId = UUID.fromString("00000000-0000-0000-0000-000000000001");
         }
 
-        Map<String, Object> answers = req.answers().stream()
-                .filter(a -> a.value() != null)
-                .collect(Collectors.toMap(a -> a.questionId().toString(), (SubmitResponseReq.Ans::value)));
+        Map<String, Object> answers = req.answersByQuestion();
 
-
-        UUID id = responses.submit(surveyId, tenantId, req.respondentId(), answers, idemKey);
+        UUID id = (ingest != null)
+                ? ingest.submit(new Submission(surveyId, tenantId, req.respondentId(), answers, idemKey))
+                : responses.submit(surveyId, tenantId, req.respondentId(), answers, idemKey);
         return Map.of("responseId", id);
     }
 
     /**
-     * Endpoint to retrieve a specific survey by its ID.
+     * Endpoint to submit many responses at once as NDJSON (one SubmitResponseReq per line).
+     * The body is parsed incrementally and written in batched transactions; one NDJSON result
+     * line ({"line":n,"responseId":...} or {"line":n,"error":...}) is streamed back per input line,
+     * compressed with gzip or zstd when the client accepts it.
+     *
+     * @param surveyId The ID of the survey to submit the responses for.
+     * @param tenantId The ID of the tenancy.
+     * @param idemKey Optional key for the upload; line n is de-duplicated as "{idemKey}:{n}".
+     */
+    @PostMapping(path = "/bulk", consumes = NDJSON)
+    public void bulk(@PathVariable UUID surveyId,
+                     @RequestHeader(name = "X-Tenant-Id", required = false) UUID tenantId,
+                     @RequestHeader(name = "Idempotency-Key", required = false) String idemKey,
+                     HttpServletRequest req,
+                     HttpServletResponse res) throws IOException {
+        if (tenantId == null) {
+            tenantId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        }
+        // Unknown surveys get a 404 before the result stream starts
+        bulkImporter.requireSurvey(surveyId, tenantId);
+        res.setContentType(NDJSON);
+        UUID tenant = tenantId;
+        compression.write(req, res, out -> bulkImporter.importNdjson(surveyId, tenant, idemKey, req.getInputStream(), out));
+    }
+
+    /**
+     * Endpoint to export every response of a survey as CSV through PostgreSQL COPY TO STDOUT.
+     * Bytes stream from the connection to the client (gzip/zstd-compressed when accepted);
+     * intended for warehouse loads.
      *
-     * @param id The ID of the survey to retrieve.
-     * @return The requested survey as a SurveyRes DTO.
+     * @param surveyId The ID of the survey to export.
      * @throws IllegalArgumentException If the survey is not found.
      */
+    @GetMapping("/copy")
+    public void copyOut(@PathVariable UUID surveyId, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        UUID tenantId = requireSurvey(surveyId);
+        res.setContentType("text/csv");
+        res.setHeader("Content-Disposition", "attachment; filename=\"survey-" + surveyId + "-responses.csv\"");
+        compression.write(req, res, out -> copies.copyOut(tenantId, surveyId, out));
+    }
+
+    /**
+     * Endpoint to load responses into a survey through PostgreSQL COPY FROM STDIN.
+     * Accepts CSV (id,respondent_id,submitted_at,answers_json with a header row; id and
+     * submitted_at may be empty) or NDJSON. Rows are not validated; existing ids are skipped.
+     *
+     * @param surveyId The ID of the survey to load into.
+     * @param format "ndjson" for NDJSON; anything else is read as CSV.
+     * @return A Map with the number of imported responses.
+     * @throws IllegalArgumentException If the survey is not found.
+     */
+    @PostMapping("/copy")
+    public Map<String, Object> copyIn(@PathVariable UUID surveyId,
+                                      @RequestParam(defaultValue = "csv") String format,
+                                      HttpServletRequest req) throws IOException {
+        UUID tenantId = requireSurvey(surveyId);
+        int imported = copies.copyIn(tenantId, surveyId, "ndjson".equalsIgnoreCase(format), req.getInputStream());
+        return Map.of("imported", imported);
+    }
+
+    /**
+     * Endpoint to retrieve a specific response of a survey by its ID.
+     *
+     * @param surveyId The ID of the survey the response belongs to.
+     * @param id The ID of the response to retrieve.
+     * @return The requested response as a ResponseRes DTO.
+     * @throws IllegalArgumentException If the response is not found in this survey.
+     */
     @GetMapping("/{id}")
-    public ResponseRes get(@PathVariable UUID id) {
-        Response response = responses.get(id).orElseThrow(() -> new IllegalArgumentException("Survey not found"));
+    public ResponseRes get(@PathVariable UUID surveyId, @PathVariable UUID id) {
+        ResponseView response = responses.get(surveyId, id).orElseThrow(() -> new IllegalArgumentException("Response not found"));
         return ResponseRes.from(response);
     }
 
     /**
-     * Export responses:
+     * Export responses, streamed straight from a database cursor:
      *  - CSV (default) produces one row per answer (responseId, questionId, valueJson).
-     *  - JSON returns an array: [{ responseId, submittedAt, respondentId, answers:[{questionId,valueJson}] }]
+     *  - WIDE produces one row per response with one column per question, choices shown as option labels.
+     *  - JSON returns an array: [{ responseId, submittedAt, respondentId, answers:{questionId:value} }]
+     * An optional {@code filter} restricts the export to responses whose answers match it.
+     * The body is compressed as it is written when the client accepts zstd or gzip.
      */
     @GetMapping("/export")
     public void export(@PathVariable UUID surveyId,
                        @RequestParam(defaultValue = "csv") String format,
+                       @RequestParam(required = false) String filter,
+                       HttpServletRequest req,
                        HttpServletResponse res) throws IOException {
-        List<Response> rs = rRepo.findAllBySurveyId(surveyId);
-
-        if ("json".equalsIgnoreCase(format)) {
+        AnswerFilter answerFilter = AnswerFilter.parse(filter); // reject bad filters before committing the response
+        String fmt = ResponseExportWriter.normalizeFormat(format);
+        if (ResponseExportWriter.JSON.equals(fmt)) {
             res.setContentType(MediaType.APPLICATION_JSON_VALUE);
-            var out = new ArrayList<Map<String, Object>>();
-            for (var r : rs) {
-                out.add(Map.of(
-                        "responseId", r.getId(),
-                        "submittedAt", r.getSubmittedAt(),
-                        "respondentId", r.getRespondentId(),
-                        "answers", r.getAnswersJson()));
-            }
-            om.writeValue(res.getOutputStream(), out);
-            return;
-        }
-
-        // CSV export
-        res.setContentType("text/csv");
-        res.setHeader("Content-Disposition", "attachment; filename=\"survey-" + surveyId + "-export.csv\"");
-        var writer = res.getWriter();
-        writer.println("response_id,submitted_at,respondent_id,question_id,value_json");
-        for (var r : rs) {
-            var answers = r.getAnswersJson();
-            for (Map.Entry<String, Object> entry : answers.entrySet()) {
-                // value_json may contain commas—quote as JSON string; CSV parsers can handle quoted fields
-                String value = om.writeValueAsString(entry.getValue());
-                writer.printf("%s,%s,%s,%s,%s%n",
-                        r.getId().toString(), r.getSubmittedAt().toString(), r.getRespondentId().toString(), entry.getKey(), value);
-            }
+        } else {
+            res.setContentType("text/csv");
+            String suffix = ResponseExportWriter.WIDE.equals(fmt) ? "-export-wide.csv" : "-export.csv";
+            res.setHeader("Content-Disposition", "attachment; filename=\"survey-" + surveyId + suffix + "\"");
         }
-        writer.flush();
+        compression.write(req, res, out -> exporter.write(surveyId, fmt, answerFilter, out));
     }
 
-
-
+    /** Checks that the survey is visible to the current tenant and returns the tenant. */
+    private UUID requireSurvey(UUID surveyId) {
+        surveys.get(surveyId).orElseThrow(() -> new IllegalArgumentException("Survey not found"));
+        return UUID.fromString(TenantContext.required());
+    }
 }
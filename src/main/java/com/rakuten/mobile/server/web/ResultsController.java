@@ -0,0 +1,48 @@
+package com.rakuten.mobile.server.web;
+
+import com.rakuten.mobile.server.results.ResultsService;
+import com.rakuten.mobile.server.web.dto.results.SurveyResultsRes;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * REST controller serving pre-aggregated survey results for dashboards.
+ */
+@RestController
+@RequestMapping("/api/surveys/{surveyId}/results")
+public class ResultsController {
+
+    private final ResultsService results;
+
+    public ResultsController(ResultsService results) {
+        this.results = results;
+    }
+
+    /**
+     * Endpoint to read the aggregated results of a survey. Served from the tally table, so the
+     * cost depends on the number of questions and options, not on the number of responses.
+     *
+     * @param surveyId The ID of the survey.
+     * @return Response count and per-question tallies.
+     */
+    @GetMapping
+    public SurveyResultsRes get(@PathVariable UUID surveyId) {
+        return results.results(surveyId);
+    }
+
+    /**
+     * Endpoint to recompute the tallies of a survey from its stored responses.
+     * It scans every response of the survey, so it is limited to tenant administrators.
+     *
+     * @param surveyId The ID of the survey.
+     * @return The number of tally rows written.
+     */
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('TENANT_ADMIN')")
+    public Map<String, Object> rebuild(@PathVariable UUID surveyId) {
+        return Map.of("surveyId", surveyId, "rows", results.rebuild(surveyId));
+    }
+}
@@ -0,0 +1,64 @@
+package com.rakuten.mobile.server.web;
+
+import com.rakuten.mobile.server.web.dto.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Opaque continuation token for keyset (seek) pagination over a (timestamp, id) ordering.
+ * Clients must treat the encoded form as opaque; it is only meant to be passed back verbatim.
+ */
+public record SeekCursor(Instant at, UUID id) {
+
+    /**
+     * Encodes the cursor as a URL-safe token.
+     *
+     * @return The opaque token.
+     */
+    public String encode() {
+        String raw = at.toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token The opaque token, or null/blank for the first page.
+     * @return The decoded cursor, or null when no token was supplied.
+     * @throws IllegalStateException If the token is malformed.
+     */
+    public static SeekCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new SeekCursor(Instant.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}; the extra row only
+     * signals that another page exists and is not returned.
+     *
+     * @param rows The fetched rows, in seek order.
+     * @param size The requested page size.
+     * @param key Extracts the seek key of a row.
+     * @param total The total count, or null when it was not requested.
+     * @return The page with a continuation token when more rows exist.
+     */
+    public static <T> CursorPage<T> page(List<T> rows, int size, Function<T, SeekCursor> key, Long total) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null, total);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, key.apply(items.get(size - 1)).encode(), total);
+    }
+}
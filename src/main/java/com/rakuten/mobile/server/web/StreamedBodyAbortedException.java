@@ -0,0 +1,12 @@
+package com.rakuten.mobile.server.web;
+
+/**
+ * Thrown when a streamed response body fails after its first bytes were sent. The status line is
+ * already on the wire, so it is not mapped to an error response: the container closes the
+ * connection and the client sees an incomplete transfer.
+ */
+public class StreamedBodyAbortedException extends RuntimeException {
+    public StreamedBodyAbortedException(Throwable cause) {
+        super(cause);
+    }
+}
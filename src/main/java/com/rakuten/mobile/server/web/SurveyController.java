@@ -1,15 +1,23 @@
 package com.rakuten.mobile.server.web;
 
 import com.rakuten.mobile.server.domain.Survey;
+import com.rakuten.mobile.server.service.SurveyDefinitionService;
 import com.rakuten.mobile.server.service.SurveyService;
 import com.rakuten.mobile.server.web.dto.CreateSurveyReq;
+import com.rakuten.mobile.server.web.dto.CursorPage;
 import com.rakuten.mobile.server.web.dto.SurveyRes;
 import com.rakuten.mobile.server.web.dto.SurveyUpdateRequest;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -18,6 +26,7 @@ import java.util.UUID;
  * - Create a new survey.
  * - List surveys with optional status filtering and pagination.
  * - Retrieve a specific survey by its ID.
+ * - Fetch the full, pre-rendered definition of a survey for respondent apps.
  * - Publish a survey (set its status to "ACTIVE").
  * - Delete a survey by its ID.
  */
@@ -25,9 +34,15 @@ import java.util.UUID;
 @RequestMapping("/api/surveys")
 public class SurveyController {
 
+    private static final int MAX_SEEK_PAGE_SIZE = 1000;
+
     private final SurveyService surveys;
+    private final SurveyDefinitionService definitions;
 
-    public SurveyController(SurveyService surveys) { this.surveys = surveys; }
+    public SurveyController(SurveyService surveys, SurveyDefinitionService definitions) {
+        this.surveys = surveys;
+        this.definitions = definitions;
+    }
 
     /**
      * Endpoint to create a new survey.
@@ -52,6 +67,30 @@ public class SurveyController {
         return surveys.list(status, pageable).map(SurveyRes::from);
     }
 
+    /**
+     * Endpoint to list surveys with keyset (seek) pagination, newest first.
+     * Page cost does not grow with depth, and no count query runs unless asked for.
+     *
+     * @param status The status of the surveys to filter by (optional).
+     * @param cursor Continuation token from the previous page; omit for the first page.
+     * @param size Page size (1-1000).
+     * @param withTotal Whether to include the total number of matching surveys.
+     * @return One page of surveys and the token for the next page, if any.
+     */
+    @GetMapping("/seek")
+    public CursorPage<SurveyRes> seek(@RequestParam(required = false) String status,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(defaultValue = "50") int size,
+                                      @RequestParam(defaultValue = "false") boolean withTotal) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SEEK_PAGE_SIZE));
+        SeekCursor after = SeekCursor.decode(cursor);
+        List<Survey> rows = surveys.listSeek(status,
+                after == null ? null : after.at(), after == null ? null : after.id(), pageSize + 1);
+        Long total = withTotal ? surveys.count(status) : null;
+        return SeekCursor.page(rows, pageSize, s -> new SeekCursor(s.getCreatedAt(), s.getId()), total)
+                .map(SurveyRes::from);
+    }
+
     /**
      * Endpoint to retrieve a specific survey by its ID.
      *
@@ -65,6 +104,38 @@ public class SurveyController {
         return SurveyRes.from(s);
     }
 
+    /**
+     * Endpoint to fetch the full definition of a survey (survey, questions and options) in one document.
+     * The body is pre-rendered and pre-compressed; a matching {@code If-None-Match} is answered
+     * with 304 straight from the cache.
+     *
+     * @param id The ID of the survey.
+     * @param acceptEncoding The client's Accept-Encoding header; gzip is sent when accepted, honoring q-values.
+     * @param request The current request, used for ETag revalidation.
+     * @return The definition as JSON, or 304 Not Modified.
+     * @throws IllegalArgumentException If the survey is not found.
+     */
+    @GetMapping("/{id}/definition")
+    public ResponseEntity<byte[]> definition(@PathVariable UUID id,
+                                             @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                             WebRequest request) {
+        SurveyDefinitionService.Rendered def = definitions.get(id);
+        if (request.checkNotModified(def.etag())) {
+            return null; // 304 with the ETag already set
+        }
+        // Only a gzip rendering is cached, so zstd is not offered; "gzip;q=0" gets the plain JSON
+        boolean gzip = ResponseCompression.GZIP.equals(ResponseCompression.negotiate(acceptEncoding, false));
+        ResponseEntity.BodyBuilder res = ResponseEntity.ok()
+                .eTag(def.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            res.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return res.body(gzip ? def.gzip() : def.json());
+    }
+
     /**
      * Endpoint to publish a survey, changing its status to "ACTIVE".
      *
@@ -0,0 +1,23 @@
+package com.rakuten.mobile.server.web.dto;
+
+import com.rakuten.mobile.server.domain.ExportJob;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record ExportJobRes(UUID id, UUID surveyId, String format, String filter, String status,
+                           Long sizeBytes, String error, Instant createdAt, Instant startedAt,
+                           Instant finishedAt, Instant expiresAt) {
+
+    /**
+     * Static method to map an ExportJob entity to an ExportJobRes DTO.
+     *
+     * @param job The ExportJob entity.
+     * @return An ExportJobRes DTO with the job's state.
+     */
+    public static ExportJobRes from(ExportJob job) {
+        return new ExportJobRes(job.getId(), job.getSurveyId(), job.getFormat(), job.getFilter(), job.getStatus(),
+                job.getSizeBytes(), job.getError(), job.getCreatedAt(), job.getStartedAt(),
+                job.getFinishedAt(), job.getExpiresAt());
+    }
+}
@@ -1,21 +1,22 @@
 package com.rakuten.mobile.server.web.dto;
 
-import com.rakuten.mobile.server.domain.Response;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.rakuten.mobile.server.domain.ResponseView;
 
 import java.time.Instant;
-import java.util.Map;
 import java.util.UUID;
 
 
-public record ResponseRes(UUID id, UUID surveyId, UUID respondentId, Map<String, Object> answersJson, Instant submittedAt) {
+public record ResponseRes(UUID id, UUID surveyId, UUID respondentId, @JsonRawValue String answersJson, Instant submittedAt) {
 
     /**
-     * Static method to map a Response entity to a ResponseRes DTO.
+     * Static method to map a ResponseView entity to a ResponseRes DTO.
+     * The answers are passed through as the JSONB text read from the database.
      *
-     * @param res The Survey entity.
-     * @return A SurveyRes DTO with the relevant survey data.
+     * @param res The ResponseView entity.
+     * @return A ResponseRes DTO with the relevant response data.
      */
-    public static ResponseRes from(Response res) {
+    public static ResponseRes from(ResponseView res) {
         return new ResponseRes(res.getId(), res.getSurveyId(), res.getRespondentId(), res.getAnswersJson(), res.getSubmittedAt());
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,9 @@
 package com.rakuten.mobile.server.web.dto;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Data Transfer Object representing a response submission.
@@ -9,4 +11,19 @@ import java.util.UUID;
  */
 public record SubmitResponseReq(List<Ans> answers, UUID respondentId) {
     public record Ans(UUID questionId, Object value) {}
+
+    /**
+     * Converts the answers into the stored form, keyed by question ID; null values are dropped.
+     *
+     * @throws IllegalStateException If an answer has no question ID or a question is answered more than once.
+     */
+    public Map<String, Object> answersByQuestion() {
+        if (answers == null) return Map.of();
+        if (answers.stream().anyMatch(a -> a == null || a.questionId() == null)) {
+            throw new IllegalStateException("Answer without questionId");
+        }
+        return answers.stream()
+                .filter(a -> a.value() != null)
+                .collect(Collectors.toMap(a -> a.questionId().toString(), Ans::value));
+    }
 }
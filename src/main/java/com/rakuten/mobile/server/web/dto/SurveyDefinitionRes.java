@@ -0,0 +1,10 @@
+package com.rakuten.mobile.server.web.dto;
+
+import com.rakuten.mobile.server.web.dto.question.QuestionRes;
+
+import java.util.List;
+
+/**
+ * Everything a respondent app needs to render a survey, in one document.
+ */
+public record SurveyDefinitionRes(long version, SurveyRes survey, List<QuestionRes> questions) {}
@@ -0,0 +1,11 @@
+package com.rakuten.mobile.server.web.dto.question;
+
+import com.rakuten.mobile.server.domain.Answer;
+
+import java.util.UUID;
+
+public record AnswerRes(UUID responseId, Object value) {
+    public static AnswerRes from(Answer a) {
+        return new AnswerRes(a.getResponseId(), a.getValueJson());
+    }
+}
@@ -0,0 +1,19 @@
+package com.rakuten.mobile.server.web.dto.results;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.rakuten.mobile.server.domain.QuestionType;
+
+import java.util.Map;
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record QuestionResultRes(
+        UUID questionId,
+        String text,
+        QuestionType type,
+        long answered,           // answers for TEXT/NUMBER, selections for choice questions
+        Map<String, Long> options, // option value -> count (choice questions only)
+        NumericStats numeric       // NUMBER questions only
+) {
+    public record NumericStats(long count, double sum, Double min, Double max, double mean) {}
+}
@@ -0,0 +1,6 @@
+package com.rakuten.mobile.server.web.dto.results;
+
+import java.util.List;
+import java.util.UUID;
+
+public record SurveyResultsRes(UUID surveyId, long responses, List<QuestionResultRes> questions) {}
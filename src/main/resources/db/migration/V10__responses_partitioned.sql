@@ -0,0 +1,86 @@
+-- ============================================================
+-- V10__responses_partitioned.sql
+-- Move responses to monthly range partitions on submitted_at (UTC),
+-- each split into hash subpartitions on tenant_id:
+--
+--   responses
+--     responses_y2026m10            FOR VALUES FROM (2026-10-01) TO (2026-11-01)
+--       responses_y2026m10_h0..h7   FOR VALUES WITH (MODULUS 8, REMAINDER n)
+--     responses_default             rows outside every created month
+--
+-- Queries filtered by tenant_id prune to one hash subpartition per month;
+-- a submitted_at bound additionally prunes months.
+-- Future months are created by ResponsePartitionMaintainer (app.responses.*)
+-- through create_responses_month_partition().
+--
+-- Existing rows are copied in this migration. For very large tables run the
+-- same steps by hand beforehand (create the partitioned table under another
+-- name, copy month by month, then swap names in one short transaction) and
+-- baseline this version.
+-- ============================================================
+
+ALTER TABLE public.responses RENAME TO responses_legacy;
+ALTER TABLE public.responses_legacy RENAME CONSTRAINT responses_pkey TO responses_legacy_pkey;
+DROP INDEX IF EXISTS public.idx_responses_tenant_survey_seek;
+
+-- The primary key must contain the partition keys
+CREATE TABLE public.responses (
+                                  id            uuid        NOT NULL DEFAULT uuid_generate_v4(),
+                                  tenant_id     uuid        NOT NULL REFERENCES public.tenants(id) ON DELETE CASCADE,
+                                  survey_id     uuid        NOT NULL REFERENCES public.surveys(id) ON DELETE CASCADE,
+                                  respondent_id uuid,
+                                  answers_json  jsonb,
+                                  submitted_at  timestamptz NOT NULL DEFAULT now(),
+                                  PRIMARY KEY (id, submitted_at, tenant_id)
+) PARTITION BY RANGE (submitted_at);
+
+-- Creates the month containing p_month (UTC) with its hash subpartitions; no-op if it exists
+CREATE OR REPLACE FUNCTION public.create_responses_month_partition(p_month date, p_modulus int DEFAULT 8)
+    RETURNS void
+    LANGUAGE plpgsql AS $$
+DECLARE
+    m_start date := date_trunc('month', p_month)::date;
+    m_name  text := 'responses_y' || to_char(m_start, 'YYYY') || 'm' || to_char(m_start, 'MM');
+    i       int;
+BEGIN
+    IF to_regclass('public.' || m_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+    EXECUTE format('CREATE TABLE public.%I PARTITION OF public.responses FOR VALUES FROM (%L) TO (%L) PARTITION BY HASH (tenant_id)',
+                   m_name,
+                   m_start::timestamp AT TIME ZONE 'UTC',
+                   (m_start + interval '1 month')::timestamp AT TIME ZONE 'UTC');
+    FOR i IN 0 .. p_modulus - 1 LOOP
+        EXECUTE format('CREATE TABLE public.%I PARTITION OF public.%I FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                       m_name || '_h' || i, m_name, p_modulus, i);
+    END LOOP;
+END$$;
+
+-- Safety net for months the maintainer has not created (e.g. back-dated imports)
+CREATE TABLE public.responses_default PARTITION OF public.responses DEFAULT;
+
+DO $$
+DECLARE
+    m date;
+BEGIN
+    FOR m IN
+        SELECT g::date
+        FROM generate_series(
+                     (SELECT date_trunc('month', coalesce(min(submitted_at), now()) AT TIME ZONE 'UTC')
+                      FROM public.responses_legacy),
+                     date_trunc('month', now() AT TIME ZONE 'UTC') + interval '3 months',
+                     interval '1 month') AS g
+    LOOP
+        PERFORM public.create_responses_month_partition(m);
+    END LOOP;
+END$$;
+
+INSERT INTO public.responses (id, tenant_id, survey_id, respondent_id, answers_json, submitted_at)
+SELECT id, tenant_id, survey_id, respondent_id, answers_json, submitted_at
+FROM public.responses_legacy;
+
+DROP TABLE public.responses_legacy;
+
+-- Keyset pagination / listing index, created on every partition
+CREATE INDEX idx_responses_tenant_survey_seek
+    ON public.responses (tenant_id, survey_id, submitted_at DESC, id DESC);
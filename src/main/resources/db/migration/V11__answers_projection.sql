@@ -0,0 +1,34 @@
+-- ============================================================
+-- V11__answers_projection.sql
+-- Normalized answers (one row per response and question), filled
+-- asynchronously from responses.answers_json by AnswerProjector.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS public.answers (
+                                              id          uuid  PRIMARY KEY,
+                                              tenant_id   uuid  NOT NULL,
+                                              response_id uuid  NOT NULL,
+                                              question_id uuid  NOT NULL,
+                                              value_json  jsonb NOT NULL
+);
+
+-- Makes projection idempotent: re-projecting a response is a no-op
+CREATE UNIQUE INDEX IF NOT EXISTS uq_answers_response_question ON public.answers (response_id, question_id);
+CREATE INDEX IF NOT EXISTS idx_answers_tenant_response ON public.answers (tenant_id, response_id);
+CREATE INDEX IF NOT EXISTS idx_answers_question ON public.answers (question_id);
+
+-- Resumable positions of background projections over responses, ordered by (submitted_at, id)
+CREATE TABLE IF NOT EXISTS public.projection_checkpoints (
+                                                             name        text        PRIMARY KEY,
+                                                             position_at timestamptz NOT NULL,
+                                                             position_id uuid        NOT NULL,
+                                                             updated_at  timestamptz NOT NULL DEFAULT now()
+);
+
+-- Start from the beginning so existing responses are backfilled
+INSERT INTO public.projection_checkpoints (name, position_at, position_id)
+VALUES ('answers', '-infinity', '00000000-0000-0000-0000-000000000000')
+ON CONFLICT (name) DO NOTHING;
+
+-- Tailing responses in commit-ish order across all tenants
+CREATE INDEX IF NOT EXISTS idx_responses_submitted ON public.responses (submitted_at, id);
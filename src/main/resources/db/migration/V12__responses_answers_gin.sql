@@ -0,0 +1,10 @@
+-- ============================================================
+-- V12__responses_answers_gin.sql
+-- GIN index for answer filters (answers_json @@ jsonpath / @> containment).
+-- jsonb_path_ops indexes hashed value paths only: smaller and faster than
+-- the default opclass, and enough for the operators the filters use.
+-- Created on the partitioned parent, so every partition gets its own index.
+-- ============================================================
+
+CREATE INDEX IF NOT EXISTS idx_responses_answers_gin
+    ON public.responses USING gin (answers_json jsonb_path_ops);
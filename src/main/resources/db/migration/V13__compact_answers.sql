@@ -0,0 +1,70 @@
+-- ============================================================
+-- V13__compact_answers.sql
+-- Opt-in compact answer encoding (app.answers.encoding=compact).
+--
+-- A compact answers_json is a JSON array indexed by question position in
+-- an immutable snapshot of the survey definition (survey_schemas), instead
+-- of an object keyed by question UUID:
+--   - SINGLE_CHOICE: option ordinal
+--   - MULTI_CHOICE:  bitset of option ordinals (number), or an array of
+--                    ordinals when order or duplicates must be kept
+--   - TEXT, NUMBER:  the value itself
+--   - unanswered:    null (trailing nulls are omitted)
+-- responses.schema_version names the snapshot; NULL means the keyed format.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS public.survey_schemas (
+                                                     survey_id  uuid        NOT NULL REFERENCES public.surveys(id) ON DELETE CASCADE,
+                                                     version    bigint      NOT NULL, -- surveys.definition_version at snapshot time
+                                                     tenant_id  uuid        NOT NULL,
+                                                     questions  jsonb       NOT NULL, -- [{id, type, options:[value...]}] in position order
+                                                     created_at timestamptz NOT NULL DEFAULT now(),
+                                                     PRIMARY KEY (survey_id, version)
+);
+
+ALTER TABLE public.responses ADD COLUMN IF NOT EXISTS schema_version bigint;
+
+-- Lets answer filters reach compact rows (which the GIN index cannot serve) without scanning keyed ones
+CREATE INDEX IF NOT EXISTS idx_responses_compact
+    ON public.responses (tenant_id, survey_id) WHERE schema_version IS NOT NULL;
+
+-- Decodes a compact answers array against a schema snapshot into the keyed object form
+CREATE OR REPLACE FUNCTION public.decode_answers(answers jsonb, questions jsonb)
+    RETURNS jsonb
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE AS
+$$
+SELECT coalesce(jsonb_object_agg(
+           q.def ->> 'id',
+           CASE
+               WHEN q.def ->> 'type' = 'SINGLE_CHOICE' AND jsonb_typeof(a.v) = 'number'
+                   THEN q.def -> 'options' -> (a.v::int)
+               WHEN q.def ->> 'type' = 'MULTI_CHOICE' AND jsonb_typeof(a.v) = 'number'
+                   THEN (SELECT coalesce(jsonb_agg(q.def -> 'options' -> k ORDER BY k), '[]'::jsonb)
+                         FROM generate_series(0, jsonb_array_length(q.def -> 'options') - 1) AS k
+                         WHERE (a.v::bigint >> k) & 1 = 1)
+               WHEN q.def ->> 'type' = 'MULTI_CHOICE' AND jsonb_typeof(a.v) = 'array'
+                   THEN (SELECT coalesce(jsonb_agg(q.def -> 'options' -> (o.v::int) ORDER BY o.i), '[]'::jsonb)
+                         FROM jsonb_array_elements(a.v) WITH ORDINALITY AS o(v, i))
+               ELSE a.v
+           END), '{}'::jsonb)
+FROM jsonb_array_elements(answers) WITH ORDINALITY AS a(v, i)
+JOIN jsonb_array_elements(questions) WITH ORDINALITY AS q(def, i) ON q.i = a.i
+WHERE jsonb_typeof(a.v) <> 'null'
+$$;
+
+-- The keyed answers of a response, whichever format it is stored in
+CREATE OR REPLACE FUNCTION public.decode_response_answers(answers jsonb, p_survey_id uuid, p_schema_version bigint)
+    RETURNS jsonb
+    LANGUAGE sql STABLE PARALLEL SAFE AS
+$$
+SELECT CASE
+           WHEN p_schema_version IS NULL OR jsonb_typeof(answers) <> 'array' THEN answers
+           ELSE public.decode_answers(answers, (SELECT s.questions FROM public.survey_schemas s
+                                                WHERE s.survey_id = p_survey_id AND s.version = p_schema_version))
+       END
+$$;
+
+-- Position of the offline re-encoding job (AnswerReencoder)
+INSERT INTO public.projection_checkpoints (name, position_at, position_id)
+VALUES ('answers_reencode', '-infinity', '00000000-0000-0000-0000-000000000000')
+ON CONFLICT (name) DO NOTHING;
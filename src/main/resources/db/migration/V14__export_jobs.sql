@@ -0,0 +1,23 @@
+-- ============================================================
+-- V14__export_jobs.sql
+-- Asynchronous export jobs; result files live in the local spool
+-- directory of the node that ran them (app.exports.spool-dir).
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS public.export_jobs (
+                                                  id          uuid        PRIMARY KEY,
+                                                  tenant_id   uuid        NOT NULL REFERENCES public.tenants(id) ON DELETE CASCADE,
+                                                  survey_id   uuid        NOT NULL REFERENCES public.surveys(id) ON DELETE CASCADE,
+                                                  format      text        NOT NULL,           -- csv | json
+                                                  filter      text,                           -- answer filter expression, if any
+                                                  status      text        NOT NULL,           -- QUEUED | RUNNING | DONE | FAILED
+                                                  size_bytes  bigint,
+                                                  error       text,
+                                                  created_at  timestamptz NOT NULL DEFAULT now(),
+                                                  started_at  timestamptz,
+                                                  finished_at timestamptz,
+                                                  expires_at  timestamptz
+);
+
+-- Per-tenant quota on active jobs
+CREATE INDEX IF NOT EXISTS idx_export_jobs_tenant_status ON public.export_jobs (tenant_id, status);
@@ -0,0 +1,22 @@
+-- ============================================================
+-- V15__outbox_leases.sql
+-- Outbox events are claimed with a lease instead of a held row lock,
+-- and events that keep failing are parked as dead letters.
+-- ============================================================
+
+-- Set when a dispatcher claims the event; settling requires the same lease
+ALTER TABLE public.outbox_events ADD COLUMN IF NOT EXISTS lease_id uuid;
+
+-- Events that failed app.outbox.max-attempts times; inspect and re-insert into outbox_events to retry
+CREATE TABLE IF NOT EXISTS public.outbox_dead_letters (
+    id          uuid        PRIMARY KEY,
+    tenant_id   uuid        NOT NULL,
+    event_type  text        NOT NULL,
+    payload     jsonb       NOT NULL,
+    created_at  timestamptz NOT NULL,
+    attempts    int         NOT NULL,
+    last_error  text,
+    dead_at     timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_dead_letters_tenant ON public.outbox_dead_letters (tenant_id, dead_at);
@@ -0,0 +1,45 @@
+-- ============================================================
+-- V16__responses_default_partition_move.sql
+-- Creating a month fails while responses_default holds rows of that month
+-- (e.g. back- or future-dated imports). create_responses_month_partition()
+-- now moves those rows out of the default partition, creates the month
+-- and puts them back, all in the caller's transaction.
+-- ============================================================
+
+CREATE OR REPLACE FUNCTION public.create_responses_month_partition(p_month date, p_modulus int DEFAULT 8)
+    RETURNS void
+    LANGUAGE plpgsql AS $$
+DECLARE
+    m_start date        := date_trunc('month', p_month)::date;
+    m_name  text        := 'responses_y' || to_char(m_start, 'YYYY') || 'm' || to_char(m_start, 'MM');
+    m_from  timestamptz := m_start::timestamp AT TIME ZONE 'UTC';
+    m_to    timestamptz := (m_start + interval '1 month')::timestamp AT TIME ZONE 'UTC';
+    parked  bigint;
+    i       int;
+BEGIN
+    IF to_regclass('public.' || m_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    CREATE TEMP TABLE responses_month_parked (LIKE public.responses) ON COMMIT DROP;
+    WITH moved AS (
+        DELETE FROM public.responses_default
+        WHERE submitted_at >= m_from AND submitted_at < m_to
+        RETURNING *
+    )
+    INSERT INTO responses_month_parked SELECT * FROM moved;
+    GET DIAGNOSTICS parked = ROW_COUNT;
+
+    EXECUTE format('CREATE TABLE public.%I PARTITION OF public.responses FOR VALUES FROM (%L) TO (%L) PARTITION BY HASH (tenant_id)',
+                   m_name, m_from, m_to);
+    FOR i IN 0 .. p_modulus - 1 LOOP
+        EXECUTE format('CREATE TABLE public.%I PARTITION OF public.%I FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                       m_name || '_h' || i, m_name, p_modulus, i);
+    END LOOP;
+
+    IF parked > 0 THEN
+        INSERT INTO public.responses SELECT * FROM responses_month_parked;
+        RAISE NOTICE 'Moved % rows of % out of responses_default', parked, m_name;
+    END IF;
+    DROP TABLE responses_month_parked;
+END$$;
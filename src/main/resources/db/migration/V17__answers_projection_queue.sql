@@ -0,0 +1,52 @@
+-- ============================================================
+-- V17__answers_projection_queue.sql
+-- AnswerProjector used to tail responses by submitted_at, which is set
+-- when the row is built, not when it commits: a transaction that
+-- committed after the projector had passed its timestamp (or a
+-- back-dated COPY import) was never projected.
+--
+-- Every inserted response is now queued by a trigger in the inserting
+-- transaction, so it becomes visible to the projector exactly when it
+-- commits. The projector deletes queue rows in the same transaction
+-- that writes their answers.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS public.answers_projection_queue (
+    response_id  uuid        NOT NULL,
+    submitted_at timestamptz NOT NULL,
+    tenant_id    uuid        NOT NULL,
+    queued_at    timestamptz NOT NULL DEFAULT now(),
+    -- The responses key, so a queued row finds its response in one partition
+    PRIMARY KEY (response_id, submitted_at, tenant_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_answers_projection_queue_queued
+    ON public.answers_projection_queue (queued_at);
+
+-- Statement-level with a transition table: one INSERT ... SELECT per statement, also for COPY imports
+CREATE OR REPLACE FUNCTION public.enqueue_answers_projection()
+    RETURNS trigger
+    LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO public.answers_projection_queue (response_id, submitted_at, tenant_id)
+    SELECT id, submitted_at, tenant_id FROM inserted
+    ON CONFLICT DO NOTHING;
+    RETURN NULL;
+END$$;
+
+DROP TRIGGER IF EXISTS trg_responses_enqueue_answers ON public.responses;
+CREATE TRIGGER trg_responses_enqueue_answers
+    AFTER INSERT ON public.responses
+    REFERENCING NEW TABLE AS inserted
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION public.enqueue_answers_projection();
+
+-- Responses the old projector has not reached or has skipped. The trigger above already
+-- holds writers off responses until this migration commits, so nothing slips in between.
+INSERT INTO public.answers_projection_queue (response_id, submitted_at, tenant_id)
+SELECT r.id, r.submitted_at, r.tenant_id
+FROM public.responses r
+WHERE NOT EXISTS (SELECT 1 FROM public.answers a WHERE a.response_id = r.id)
+ON CONFLICT DO NOTHING;
+
+DELETE FROM public.projection_checkpoints WHERE name = 'answers';
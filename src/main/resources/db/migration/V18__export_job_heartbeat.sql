@@ -0,0 +1,9 @@
+-- ============================================================
+-- V18__export_job_heartbeat.sql
+-- Queued export jobs live in the in-memory queue of the node that
+-- accepted them. That node refreshes heartbeat_at of its queued jobs on
+-- every cleanup tick, so the stale-job sweep only fails queued jobs
+-- whose node has stopped, never ones that are merely waiting.
+-- ============================================================
+
+ALTER TABLE public.export_jobs ADD COLUMN IF NOT EXISTS heartbeat_at timestamptz;
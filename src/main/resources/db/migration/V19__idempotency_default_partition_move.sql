@@ -0,0 +1,41 @@
+-- ============================================================
+-- V19__idempotency_default_partition_move.sql
+-- Creating a day of idempotency_keys fails while idempotency_keys_default
+-- holds rows of that day (claims made before the maintainer created it).
+-- create_idempotency_day_partition() moves those rows out of the default
+-- partition, creates the day and puts them back, all in the caller's
+-- transaction, like create_responses_month_partition() (V16).
+-- ============================================================
+
+CREATE OR REPLACE FUNCTION public.create_idempotency_day_partition(p_day date)
+    RETURNS void
+    LANGUAGE plpgsql AS $$
+DECLARE
+    d_name text := 'idempotency_keys_p' || to_char(p_day, 'YYYYMMDD');
+    parked bigint;
+BEGIN
+    IF to_regclass('public.' || d_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    -- No claim may land in the default partition between the move and the CREATE
+    LOCK TABLE public.idempotency_keys_default IN EXCLUSIVE MODE;
+
+    CREATE TEMP TABLE idempotency_day_parked (LIKE public.idempotency_keys) ON COMMIT DROP;
+    WITH moved AS (
+        DELETE FROM public.idempotency_keys_default
+        WHERE created_day = p_day
+        RETURNING *
+    )
+    INSERT INTO idempotency_day_parked SELECT * FROM moved;
+    GET DIAGNOSTICS parked = ROW_COUNT;
+
+    EXECUTE format('CREATE TABLE public.%I PARTITION OF public.idempotency_keys FOR VALUES FROM (%L) TO (%L)',
+                   d_name, p_day, p_day + 1);
+
+    IF parked > 0 THEN
+        INSERT INTO public.idempotency_keys SELECT * FROM idempotency_day_parked;
+        RAISE NOTICE 'Moved % rows of % out of idempotency_keys_default', parked, d_name;
+    END IF;
+    DROP TABLE idempotency_day_parked;
+END$$;
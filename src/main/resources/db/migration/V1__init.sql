@@ -26,8 +26,8 @@ CREATE TABLE surveys (
                          status TEXT NOT NULL DEFAULT 'DRAFT', -- DRAFT | ACTIVE
                          created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
                          updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
-                         startsAt TIMESTAMPTZ,
-                         endsAt TIMESTAMPTZ,
+                         starts_at TIMESTAMPTZ,
+                         ends_at TIMESTAMPTZ
 );
 CREATE INDEX idx_surveys_tenant ON surveys(tenant_id);
 CREATE INDEX idx_surveys_status ON surveys(status);
@@ -83,6 +83,3 @@ CREATE TABLE responses (
                            submitted_at TIMESTAMPTZ NOT NULL DEFAULT now()
 );
 CREATE INDEX idx_responses_tenant_survey ON responses(tenant_id, survey_id);
-
-CREATE INDEX idx_answers_tenant_response ON answers(tenant_id, response_id);
-CREATE INDEX idx_answers_question ON answers(question_id);
\ No newline at end of file
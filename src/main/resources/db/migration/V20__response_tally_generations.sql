@@ -0,0 +1,46 @@
+-- ============================================================
+-- V20__response_tally_generations.sql
+-- A rebuild of response_tallies must keep or drop every submission as a
+-- whole, including deltas still pending in the memory of other nodes.
+-- Each survey gets a tally generation: a submission reads it inside its
+-- own transaction, its counts are tagged with it, and a flush only adds
+-- deltas of the current generation. A rebuild bumps the generation under
+-- an exclusive lock that every submission and flush takes in shared mode,
+-- so each submission either committed before the rebuild (and is in the
+-- recomputed rows) or reads the new generation (and is added by a flush).
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS public.response_tally_generations (
+    tenant_id  uuid   NOT NULL,
+    survey_id  uuid   NOT NULL,
+    generation bigint NOT NULL DEFAULT 0,
+    PRIMARY KEY (tenant_id, survey_id)
+);
+
+-- Returns the current generation of a survey's tallies (0 before the first rebuild) and holds the
+-- survey's tally lock in shared mode until the caller's transaction ends. VOLATILE, so the read
+-- takes a fresh snapshot after the lock and sees a rebuild that committed while we waited.
+CREATE OR REPLACE FUNCTION public.response_tally_generation(p_tenant uuid, p_survey uuid)
+    RETURNS bigint
+    LANGUAGE plpgsql VOLATILE AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock_shared(hashtext('response_tallies:' || p_survey));
+    RETURN coalesce((SELECT generation FROM public.response_tally_generations
+                     WHERE tenant_id = p_tenant AND survey_id = p_survey), 0);
+END$$;
+
+-- Takes the survey's tally lock exclusively and moves its tallies to the next generation;
+-- returns the new generation. Call at the start of the rebuild transaction.
+CREATE OR REPLACE FUNCTION public.next_response_tally_generation(p_tenant uuid, p_survey uuid)
+    RETURNS bigint
+    LANGUAGE plpgsql VOLATILE AS $$
+DECLARE
+    bumped bigint;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('response_tallies:' || p_survey));
+    INSERT INTO public.response_tally_generations AS g (tenant_id, survey_id, generation)
+    VALUES (p_tenant, p_survey, 1)
+    ON CONFLICT (tenant_id, survey_id) DO UPDATE SET generation = g.generation + 1
+    RETURNING generation INTO bumped;
+    RETURN bumped;
+END$$;
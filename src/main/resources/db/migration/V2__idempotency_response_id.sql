@@ -16,7 +16,7 @@ BEGIN
     AND    conrelid = 'public.idempotency_keys'::regclass
   ) THEN
 ALTER TABLE public.idempotency_keys
-    ADD CONSTRAINT idempotency_keys_pkey PRIMARY KEY (tenant_id, key);
+    ADD CONSTRAINT idempotency_keys_pkey PRIMARY KEY (tenant_id, idem_key);
 END IF;
 END$$;
 
@@ -0,0 +1,11 @@
+-- ============================================================
+-- V4__idempotency_unique_key.sql
+-- Unique (tenant_id, idem_key) so claims can use INSERT ... ON CONFLICT
+-- ============================================================
+
+-- Surrogate id mapped by IdempotencyKey and written by the claim statements
+ALTER TABLE public.idempotency_keys
+    ADD COLUMN IF NOT EXISTS id uuid NOT NULL DEFAULT uuid_generate_v4();
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_idem_tenant_key
+    ON public.idempotency_keys (tenant_id, idem_key);
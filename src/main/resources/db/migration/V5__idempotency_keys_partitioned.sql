@@ -0,0 +1,52 @@
+-- ============================================================
+-- V5__idempotency_keys_partitioned.sql
+-- Move idempotency keys to daily range partitions on created_day (UTC)
+-- so expired days can be dropped as whole partitions.
+-- Partitions beyond the ones created here are maintained by
+-- IdempotencyPartitionMaintainer (app.idempotency.*).
+-- ============================================================
+
+ALTER TABLE public.idempotency_keys RENAME TO idempotency_keys_legacy;
+DROP INDEX IF EXISTS public.uq_idem_tenant_key;
+
+CREATE TABLE public.idempotency_keys (
+                                         id               uuid   NOT NULL,
+                                         tenant_id        uuid   NOT NULL,
+                                         idem_key         text   NOT NULL,
+                                         response_id      uuid,
+                                         created_at_epoch bigint NOT NULL,
+                                         created_day      date   NOT NULL,
+                                         PRIMARY KEY (id, created_day)
+) PARTITION BY RANGE (created_day);
+
+-- Unique per day: claims arbitrate on today's partition, earlier days are looked up first
+CREATE UNIQUE INDEX uq_idem_tenant_key
+    ON public.idempotency_keys (tenant_id, idem_key, created_day);
+
+-- Safety net for days the maintainer has not created yet
+CREATE TABLE public.idempotency_keys_default PARTITION OF public.idempotency_keys DEFAULT;
+
+-- Days are UTC like created_day, whatever the session time zone is
+DO $$
+DECLARE
+    today date := (now() AT TIME ZONE 'UTC')::date;
+    d     date;
+BEGIN
+    FOR d IN SELECT generate_series(today - 7, today + 2, interval '1 day')::date LOOP
+        EXECUTE format('CREATE TABLE public.%I PARTITION OF public.idempotency_keys FOR VALUES FROM (%L) TO (%L)',
+                       'idempotency_keys_p' || to_char(d, 'YYYYMMDD'), d, d + 1);
+    END LOOP;
+END$$;
+
+-- Carry over keys from the default 7-day window; older keys are already expired
+INSERT INTO public.idempotency_keys (id, tenant_id, idem_key, response_id, created_at_epoch, created_day)
+SELECT uuid_generate_v4(),
+       tenant_id,
+       idem_key,
+       response_id,
+       created_at_epoch,
+       (to_timestamp(created_at_epoch / 1000.0) AT TIME ZONE 'UTC')::date
+FROM public.idempotency_keys_legacy
+WHERE created_at_epoch >= extract(epoch FROM ((now() AT TIME ZONE 'UTC')::date - 7)::timestamp) * 1000;
+
+DROP TABLE public.idempotency_keys_legacy;
@@ -0,0 +1,15 @@
+-- ============================================================
+-- V6__seek_pagination_indexes.sql
+-- Composite indexes backing keyset (seek) pagination, newest first
+-- ============================================================
+
+-- Responses: (tenant_id, survey_id, submitted_at, id); supersedes idx_responses_tenant_survey
+CREATE INDEX IF NOT EXISTS idx_responses_tenant_survey_seek
+    ON public.responses (tenant_id, survey_id, submitted_at DESC, id DESC);
+DROP INDEX IF EXISTS public.idx_responses_tenant_survey;
+
+-- Surveys: (tenant_id, created_at, id), with and without the status filter
+CREATE INDEX IF NOT EXISTS idx_surveys_tenant_seek
+    ON public.surveys (tenant_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_surveys_tenant_status_seek
+    ON public.surveys (tenant_id, status, created_at DESC, id DESC);
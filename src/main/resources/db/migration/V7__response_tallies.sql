@@ -0,0 +1,16 @@
+-- Pre-aggregated answer counts per (survey, question, bucket), maintained incrementally by the
+-- results subsystem. bucket is the chosen option value for choice questions and '' otherwise;
+-- the row with question_id = 00000000-0000-0000-0000-000000000000 counts responses per survey.
+CREATE TABLE IF NOT EXISTS public.response_tallies (
+    tenant_id     uuid             NOT NULL,
+    survey_id     uuid             NOT NULL,
+    question_id   uuid             NOT NULL,
+    bucket        text             NOT NULL,
+    answer_count  bigint           NOT NULL DEFAULT 0,
+    numeric_count bigint           NOT NULL DEFAULT 0,
+    num_sum       double precision NOT NULL DEFAULT 0,
+    num_min       double precision,
+    num_max       double precision,
+    updated_at    timestamptz      NOT NULL DEFAULT now(),
+    PRIMARY KEY (tenant_id, survey_id, question_id, bucket)
+);
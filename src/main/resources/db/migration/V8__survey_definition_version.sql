@@ -0,0 +1,3 @@
+-- Monotonic version of a survey's definition (survey fields, questions, options).
+-- Bumped by every write so clients can revalidate cached definitions with ETags.
+ALTER TABLE public.surveys ADD COLUMN IF NOT EXISTS definition_version bigint NOT NULL DEFAULT 1;
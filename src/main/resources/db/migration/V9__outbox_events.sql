@@ -0,0 +1,15 @@
+-- Transactional outbox: domain events are inserted in the transaction that produced them and
+-- delivered afterwards by OutboxDispatcher (at least once).
+CREATE TABLE IF NOT EXISTS public.outbox_events (
+    id              uuid        PRIMARY KEY,
+    tenant_id       uuid        NOT NULL,
+    event_type      text        NOT NULL,
+    payload         jsonb       NOT NULL,
+    created_at      timestamptz NOT NULL DEFAULT now(),
+    attempts        int         NOT NULL DEFAULT 0,
+    next_attempt_at timestamptz NOT NULL DEFAULT now(),
+    last_error      text
+);
+
+-- Pending events in due order; delivered events are deleted.
+CREATE INDEX IF NOT EXISTS idx_outbox_events_due ON public.outbox_events (next_attempt_at);
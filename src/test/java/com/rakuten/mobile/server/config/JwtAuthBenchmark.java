@@ -0,0 +1,162 @@
+package com.rakuten.mobile.server.config;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.rakuten.mobile.server.support.Benchmarks;
+import com.rakuten.mobile.server.tenancy.TenantContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link JwtAuthFilter} for a client that sends the same token on every
+ * request: a cache hit against the filter as it was before, which built a new verifier for each
+ * request and verified every token. Both run a whole filter, including the tenant check and
+ * setting the security context.
+ *
+ * A cache miss is the hit plus one verification; the verification is measured on its own, with the
+ * prebuilt verifier and with one built per request.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthBenchmark {
+
+    private static final String SECRET = "benchmark-secret";
+    private static final String ISSUER = "survey-app";
+
+    private final FilterChain chain = (req, res) -> { };
+
+    private JwtAuthFilter cached;
+    private JWTVerifier verifier;
+    private PreviousJwtAuthFilter previous;
+    private Algorithm alg;
+    private String token;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Test
+    void run() throws RunnerException {
+        Benchmarks.run(JwtAuthBenchmark.class);
+    }
+
+    @Setup
+    public void setUp() throws ServletException, IOException {
+        String tenant = UUID.randomUUID().toString();
+        alg = Algorithm.HMAC256(SECRET);
+        token = JWT.create()
+                .withIssuer(ISSUER)
+                .withSubject("user-1")
+                .withClaim("tenant", tenant)
+                .withArrayClaim("roles", new String[]{"ADMIN"})
+                .withExpiresAt(Instant.now().plus(1, ChronoUnit.DAYS))
+                .sign(alg);
+        cached = new JwtAuthFilter(SECRET, ISSUER, 10_000, 3600);
+        verifier = JWT.require(alg).withIssuer(ISSUER).build();
+        previous = new PreviousJwtAuthFilter(alg, ISSUER);
+
+        request = new MockHttpServletRequest("GET", "/api/surveys");
+        request.addHeader("Authorization", "Bearer " + token);
+        request.addHeader("X-Tenant-Id", tenant);
+        response = new MockHttpServletResponse();
+        cached.doFilter(request, response, chain);
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException("Token rejected: " + response.getStatus());
+        }
+    }
+
+    /** The common case: the token was verified by an earlier request. */
+    @Benchmark
+    public MockHttpServletResponse cachedToken() throws ServletException, IOException {
+        cached.doFilter(request, response, chain);
+        return response;
+    }
+
+    /** What a token seen for the first time costs on top of a hit: verification with the prebuilt verifier. */
+    @Benchmark
+    public DecodedJWT prebuiltVerifier() {
+        return verifier.verify(token);
+    }
+
+    /** The same verification with a verifier built for the request, as the filter did before. */
+    @Benchmark
+    public DecodedJWT rebuiltVerifier() {
+        return JWT.require(alg).withIssuer(ISSUER).build().verify(token);
+    }
+
+    /** The filter as it was before: a new verifier per request, then full verification. */
+    @Benchmark
+    public MockHttpServletResponse previousFilter() throws ServletException, IOException {
+        previous.doFilter(request, response, chain);
+        return response;
+    }
+
+    /** JwtAuthFilter before verified tokens were cached, for comparison only. */
+    private static final class PreviousJwtAuthFilter extends OncePerRequestFilter {
+
+        private final Algorithm alg;
+        private final String issuer;
+
+        PreviousJwtAuthFilter(Algorithm alg, String issuer) {
+            this.alg = alg;
+            this.issuer = issuer;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+                throws ServletException, IOException {
+            String auth = req.getHeader("Authorization");
+            try {
+                if (auth != null && auth.startsWith("Bearer ")) {
+                    DecodedJWT jwt = JWT.require(alg).withIssuer(issuer).build().verify(auth.substring(7));
+                    String tenant = jwt.getClaim("tenant").asString();
+                    if (!Objects.equals(tenant, req.getHeader("X-Tenant-Id"))) {
+                        res.sendError(HttpServletResponse.SC_FORBIDDEN, "Tenant mismatch");
+                        return;
+                    }
+                    var roles = Optional.ofNullable(jwt.getClaim("roles").asList(String.class)).orElse(List.of());
+                    var authorities = roles.stream().map(r -> new SimpleGrantedAuthority("ROLE_" + r)).toList();
+                    SecurityContextHolder.getContext().setAuthentication(
+                            new UsernamePasswordAuthenticationToken(jwt.getSubject(), null, authorities));
+                    TenantContext.set(tenant);
+                }
+                chain.doFilter(req, res);
+            } catch (Exception e) {
+                SecurityContextHolder.clearContext();
+                TenantContext.clear();
+                res.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired token");
+            } finally {
+                TenantContext.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.rakuten.mobile.server.config;
+
+import com.rakuten.mobile.server.domain.Survey;
+import com.rakuten.mobile.server.repo.ResponseCopyRepository;
+import com.rakuten.mobile.server.repo.SurveyRepository;
+import com.rakuten.mobile.server.service.SurveyService;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import com.rakuten.mobile.server.support.TestDatabases;
+import com.rakuten.mobile.server.tenancy.TenantContext;
+import com.rakuten.mobile.server.web.dto.CreateSurveyReq;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs with a second, separately migrated database as the "replica". It does not replicate
+ * anything, so a row seeded only there shows which database a read went to. Being a primary
+ * itself, it reports its own WAL position as replayed, which is the primary's too.
+ */
+@PostgresTest
+class ReadReplicaRoutingTest {
+
+    private static final String REPLICA = "survey_it_replica";
+
+    @DynamicPropertySource
+    static void replica(DynamicPropertyRegistry registry) {
+        registry.add("app.datasource.replicas.enabled", () -> "true");
+        registry.add("app.datasource.replicas.urls", ReadReplicaRoutingTest::replicaUrl);
+        registry.add("app.datasource.replicas.username", TestDatabases::username);
+        registry.add("app.datasource.replicas.password", TestDatabases::password);
+    }
+
+    @Autowired SurveyService surveys;
+    @Autowired SurveyRepository repo;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired ResponseCopyRepository copies;
+    @Autowired ReplicaDataSource replicas;
+
+    private JdbcTemplate replicaJdbc;
+    private UUID tenantId;
+    private UUID replicaOnlySurvey;
+
+    @BeforeEach
+    void seed() {
+        replicaJdbc = new JdbcTemplate(new DriverManagerDataSource(replicaUrl(), TestDatabases.username(), TestDatabases.password()));
+        tenantId = TestData.tenant(jdbc);
+        replicaJdbc.update("INSERT INTO tenants (id, name) VALUES (?, ?)", tenantId, "tenant-" + tenantId);
+        replicaOnlySurvey = TestData.survey(replicaJdbc, tenantId, "ACTIVE");
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertTrue(surveys.get(replicaOnlySurvey).isPresent());
+    }
+
+    @Test
+    void readWriteTransactionsStayOnThePrimary() {
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+
+        assertFalse(tx.execute(status -> repo.findById(replicaOnlySurvey)).isPresent());
+    }
+
+    @Test
+    void tenantReadsItsOwnWritesFromThePrimary() {
+        TenantContext.set(tenantId.toString());
+
+        Survey created = surveys.create(new CreateSurveyReq("fresh", null, null));
+
+        assertTrue(surveys.get(created.getId()).isPresent());
+        assertFalse(surveys.get(replicaOnlySurvey).isPresent());
+    }
+
+    @Test
+    void tenantReadsItsImportFromThePrimary() {
+        TenantContext.set(tenantId.toString());
+        UUID target = TestData.survey(jdbc, tenantId, "ACTIVE");
+        String csv = ResponseCopyRepository.CSV_COLUMNS + "\n," + UUID.randomUUID() + ",,{}\n";
+
+        copies.copyIn(tenantId, target, false, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertFalse(surveys.get(replicaOnlySurvey).isPresent());
+    }
+
+    @Test
+    void writeInARequestHandsOutAConsistencyToken() {
+        TenantContext.set(tenantId.toString());
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), res));
+
+        surveys.create(new CreateSurveyReq("fresh", null, null));
+
+        String token = res.getHeader(ReadYourWritesTracker.TOKEN_HEADER);
+        assertNotNull(token);
+        assertTrue(ReadYourWritesTracker.parseLsn(token) > 0);
+    }
+
+    @Test
+    void tokenFromAnotherNodeReadsFromTheReplicaOnlyOnceReplayed() {
+        String written = jdbc.queryForObject("SELECT pg_current_wal_insert_lsn()::text", String.class);
+        long ahead = ReadYourWritesTracker.parseLsn(written) + 0x1000000;
+
+        // Not written on this node, so only the token keeps the read off the replica
+        requestWithToken(Long.toHexString(ahead >>> 32) + "/" + Long.toHexString(ahead & 0xFFFFFFFFL));
+        assertFalse(surveys.get(replicaOnlySurvey).isPresent());
+
+        replicas.refreshLag();
+        requestWithToken(written);
+        assertTrue(surveys.get(replicaOnlySurvey).isPresent());
+    }
+
+    private static void requestWithToken(String token) {
+        MockHttpServletRequest req = new MockHttpServletRequest();
+        req.addHeader(ReadYourWritesTracker.TOKEN_HEADER, token);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(req, new MockHttpServletResponse()));
+    }
+
+    /** The replica database, created and migrated on first use. */
+    private static synchronized String replicaUrl() {
+        String url = TestDatabases.url(REPLICA);
+        Flyway.configure().dataSource(url, TestDatabases.username(), TestDatabases.password()).load().migrate();
+        return url;
+    }
+}
@@ -0,0 +1,99 @@
+package com.rakuten.mobile.server.export;
+
+import com.rakuten.mobile.server.domain.ExportJob;
+import com.rakuten.mobile.server.repo.ExportJobRepository;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@PostgresTest
+class ExportJobServiceTest {
+
+    @Autowired ExportJobService exports;
+    @Autowired ExportJobRepository jobs;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager txManager;
+
+    private UUID tenantId;
+    private UUID surveyId;
+
+    @BeforeEach
+    void seed() {
+        tenantId = TestData.tenant(jdbc);
+        surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+    }
+
+    @Test
+    void runningJobIsJudgedByItsStartTime() {
+        Instant now = Instant.now();
+        UUID longQueuedJustStarted = job(ExportJob.RUNNING, now.minus(Duration.ofHours(3)), now.minus(Duration.ofMinutes(5)), null);
+        UUID runningTooLong = job(ExportJob.RUNNING, now.minus(Duration.ofHours(3)), now.minus(Duration.ofHours(2)), null);
+
+        exports.cleanup();
+
+        assertEquals(ExportJob.RUNNING, status(longQueuedJustStarted));
+        assertEquals(ExportJob.FAILED, status(runningTooLong));
+    }
+
+    @Test
+    void queuedJobIsFailedOnlyOnceItsNodeStopsRefreshingIt() {
+        Instant now = Instant.now();
+        UUID waiting = job(ExportJob.QUEUED, now.minus(Duration.ofHours(3)), null, now.minus(Duration.ofMinutes(5)));
+        UUID orphaned = job(ExportJob.QUEUED, now.minus(Duration.ofHours(3)), null, now.minus(Duration.ofHours(1)));
+        UUID neverRefreshed = job(ExportJob.QUEUED, now.minus(Duration.ofHours(3)), null, null);
+
+        exports.cleanup();
+
+        assertEquals(ExportJob.QUEUED, status(waiting));
+        assertEquals(ExportJob.FAILED, status(orphaned));
+        assertEquals(ExportJob.FAILED, status(neverRefreshed));
+    }
+
+    @Test
+    void finishingDoesNotOverwriteAFailedJob() {
+        Instant now = Instant.now();
+        UUID id = job(ExportJob.FAILED, now, now, null);
+
+        int updated = new TransactionTemplate(txManager).execute(s ->
+                jobs.finish(id, ExportJob.RUNNING, ExportJob.DONE, 42L, null, now, now));
+
+        assertEquals(0, updated);
+        assertEquals(ExportJob.FAILED, status(id));
+    }
+
+    @Test
+    void failedQueuedJobIsNotStarted() {
+        UUID id = job(ExportJob.FAILED, Instant.now(), null, null);
+
+        int started = new TransactionTemplate(txManager).execute(s -> jobs.start(id, Instant.now()));
+
+        assertEquals(0, started);
+        assertEquals(ExportJob.FAILED, status(id));
+    }
+
+    private UUID job(String status, Instant createdAt, Instant startedAt, Instant heartbeatAt) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("INSERT INTO export_jobs (id, tenant_id, survey_id, format, status, created_at, started_at, heartbeat_at)"
+                        + " VALUES (?, ?, ?, 'csv', ?, ?, ?, ?)",
+                id, tenantId, surveyId, status, Timestamp.from(createdAt),
+                startedAt == null ? null : Timestamp.from(startedAt),
+                heartbeatAt == null ? null : Timestamp.from(heartbeatAt));
+        return id;
+    }
+
+    private String status(UUID id) {
+        return jdbc.queryForObject("SELECT status FROM export_jobs WHERE id = ?", String.class, id);
+    }
+}
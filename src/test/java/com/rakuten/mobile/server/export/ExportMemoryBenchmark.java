@@ -0,0 +1,181 @@
+package com.rakuten.mobile.server.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakuten.mobile.server.domain.Response;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Live heap of a survey export by row count: the streamed export ({@link ResponseExportWriter},
+ * CSV and JSON) against the export as it was before, which loaded every {@link Response} with its
+ * answers map and then a list of maps for JSON.
+ *
+ * Live heap is the largest heap occupancy left after any garbage collection during the export,
+ * minus the occupancy after a full collection just before it. A full collection is also forced
+ * after every 8 MB of output, so each export is sampled mid-way whatever the collector does. Each
+ * response answers 10 questions. The materialized export is only run while it fits in the heap.
+ */
+@Slf4j
+@Tag("benchmark")
+@PostgresTest
+@TestPropertySource(properties = "app.answers.projector.enabled=false")
+class ExportMemoryBenchmark {
+
+    private static final int[] ROWS = {10_000, 100_000, 1_000_000};
+    private static final int MATERIALIZED_MAX_ROWS = 100_000;
+    private static final int QUESTIONS = 10;
+    private static final long GC_EVERY_BYTES = 8L << 20;
+
+    @Autowired ResponseExportWriter exporter;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired ObjectMapper om;
+
+    @Test
+    void liveHeapByRowCount() throws IOException {
+        UUID tenantId = TestData.tenant(jdbc);
+        UUID surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        List<String> questions = new ArrayList<>();
+        for (int q = 0; q < QUESTIONS; q++) {
+            questions.add(TestData.question(jdbc, tenantId, surveyId, "TEXT", q + 1).toString());
+        }
+
+        int seeded = 0;
+        for (int rows : ROWS) {
+            seed(tenantId, surveyId, questions, seeded, rows);
+            seeded = rows;
+            String csv = measure(out -> exporter.write(surveyId, ResponseExportWriter.CSV, null, out));
+            String json = measure(out -> exporter.write(surveyId, ResponseExportWriter.JSON, null, out));
+            String materialized = rows > MATERIALIZED_MAX_ROWS ? "not run"
+                    : measure(out -> writeMaterialized(surveyId, out));
+            log.info("{} rows: streamed CSV {}, streamed JSON {}, materialized JSON {}", rows, csv, json, materialized);
+        }
+    }
+
+    /** The export before streaming: every entity with its answers map, then a list of maps written at once. */
+    private void writeMaterialized(UUID surveyId, OutputStream out) {
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            List<Response> rs = em.createQuery("select r from Response r where r.surveyId = :surveyId", Response.class)
+                    .setParameter("surveyId", surveyId).getResultList();
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Response r : rs) {
+                rows.add(Map.of("responseId", r.getId(), "submittedAt", r.getSubmittedAt(),
+                        "respondentId", r.getRespondentId(), "answers", r.getAnswersJson()));
+            }
+            try {
+                om.writeValue(out, rows);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            em.clear();
+        });
+    }
+
+    private static String measure(Export export) throws IOException {
+        Set<String> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == MemoryType.HEAP).map(MemoryPoolMXBean::getName).collect(Collectors.toSet());
+        System.gc();
+        long baseline = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(baseline);
+        NotificationListener listener = (notification, handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+            Map<String, MemoryUsage> after = GarbageCollectionNotificationInfo
+                    .from((CompositeData) notification.getUserData()).getGcInfo().getMemoryUsageAfterGc();
+            long used = after.entrySet().stream().filter(e -> heapPools.contains(e.getKey()))
+                    .mapToLong(e -> e.getValue().getUsed()).sum();
+            peak.accumulateAndGet(used, Math::max);
+        };
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        collectors.forEach(c -> ((NotificationEmitter) c).addNotificationListener(listener, null, null));
+        long start = System.nanoTime();
+        try {
+            export.writeTo(new GcEveryBytesStream(peak));
+        } finally {
+            collectors.forEach(c -> {
+                try {
+                    ((NotificationEmitter) c).removeNotificationListener(listener);
+                } catch (Exception ignored) {
+                    // not registered
+                }
+            });
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return String.format("%.1f MB live in %d ms", (peak.get() - baseline) / 1e6, millis);
+    }
+
+    private void seed(UUID tenantId, UUID surveyId, List<String> questions, int from, int to) {
+        StringBuilder answers = new StringBuilder("jsonb_build_object(");
+        for (int q = 0; q < questions.size(); q++) {
+            if (q > 0) answers.append(", ");
+            answers.append('\'').append(questions.get(q)).append("', 'answer ' || g || ' to question ").append(q).append('\'');
+        }
+        answers.append(')');
+        jdbc.update("INSERT INTO responses (id, tenant_id, survey_id, respondent_id, answers_json, submitted_at)"
+                + " SELECT uuid_generate_v4(), ?, ?, uuid_generate_v4(), " + answers + ", now() - g * interval '1 second'"
+                + " FROM generate_series(?, ?) g", tenantId, surveyId, from + 1, to);
+        jdbc.execute("VACUUM ANALYZE responses");
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /** Discards the export, forcing a full collection every {@link #GC_EVERY_BYTES} and recording the heap left. */
+    private static final class GcEveryBytesStream extends OutputStream {
+        private final AtomicLong peak;
+        private long written;
+
+        GcEveryBytesStream(AtomicLong peak) {
+            this.peak = peak;
+        }
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(int n) {
+            long before = written / GC_EVERY_BYTES;
+            written += n;
+            if (written / GC_EVERY_BYTES != before) {
+                System.gc();
+                peak.accumulateAndGet(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), Math::max);
+            }
+        }
+    }
+}
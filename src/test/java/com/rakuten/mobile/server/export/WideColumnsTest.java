@@ -0,0 +1,57 @@
+package com.rakuten.mobile.server.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.rakuten.mobile.server.domain.OptionChoice;
+import com.rakuten.mobile.server.domain.Question;
+import com.rakuten.mobile.server.domain.QuestionType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WideColumnsTest {
+
+    private final Question question = question();
+    private final WideColumns columns = WideColumns.of(List.of(question), Map.of(question.getId(), List.of(
+            option("a|b", "ab", 0), option("c\\d", "cd", 1), option("plain", "plain", 2))));
+
+    @Test
+    void choicesAreJoinedInOptionOrder() throws IOException {
+        assertEquals("plain", cell("\"plain\""));
+        assertEquals("a\\|b|plain", cell("[\"plain\", \"ab\", \"plain\"]"));
+    }
+
+    @Test
+    void backslashAndDelimiterInsideChoicesAreEscaped() throws IOException {
+        // Options a|b and c\d, then the unknown value x|y\z
+        assertEquals("a\\|b|c\\\\d|x\\|y\\\\z", cell("[\"cd\", \"ab\", \"x|y\\\\z\"]"));
+    }
+
+    private String cell(String answer) throws IOException {
+        String json = "{\"" + question.getId() + "\":" + answer + "}";
+        String[] cells = new String[columns.size()];
+        try (JsonParser p = new JsonFactory().createParser(json)) {
+            columns.read(json, p, cells);
+        }
+        return cells[0];
+    }
+
+    private static Question question() {
+        Question q = new Question();
+        q.setType(QuestionType.MULTI_CHOICE);
+        q.setText("Pick");
+        return q;
+    }
+
+    private static OptionChoice option(String label, String value, int position) {
+        OptionChoice o = new OptionChoice();
+        o.setLabel(label);
+        o.setValue(value);
+        o.setPosition(position);
+        return o;
+    }
+}
@@ -0,0 +1,110 @@
+package com.rakuten.mobile.server.ingest;
+
+import com.rakuten.mobile.server.service.ResponseService;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ingest throughput on PostgreSQL: an NDJSON upload through {@link BulkResponseImporter}
+ * (batched transactions of {@code app.ingest.bulk-chunk-size}) against one transaction per
+ * submission through {@link ResponseService#submit}. Both use an Idempotency-Key per row.
+ */
+@Slf4j
+@Tag("benchmark")
+@PostgresTest
+class BulkImportBenchmark {
+
+    private static final int BULK_LINES = 1_000_000;
+    private static final int SINGLE_SUBMITS = 2_000;
+
+    @Autowired BulkResponseImporter importer;
+    @Autowired ResponseService responses;
+    @Autowired JdbcTemplate jdbc;
+
+    private UUID tenantId;
+    private UUID surveyId;
+    private UUID questionId;
+
+    @BeforeEach
+    void seed() {
+        tenantId = TestData.tenant(jdbc);
+        surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        questionId = TestData.question(jdbc, tenantId, surveyId, "TEXT", 1);
+    }
+
+    @Test
+    void bulkUploadAgainstSingleSubmits() throws IOException {
+        long start = System.nanoTime();
+        long accepted = importer.importNdjson(surveyId, tenantId, "bulk-" + UUID.randomUUID(),
+                new Upload(questionId, BULK_LINES), OutputStream.nullOutputStream());
+        double bulkSeconds = (System.nanoTime() - start) / 1e9;
+        assertEquals(BULK_LINES, accepted);
+
+        start = System.nanoTime();
+        for (int i = 0; i < SINGLE_SUBMITS; i++) {
+            responses.submit(surveyId, tenantId, UUID.randomUUID(),
+                    Map.of(questionId.toString(), "answer " + i), "single-" + UUID.randomUUID());
+        }
+        double singleSeconds = (System.nanoTime() - start) / 1e9;
+
+        log.info("bulk NDJSON: {} lines in {} s = {} lines/s", BULK_LINES,
+                String.format("%.2f", bulkSeconds), Math.round(BULK_LINES / bulkSeconds));
+        log.info("single submit: {} requests in {} s = {} requests/s", SINGLE_SUBMITS,
+                String.format("%.2f", singleSeconds), Math.round(SINGLE_SUBMITS / singleSeconds));
+    }
+
+    /** An NDJSON upload of {@code lines} submissions, generated as it is read so it never sits in the heap. */
+    private static final class Upload extends InputStream {
+
+        private final UUID questionId;
+        private final int lines;
+        private int next;
+        private byte[] line = new byte[0];
+        private int pos;
+
+        Upload(UUID questionId, int lines) {
+            this.questionId = questionId;
+            this.lines = lines;
+        }
+
+        @Override
+        public int read() {
+            if (!fill()) return -1;
+            return line[pos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(len, line.length - pos);
+            System.arraycopy(line, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        private boolean fill() {
+            if (pos < line.length) return true;
+            if (next == lines) return false;
+            line = ("{\"respondentId\":\"" + UUID.randomUUID() + "\",\"answers\":[{\"questionId\":\"" + questionId
+                    + "\",\"value\":\"answer " + next++ + "\"}]}\n").getBytes(StandardCharsets.UTF_8);
+            pos = 0;
+            return true;
+        }
+    }
+}
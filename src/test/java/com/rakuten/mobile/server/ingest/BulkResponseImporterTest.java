@@ -0,0 +1,102 @@
+package com.rakuten.mobile.server.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@PostgresTest
+class BulkResponseImporterTest {
+
+    @Autowired BulkResponseImporter importer;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired ObjectMapper om;
+
+    private UUID tenantId;
+    private UUID surveyId;
+    private UUID questionId;
+
+    @BeforeEach
+    void seed() {
+        tenantId = TestData.tenant(jdbc);
+        surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        questionId = TestData.question(jdbc, tenantId, surveyId, "TEXT", 1);
+    }
+
+    @Test
+    void unknownSurveyFailsBeforeAnythingIsWritten() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThrows(IllegalArgumentException.class, () -> importer.importNdjson(
+                UUID.randomUUID(), tenantId, null, body(line("a")), out));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void surveyOfAnotherTenantIsNotFound() {
+        UUID otherTenant = TestData.tenant(jdbc);
+
+        assertThrows(IllegalArgumentException.class, () -> importer.requireSurvey(surveyId, otherTenant));
+    }
+
+    @Test
+    void reportsOneResultPerLine() throws IOException {
+        String upload = line("a") + "\n{not json\n" + "{\"answers\":[{\"questionId\":\"" + UUID.randomUUID()
+                + "\",\"value\":\"x\"}]}\n" + line("b") + "\n";
+
+        List<JsonNode> results = run(upload);
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).has("responseId"));
+        assertTrue(results.get(1).get("error").asText().startsWith("Malformed JSON"));
+        assertTrue(results.get(2).get("error").asText().startsWith("Unknown question"));
+        assertTrue(results.get(3).has("responseId"));
+        assertEquals(2, TestData.responses(jdbc, surveyId));
+    }
+
+    @Test
+    void databaseFailuresAreReportedWithoutTheirMessage() throws IOException {
+        importer.requireSurvey(surveyId, tenantId); // plan cached; the insert then hits the foreign key
+        jdbc.update("DELETE FROM surveys WHERE id = ?", surveyId);
+
+        List<JsonNode> results = run(line("a") + "\n" + line("b") + "\n");
+
+        assertEquals(2, results.size());
+        for (JsonNode r : results) {
+            assertEquals("Rejected by a data constraint", r.get("error").asText());
+        }
+    }
+
+    private List<JsonNode> run(String upload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        importer.importNdjson(surveyId, tenantId, null, body(upload), out);
+        List<JsonNode> results = new ArrayList<>();
+        om.readerFor(JsonNode.class).readValues(out.toByteArray()).forEachRemaining(n -> results.add((JsonNode) n));
+        return results;
+    }
+
+    private String line(String answer) {
+        return "{\"respondentId\":\"" + UUID.randomUUID() + "\",\"answers\":[{\"questionId\":\"" + questionId
+                + "\",\"value\":\"" + answer + "\"}]}";
+    }
+
+    private static ByteArrayInputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
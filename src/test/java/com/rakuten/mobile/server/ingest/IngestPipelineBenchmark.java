@@ -0,0 +1,86 @@
+package com.rakuten.mobile.server.ingest;
+
+import com.rakuten.mobile.server.service.ResponseService;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Submission throughput and latency under concurrency: one transaction per request
+ * ({@link ResponseService#submit}) against the group-commit pipeline ({@link ResponseIngestPipeline},
+ * {@code app.ingest.mode=batched}), which answers each caller once its batch has committed.
+ *
+ * {@link #CLIENTS} threads submit {@link #SUBMITS} responses with an Idempotency-Key each, against
+ * the default Hikari pool of 10 connections, after {@link #WARMUP} submissions on each path.
+ */
+@Slf4j
+@Tag("benchmark")
+@PostgresTest
+@TestPropertySource(properties = {"app.ingest.mode=batched", "app.answers.projector.enabled=false"})
+class IngestPipelineBenchmark {
+
+    private static final int CLIENTS = 64;
+    private static final int SUBMITS = 20_000;
+    private static final int WARMUP = 2_000;
+
+    @Autowired ResponseService responses;
+    @Autowired ResponseIngestPipeline pipeline;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void perRequestAgainstBatched() throws Exception {
+        UUID tenantId = TestData.tenant(jdbc);
+        UUID surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        String questionId = TestData.question(jdbc, tenantId, surveyId, "TEXT", 1).toString();
+
+        Function<Integer, UUID> perRequest = i -> responses.submit(surveyId, tenantId, UUID.randomUUID(),
+                Map.of(questionId, "answer " + i), "request-" + UUID.randomUUID());
+        Function<Integer, UUID> batched = i -> pipeline.submit(new Submission(surveyId, tenantId, UUID.randomUUID(),
+                Map.of(questionId, "answer " + i), "batched-" + UUID.randomUUID()));
+
+        run(perRequest, WARMUP);
+        run(batched, WARMUP);
+        log.info("per request: {}", run(perRequest, SUBMITS));
+        log.info("batched: {}", run(batched, SUBMITS));
+    }
+
+    private static String run(Function<Integer, UUID> submit, int submits) throws Exception {
+        long[] micros = new long[submits];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long start = System.nanoTime();
+        try {
+            Future<?>[] done = new Future<?>[CLIENTS];
+            for (int c = 0; c < CLIENTS; c++) {
+                done[c] = clients.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < submits; i = next.getAndIncrement()) {
+                        long t = System.nanoTime();
+                        submit.apply(i);
+                        micros[i] = (System.nanoTime() - t) / 1_000;
+                    }
+                });
+            }
+            for (Future<?> f : done) f.get();
+        } finally {
+            clients.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(micros);
+        return String.format("%d submissions/s, p50 %.1f ms, p99 %.1f ms", Math.round(submits / seconds),
+                micros[submits / 2] / 1e3, micros[submits * 99 / 100] / 1e3);
+    }
+}
@@ -0,0 +1,107 @@
+package com.rakuten.mobile.server.outbox;
+
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The application's own dispatcher stays idle; each test drives one with its own sink
+@PostgresTest
+@TestPropertySource(properties = "app.outbox.poll-interval-ms=3600000")
+class OutboxDispatcherTest {
+
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager txManager;
+
+    private UUID tenantId;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM outbox_events");
+        tenantId = TestData.tenant(jdbc);
+    }
+
+    @Test
+    void poisonEventDoesNotHoldBackTheRest() {
+        UUID good1 = event();
+        UUID poison = event();
+        UUID good2 = event();
+        List<UUID> delivered = new ArrayList<>();
+
+        dispatcher(batch -> {
+            if (batch.stream().anyMatch(m -> m.id().equals(poison))) throw new IllegalStateException("broker rejected");
+            batch.forEach(m -> delivered.add(m.id()));
+        }, 10).dispatch();
+
+        assertEquals(Set.of(good1, good2), Set.copyOf(delivered));
+        assertEquals(List.of(poison), jdbc.queryForList("SELECT id FROM outbox_events", UUID.class));
+        assertEquals(1, jdbc.queryForObject("SELECT attempts FROM outbox_events WHERE id = ?", Integer.class, poison));
+        assertTrue(jdbc.queryForObject("SELECT next_attempt_at > now() AND lease_id IS NULL FROM outbox_events WHERE id = ?",
+                Boolean.class, poison));
+    }
+
+    @Test
+    void eventFailingMaxAttemptsTimesIsDeadLettered() {
+        UUID poison = event();
+        OutboxDispatcher dispatcher = dispatcher(batch -> { throw new IllegalStateException("broker rejected"); }, 2);
+
+        dispatcher.dispatch();
+        jdbc.update("UPDATE outbox_events SET next_attempt_at = now()"); // skip the backoff
+        dispatcher.dispatch();
+
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM outbox_events", Integer.class));
+        assertEquals(2, jdbc.queryForObject("SELECT attempts FROM outbox_dead_letters WHERE id = ?", Integer.class, poison));
+    }
+
+    @Test
+    void sinkRunsWithoutTransactionOrRowLocks() {
+        UUID id = event();
+        List<Boolean> lockable = new ArrayList<>();
+
+        dispatcher(batch -> {
+            assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+            // NOWAIT fails if the dispatcher still held the row lock
+            lockable.add(!jdbc.queryForList("SELECT id FROM outbox_events WHERE id = ? FOR UPDATE NOWAIT",
+                    UUID.class, id).isEmpty());
+        }, 10).dispatch();
+
+        assertEquals(List.of(true), lockable);
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM outbox_events", Integer.class));
+    }
+
+    @Test
+    void leasedEventsAreNotClaimedAgain() {
+        event();
+        List<OutboxMessage> second = new ArrayList<>();
+        OutboxDispatcher other = dispatcher(second::addAll, 10);
+
+        dispatcher(batch -> other.dispatch(), 10).dispatch();
+
+        assertTrue(second.isEmpty());
+    }
+
+    private OutboxDispatcher dispatcher(OutboxSink sink, int maxAttempts) {
+        return new OutboxDispatcher(jdbc, txManager, sink, 10, 60_000, 300_000, maxAttempts, 60_000);
+    }
+
+    private UUID event() {
+        UUID id = UUID.randomUUID();
+        jdbc.update("INSERT INTO outbox_events (id, tenant_id, event_type, payload, created_at) VALUES (?, ?, 'TestEvent', '{}', clock_timestamp())",
+                id, tenantId);
+        return id;
+    }
+}
@@ -0,0 +1,109 @@
+package com.rakuten.mobile.server.projection;
+
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@PostgresTest
+class AnswerProjectorTest {
+
+    @Autowired AnswerProjector projector;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager txManager;
+
+    private UUID tenantId;
+    private UUID surveyId;
+    private UUID questionId;
+
+    @BeforeEach
+    void seed() {
+        tenantId = TestData.tenant(jdbc);
+        surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        questionId = TestData.question(jdbc, tenantId, surveyId, "TEXT", 1);
+    }
+
+    @Test
+    void backDatedResponseIsProjectedAfterNewerOnes() {
+        UUID newer = response(Instant.now());
+        projector.run();
+        UUID older = response(Instant.now().minus(400, ChronoUnit.DAYS));
+
+        projector.run();
+
+        assertEquals(1, answers(newer));
+        assertEquals(1, answers(older));
+    }
+
+    @Test
+    void responseIsProjectedOnceItsTransactionCommits() throws Exception {
+        UUID id = UUID.randomUUID();
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> new TransactionTemplate(txManager)
+                .executeWithoutResult(status -> {
+                    // Stamped before the projector runs, committed after it
+                    insert(id, Instant.now());
+                    inserted.countDown();
+                    await(commit);
+                }));
+        assertTrue(inserted.await(10, TimeUnit.SECONDS));
+
+        projector.run();
+        assertEquals(0, answers(id));
+
+        commit.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+        projector.run();
+        assertEquals(1, answers(id));
+    }
+
+    @Test
+    void projectedResponsesLeaveTheQueue() {
+        UUID id = response(Instant.now());
+
+        projector.run();
+
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM answers_projection_queue WHERE response_id = ?",
+                Integer.class, id));
+    }
+
+    private UUID response(Instant submittedAt) {
+        UUID id = UUID.randomUUID();
+        insert(id, submittedAt);
+        return id;
+    }
+
+    private void insert(UUID id, Instant submittedAt) {
+        jdbc.update("INSERT INTO responses (id, tenant_id, survey_id, respondent_id, answers_json, submitted_at)"
+                        + " VALUES (?, ?, ?, ?, jsonb_build_object(?::text, 'yes'), ?)",
+                id, tenantId, surveyId, UUID.randomUUID(), questionId.toString(), Timestamp.from(submittedAt));
+    }
+
+    private int answers(UUID responseId) {
+        return jdbc.queryForObject("SELECT count(*) FROM answers WHERE response_id = ?", Integer.class, responseId);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.rakuten.mobile.server.repo;
+
+import com.rakuten.mobile.server.domain.Response;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+/**
+ * Latency of one submission's idempotency handling, one transaction at a time: the claim protocol
+ * ({@link IdempotencyClaimRepository#claim} then {@code insertResponseAndComplete}) against the
+ * protocol it replaced (look the key up, insert the response, insert the key), both for a new
+ * key and for a retry of a key whose response is already recorded.
+ *
+ * The previous protocol is replayed in plain SQL against today's partition; it is what lets two
+ * concurrent retries both miss the lookup, which {@code IdempotencyClaimRepositoryTest} covers.
+ */
+@Slf4j
+@Tag("benchmark")
+@PostgresTest
+@TestPropertySource(properties = "app.answers.projector.enabled=false")
+class IdempotencyClaimBenchmark {
+
+    private static final int SUBMITS = 5_000;
+    private static final int WARMUP = 1_000;
+    private static final int BLOCK = 250;
+
+    private static final String LOOKUP_SQL =
+            "SELECT response_id FROM idempotency_keys WHERE tenant_id = ? AND idem_key = ? AND created_day >= ?";
+    private static final String INSERT_KEY_SQL = """
+            INSERT INTO idempotency_keys (id, tenant_id, idem_key, response_id, created_at_epoch, created_day)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    @Autowired IdempotencyClaimRepository claims;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager txManager;
+
+    private UUID tenantId;
+    private UUID surveyId;
+
+    @Test
+    void claimAgainstLookupThenInsert() {
+        tenantId = TestData.tenant(jdbc);
+        surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+
+        IntConsumer claim = i -> tx.executeWithoutResult(s -> {
+            String key = "claim-" + i;
+            if (claims.claim(tenantId, key) == null) {
+                claims.insertResponseAndComplete(response(), EncodedAnswers.keyed("{}"), key);
+            }
+        });
+        IntConsumer lookup = i -> tx.executeWithoutResult(s -> {
+            String key = "lookup-" + i;
+            List<UUID> found = jdbc.queryForList(LOOKUP_SQL, UUID.class, tenantId, key, claims.liveFrom());
+            if (!found.isEmpty()) return;
+            Response r = response();
+            claims.insertResponse(r, EncodedAnswers.keyed("{}"));
+            jdbc.update(INSERT_KEY_SQL, UUID.randomUUID(), tenantId, key, r.getId(),
+                    System.currentTimeMillis(), claims.today());
+        });
+
+        compare("new key", claim, lookup, -WARMUP, WARMUP);
+        compare("new key", claim, lookup, 0, SUBMITS);
+        compare("retry", claim, lookup, 0, SUBMITS);
+    }
+
+    /**
+     * Runs keys {@code first .. first + n - 1} on both protocols, alternating in blocks of
+     * {@link #BLOCK} so neither always runs against the larger table; negative keys are warm-up
+     * and are neither reported nor reused.
+     */
+    private static void compare(String kind, IntConsumer claim, IntConsumer lookup, int first, int n) {
+        long[] claimMicros = new long[n];
+        long[] lookupMicros = new long[n];
+        for (int block = 0; block < n; block += BLOCK) {
+            int end = Math.min(block + BLOCK, n);
+            time(claim, first, block, end, claimMicros);
+            time(lookup, first, block, end, lookupMicros);
+        }
+        if (first < 0) return;
+        log.info("claim, {}: {}", kind, percentiles(claimMicros));
+        log.info("lookup then insert, {}: {}", kind, percentiles(lookupMicros));
+    }
+
+    private static void time(IntConsumer submit, int first, int from, int to, long[] micros) {
+        for (int i = from; i < to; i++) {
+            long start = System.nanoTime();
+            submit.accept(first + i);
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+    }
+
+    private static String percentiles(long[] micros) {
+        Arrays.sort(micros);
+        return String.format("p50 %d us, p99 %d us", micros[micros.length / 2], micros[micros.length * 99 / 100]);
+    }
+
+    private Response response() {
+        Response r = new Response();
+        r.setId(UUID.randomUUID());
+        r.setTenantId(tenantId);
+        r.setSurveyId(surveyId);
+        r.setRespondentId(UUID.randomUUID());
+        r.setSubmittedAt(Instant.now());
+        return r;
+    }
+}
@@ -0,0 +1,154 @@
+package com.rakuten.mobile.server.repo;
+
+import com.rakuten.mobile.server.domain.Response;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@PostgresTest
+class IdempotencyClaimRepositoryTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired IdempotencyClaimRepository claims;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager txManager;
+
+    private UUID tenantId;
+    private UUID surveyId;
+
+    @BeforeEach
+    void seed() {
+        tenantId = TestData.tenant(jdbc);
+        surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+    }
+
+    @Test
+    void concurrentClaimsOfOneKeyWriteExactlyOneResponse() throws Exception {
+        Set<UUID> ids = submitConcurrently(i -> "retry-key");
+
+        assertEquals(1, ids.size(), "every caller must get the same response id");
+        assertEquals(1, TestData.responses(jdbc, surveyId));
+        assertEquals(ids.iterator().next(), jdbc.queryForObject(
+                "SELECT response_id FROM idempotency_keys WHERE tenant_id = ? AND idem_key = ?",
+                UUID.class, tenantId, "retry-key"));
+    }
+
+    @Test
+    void distinctKeysWriteOneResponseEach() throws Exception {
+        Set<UUID> ids = submitConcurrently(i -> "key-" + i);
+
+        assertEquals(THREADS, ids.size());
+        assertEquals(THREADS, TestData.responses(jdbc, surveyId));
+    }
+
+    @Test
+    void replayAfterCommitReturnsTheRecordedResponse() {
+        UUID first = submit("replayed");
+        UUID second = submit("replayed");
+
+        assertEquals(first, second);
+        assertEquals(1, TestData.responses(jdbc, surveyId));
+    }
+
+    @Test
+    void retryAcrossUtcMidnightWaitsForTheClaimOfThePreviousDay() throws Exception {
+        // Same key, but the retry claims in tomorrow's partition, where the unique index cannot see the first claim
+        IdempotencyClaimRepository tomorrow = new IdempotencyClaimRepository(jdbc, 7) {
+            @Override
+            public LocalDate today() {
+                return super.today().plusDays(1);
+            }
+        };
+        CountDownLatch claimed = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<UUID> first = pool.submit(() -> submit(claims, "midnight", () -> {
+                claimed.countDown();
+                sleep(500); // let the retry reach the claim while this one is uncommitted
+            }));
+            claimed.await(10, TimeUnit.SECONDS);
+            Future<UUID> retry = pool.submit(() -> submit(tomorrow, "midnight", () -> { }));
+
+            assertEquals(first.get(30, TimeUnit.SECONDS), retry.get(30, TimeUnit.SECONDS));
+            assertEquals(1, TestData.responses(jdbc, surveyId));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Starts every submission at once and returns the distinct response ids handed back. */
+    private Set<UUID> submitConcurrently(IntFunction<String> keyOf) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<UUID>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String key = keyOf.apply(i);
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return submit(key);
+                }));
+            }
+            start.countDown();
+            Set<UUID> ids = new HashSet<>();
+            for (Future<UUID> f : results) {
+                ids.add(f.get(30, TimeUnit.SECONDS));
+            }
+            return ids;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private UUID submit(String key) {
+        return submit(claims, key, () -> { });
+    }
+
+    /** The claim protocol of ResponseService.write, without validation or events. */
+    private UUID submit(IdempotencyClaimRepository repo, String key, Runnable afterClaim) {
+        return new TransactionTemplate(txManager).execute(status -> {
+            UUID already = repo.claim(tenantId, key);
+            if (already != null) return already;
+            afterClaim.run();
+
+            Response r = new Response();
+            r.setId(UUID.randomUUID());
+            r.setTenantId(tenantId);
+            r.setSurveyId(surveyId);
+            r.setRespondentId(UUID.randomUUID());
+            r.setSubmittedAt(Instant.now());
+            repo.insertResponseAndComplete(r, EncodedAnswers.keyed("{}"), key);
+            return r.getId();
+        });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
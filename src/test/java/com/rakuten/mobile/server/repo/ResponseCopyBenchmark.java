@@ -0,0 +1,128 @@
+package com.rakuten.mobile.server.repo;
+
+import com.rakuten.mobile.server.export.ResponseExportWriter;
+import com.rakuten.mobile.server.ingest.BulkResponseImporter;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * COPY against the ORM-era paths on one survey of {@link #ROWS} responses with 10 answers each:
+ * {@link ResponseCopyRepository#copyOut} against the streamed {@code /export} in CSV and JSON
+ * ({@link ResponseExportWriter}), and {@link ResponseCopyRepository#copyIn} of a CSV and an NDJSON
+ * file against the NDJSON bulk upload ({@link BulkResponseImporter}), all without an HTTP layer.
+ *
+ * Exports are timed {@link #RUNS} times after one warm-up run each. Each import loads the same
+ * {@link #ROWS} new responses into the survey, which the bulk upload validates against its questions.
+ */
+@Slf4j
+@Tag("benchmark")
+@PostgresTest
+@TestPropertySource(properties = "app.answers.projector.enabled=false")
+class ResponseCopyBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int QUESTIONS = 10;
+    private static final int RUNS = 5;
+
+    @Autowired ResponseCopyRepository copies;
+    @Autowired ResponseExportWriter exporter;
+    @Autowired BulkResponseImporter importer;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void copyAgainstExportAndBulkUpload() throws IOException {
+        UUID tenantId = TestData.tenant(jdbc);
+        UUID surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        String[] questions = new String[QUESTIONS];
+        for (int q = 0; q < QUESTIONS; q++) {
+            questions[q] = TestData.question(jdbc, tenantId, surveyId, "TEXT", q + 1).toString();
+        }
+        StringBuilder answers = new StringBuilder("jsonb_build_object(");
+        for (int q = 0; q < QUESTIONS; q++) {
+            if (q > 0) answers.append(", ");
+            answers.append('\'').append(questions[q]).append("', 'answer ' || g || ' to question ").append(q).append('\'');
+        }
+        answers.append(')');
+        jdbc.update("INSERT INTO responses (id, tenant_id, survey_id, respondent_id, answers_json, submitted_at)"
+                + " SELECT uuid_generate_v4(), ?, ?, uuid_generate_v4(), " + answers + ", now() - g * interval '1 second'"
+                + " FROM generate_series(1, ?) g", tenantId, surveyId, ROWS);
+        jdbc.execute("VACUUM ANALYZE responses");
+
+        log.info("COPY TO STDOUT: {}", time(() -> copies.copyOut(tenantId, surveyId, OutputStream.nullOutputStream())));
+        log.info("export CSV: {}", time(() -> exporter.write(surveyId, ResponseExportWriter.CSV, null, OutputStream.nullOutputStream())));
+        log.info("export JSON: {}", time(() -> exporter.write(surveyId, ResponseExportWriter.JSON, null, OutputStream.nullOutputStream())));
+
+        // The same fresh rows in each import format; the seeded ids would be skipped as already present
+        StringBuilder csv = new StringBuilder(ResponseCopyRepository.CSV_COLUMNS).append('\n');
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            UUID respondentId = UUID.randomUUID();
+            StringBuilder keyed = new StringBuilder("{");
+            ndjson.append("{\"respondentId\":\"").append(respondentId).append("\",\"answers\":[");
+            for (int q = 0; q < QUESTIONS; q++) {
+                String value = "\"answer " + i + " to question " + q + "\"";
+                if (q > 0) {
+                    keyed.append(',');
+                    ndjson.append(',');
+                }
+                keyed.append('"').append(questions[q]).append("\":").append(value);
+                ndjson.append("{\"questionId\":\"").append(questions[q]).append("\",\"value\":").append(value).append('}');
+            }
+            keyed.append('}');
+            csv.append(',').append(respondentId).append(",,\"").append(keyed.toString().replace("\"", "\"\"")).append("\"\n");
+            ndjson.append("]}\n");
+        }
+        byte[] csvBytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] ndjsonBytes = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+
+        log.info("COPY FROM STDIN, CSV: {}", load(() -> copies.copyIn(tenantId, surveyId, false,
+                new ByteArrayInputStream(csvBytes))));
+        log.info("COPY FROM STDIN, NDJSON: {}", load(() -> copies.copyIn(tenantId, surveyId, true,
+                new ByteArrayInputStream(ndjsonBytes))));
+        log.info("bulk NDJSON upload: {}", load(() -> importer.importNdjson(surveyId, tenantId,
+                null, new ByteArrayInputStream(ndjsonBytes), OutputStream.nullOutputStream())));
+    }
+
+    private static String time(Export export) throws IOException {
+        export.run();
+        long[] micros = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            export.run();
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        double ms = micros[RUNS / 2] / 1e3;
+        return String.format("median %.0f ms, %d rows/s", ms, Math.round(ROWS / (ms / 1e3)));
+    }
+
+    private static String load(Import load) throws IOException {
+        long start = System.nanoTime();
+        long rows = load.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return String.format("%d rows in %.1f s, %d rows/s", rows, seconds, Math.round(rows / seconds));
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        void run() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Import {
+        long run() throws IOException;
+    }
+}
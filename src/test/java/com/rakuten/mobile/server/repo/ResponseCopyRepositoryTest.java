@@ -0,0 +1,82 @@
+package com.rakuten.mobile.server.repo;
+
+import com.rakuten.mobile.server.service.ResponsePartitionMaintainer;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@PostgresTest
+class ResponseCopyRepositoryTest {
+
+    @Autowired ResponseCopyRepository copies;
+    @Autowired ResponsePartitionMaintainer partitions;
+    @Autowired JdbcTemplate jdbc;
+
+    private UUID tenantId;
+    private UUID surveyId;
+
+    @BeforeEach
+    void seed() {
+        tenantId = TestData.tenant(jdbc);
+        surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+    }
+
+    @Test
+    void reimportWithAnotherSubmittedAtIsSkipped() {
+        UUID id = UUID.randomUUID();
+
+        assertEquals(1, copyIn(row(id, "2026-01-10T10:00:00Z")));
+        assertEquals(0, copyIn(row(id, "2026-01-11T10:00:00Z")));
+        assertEquals(0, copyIn(row(id, "")));
+        assertEquals(1, TestData.responses(jdbc, surveyId));
+    }
+
+    @Test
+    void idRepeatedWithinAnUploadIsLoadedOnce() {
+        UUID id = UUID.randomUUID();
+
+        assertEquals(1, copyIn(row(id, "2026-01-10T10:00:00Z") + row(id, "2026-02-10T10:00:00Z")));
+        assertEquals(1, TestData.responses(jdbc, surveyId));
+    }
+
+    @Test
+    void rowsWithoutIdAreAllLoaded() {
+        assertEquals(3, copyIn(row(null, "") + row(null, "") + row(null, "2026-01-10T10:00:00Z")));
+    }
+
+    @Test
+    void creatingAMonthMovesItsRowsOutOfTheDefaultPartition() {
+        UUID id = UUID.randomUUID();
+        copyIn(row(id, "2001-02-15T12:00:00Z"));
+        assertEquals("responses_default", partitionOf(id));
+
+        partitions.createMonth(LocalDate.of(2001, 2, 1));
+
+        assertTrue(partitionOf(id).startsWith("responses_y2001m02_h"), partitionOf(id));
+        assertEquals(1, TestData.responses(jdbc, surveyId));
+    }
+
+    private int copyIn(String rows) {
+        String csv = ResponseCopyRepository.CSV_COLUMNS + "\n" + rows;
+        return copies.copyIn(tenantId, surveyId, false, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String partitionOf(UUID id) {
+        return jdbc.queryForObject("SELECT tableoid::regclass::text FROM responses WHERE id = ?", String.class, id);
+    }
+
+    private static String row(UUID id, String submittedAt) {
+        return (id == null ? "" : id.toString()) + "," + UUID.randomUUID() + "," + submittedAt + ",\"{}\"\n";
+    }
+}
@@ -0,0 +1,207 @@
+package com.rakuten.mobile.server.repo;
+
+import com.rakuten.mobile.server.support.TestDatabases;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * The list, export and insert paths of {@code responses} before partitioning (schema at V9: one
+ * table with the seek index) and after (V10: monthly range partitions with tenant hash
+ * subpartitions). Both databases get the same rows, spread over the last twelve months.
+ *
+ * The statements are the ones the repositories issue: the keyset pages of
+ * {@link ResponseViewRepository}, the survey export ({@link ResponseCopyRepository#copyOut} and
+ * the streamed export select the same rows) and single-row inserts in batches as submissions do.
+ *
+ * A single response is fetched by id alone, as {@code findById} did, and scoped to its tenant and
+ * survey as {@link ResponseViewRepository#findOne} does; the plans of both are logged. Without a
+ * {@code submitted_at} bound no month is pruned, but the tenant leaves one hash subpartition per month.
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIf("com.rakuten.mobile.server.support.TestDatabases#available")
+class ResponsePartitioningBenchmark {
+
+    private static final int TENANTS = 20;
+    private static final int SURVEYS_PER_TENANT = 5;
+    private static final int ROWS = 1_000_000;
+    private static final int MONTHS = 12;
+    private static final int PAGE = 50;
+    private static final int PAGE_READS = 2_000;
+    private static final int EXPORTS = 20;
+    private static final int INSERTS = 20_000;
+    private static final int INSERT_BATCH = 100;
+
+    private static final String FIRST_PAGE_SQL = """
+            SELECT * FROM responses WHERE tenant_id = ? AND survey_id = ?
+            ORDER BY submitted_at DESC, id DESC LIMIT ?
+            """;
+
+    private static final String PAGE_AFTER_SQL = """
+            SELECT * FROM responses WHERE tenant_id = ? AND survey_id = ?
+              AND submitted_at <= ? AND (submitted_at, id) < (?, ?)
+            ORDER BY submitted_at DESC, id DESC LIMIT ?
+            """;
+
+    private static final String BY_ID_SQL = "SELECT * FROM responses WHERE id = ?";
+
+    private static final String SCOPED_BY_ID_SQL = "SELECT * FROM responses WHERE id = ? AND tenant_id = ? AND survey_id = ?";
+
+    private static final String EXPORT_SQL = "COPY (SELECT id, respondent_id, submitted_at, answers_json FROM responses"
+            + " WHERE tenant_id = '%s' AND survey_id = '%s' ORDER BY submitted_at, id) TO STDOUT WITH (FORMAT csv)";
+
+    private static final String INSERT_SQL = """
+            INSERT INTO responses (id, tenant_id, survey_id, respondent_id, answers_json, submitted_at)
+            VALUES (?, ?, ?, ?, '{"q1": "answer"}'::jsonb, now())
+            """;
+
+    @Test
+    void beforeAndAfterPartitioning() {
+        Map<String, String> before = measure("bench_responses_v9", "9");
+        Map<String, String> after = measure("bench_responses_v10", "10");
+        before.forEach((path, result) -> log.info("{}: unpartitioned {}, partitioned {}", path, result, after.get(path)));
+    }
+
+    private Map<String, String> measure(String database, String version) {
+        String url = TestDatabases.url(database);
+        Flyway.configure().dataSource(url, TestDatabases.username(), TestDatabases.password())
+                .target(version).load().migrate();
+        SingleConnectionDataSource ds = new SingleConnectionDataSource(url, TestDatabases.username(), TestDatabases.password(), true);
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(ds);
+            List<UUID[]> surveys = seed(jdbc);
+            Random random = new Random(42);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < PAGE_READS; i++) {
+                UUID[] s = surveys.get(random.nextInt(surveys.size()));
+                jdbc.queryForList(FIRST_PAGE_SQL, s[0], s[1], PAGE);
+            }
+            double firstPageUs = (System.nanoTime() - start) / 1e3 / PAGE_READS;
+
+            // Cursors half way through each survey, newest first
+            List<Object[]> cursors = new ArrayList<>();
+            for (UUID[] s : surveys) {
+                jdbc.query("SELECT submitted_at, id FROM responses WHERE tenant_id = ? AND survey_id = ?"
+                                + " ORDER BY submitted_at DESC, id DESC OFFSET ? LIMIT 1",
+                        rs -> { cursors.add(new Object[]{s[0], s[1], rs.getTimestamp(1), rs.getObject(2, UUID.class)}); },
+                        s[0], s[1], ROWS / surveys.size() / 2);
+            }
+            start = System.nanoTime();
+            for (int i = 0; i < PAGE_READS; i++) {
+                Object[] c = cursors.get(random.nextInt(cursors.size()));
+                jdbc.queryForList(PAGE_AFTER_SQL, c[0], c[1], c[2], c[2], c[3], PAGE);
+            }
+            double pageAfterUs = (System.nanoTime() - start) / 1e3 / PAGE_READS;
+
+            List<Object[]> picks = jdbc.query("SELECT id, tenant_id, survey_id FROM responses TABLESAMPLE SYSTEM (1) LIMIT ?",
+                    (rs, n) -> new Object[]{rs.getObject(1, UUID.class), rs.getObject(2, UUID.class), rs.getObject(3, UUID.class)},
+                    PAGE_READS);
+            log.info("{}, by id:\n{}", database, plan(jdbc, BY_ID_SQL, picks.get(0)[0]));
+            log.info("{}, by id, tenant and survey:\n{}", database, plan(jdbc, SCOPED_BY_ID_SQL, picks.get(0)));
+            start = System.nanoTime();
+            for (Object[] p : picks) jdbc.queryForList(BY_ID_SQL, p[0]);
+            double byIdUs = (System.nanoTime() - start) / 1e3 / picks.size();
+            start = System.nanoTime();
+            for (Object[] p : picks) jdbc.queryForList(SCOPED_BY_ID_SQL, p);
+            double scopedByIdUs = (System.nanoTime() - start) / 1e3 / picks.size();
+
+            start = System.nanoTime();
+            for (int i = 0; i < EXPORTS; i++) {
+                UUID[] s = surveys.get(i % surveys.size());
+                jdbc.execute((ConnectionCallback<Long>) con -> {
+                    try {
+                        return con.unwrap(PGConnection.class).getCopyAPI()
+                                .copyOut(EXPORT_SQL.formatted(s[0], s[1]), OutputStream.nullOutputStream());
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+            double exportMs = (System.nanoTime() - start) / 1e6 / EXPORTS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < INSERTS; i += INSERT_BATCH) {
+                List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+                for (int j = 0; j < INSERT_BATCH; j++) {
+                    UUID[] s = surveys.get(random.nextInt(surveys.size()));
+                    batch.add(new Object[]{UUID.randomUUID(), s[0], s[1], UUID.randomUUID()});
+                }
+                jdbc.batchUpdate(INSERT_SQL, batch);
+            }
+            double insertsPerSecond = INSERTS / ((System.nanoTime() - start) / 1e9);
+
+            Map<String, String> results = new LinkedHashMap<>();
+            results.put("first page", String.format("%.0f us", firstPageUs));
+            results.put("page after cursor", String.format("%.0f us", pageAfterUs));
+            results.put("response by id", String.format("%.0f us", byIdUs));
+            results.put("response by id, tenant and survey", String.format("%.0f us", scopedByIdUs));
+            results.put("survey export (" + ROWS / surveys.size() + " rows)", String.format("%.0f ms", exportMs));
+            results.put("insert", String.format("%.0f rows/s", insertsPerSecond));
+            return results;
+        } finally {
+            ds.destroy();
+        }
+    }
+
+    private static String plan(JdbcTemplate jdbc, String sql, Object... args) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN (COSTS OFF) " + sql, String.class, args));
+    }
+
+    /** Tenants, surveys and {@link #ROWS} responses; returns (tenant, survey) pairs. */
+    private static List<UUID[]> seed(JdbcTemplate jdbc) {
+        LocalDate thisMonth = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        if (Boolean.TRUE.equals(jdbc.queryForObject("SELECT to_regproc('public.create_responses_month_partition') IS NOT NULL", Boolean.class))) {
+            for (int m = 1; m <= MONTHS; m++) {
+                jdbc.queryForList("SELECT public.create_responses_month_partition(?)", thisMonth.minusMonths(m));
+            }
+        }
+        List<UUID[]> surveys = new ArrayList<>();
+        for (int t = 0; t < TENANTS; t++) {
+            UUID tenant = UUID.randomUUID();
+            jdbc.update("INSERT INTO tenants (id, name) VALUES (?, ?)", tenant, "bench-" + tenant);
+            for (int s = 0; s < SURVEYS_PER_TENANT; s++) {
+                UUID survey = UUID.randomUUID();
+                jdbc.update("INSERT INTO surveys (id, tenant_id, title, status) VALUES (?, ?, ?, 'ACTIVE')",
+                        survey, tenant, "bench-" + survey);
+                surveys.add(new UUID[]{tenant, survey});
+            }
+        }
+        jdbc.update("CREATE TEMP TABLE bench_surveys (n int, tenant_id uuid, survey_id uuid)");
+        for (int i = 0; i < surveys.size(); i++) {
+            jdbc.update("INSERT INTO bench_surveys VALUES (?, ?, ?)", i, surveys.get(i)[0], surveys.get(i)[1]);
+        }
+        Instant from = thisMonth.minusMonths(MONTHS).atStartOfDay(ZoneOffset.UTC).toInstant();
+        jdbc.update("""
+                INSERT INTO responses (id, tenant_id, survey_id, respondent_id, answers_json, submitted_at)
+                SELECT uuid_generate_v4(), b.tenant_id, b.survey_id, uuid_generate_v4(),
+                       jsonb_build_object('q1', 'answer ' || g, 'q2', g % 5),
+                       now() - (now() - ?::timestamptz) * random()
+                FROM generate_series(1, ?) g
+                JOIN bench_surveys b ON b.n = g % ?
+                """, Timestamp.from(from), ROWS, surveys.size());
+        jdbc.execute("DROP TABLE bench_surveys");
+        jdbc.execute("VACUUM ANALYZE responses");
+        return surveys;
+    }
+}
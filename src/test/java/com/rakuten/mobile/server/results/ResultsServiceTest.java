@@ -0,0 +1,134 @@
+package com.rakuten.mobile.server.results;
+
+import com.rakuten.mobile.server.ingest.ResponseBatchWriter;
+import com.rakuten.mobile.server.ingest.Submission;
+import com.rakuten.mobile.server.repo.ResponseTallyRepository;
+import com.rakuten.mobile.server.repo.ResponseTallyRepository.TallyRow;
+import com.rakuten.mobile.server.service.ResponseService;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import com.rakuten.mobile.server.tenancy.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reconciliation of incrementally counted tallies against a rebuild from the stored responses.
+ */
+@PostgresTest
+class ResultsServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 60;
+
+    @Autowired ResultsService results;
+    @Autowired ResponseService responses;
+    @Autowired ResponseBatchWriter batchWriter;
+    @Autowired TallyAccumulator accumulator;
+    @Autowired TallyFlusher flusher;
+    @Autowired ResponseTallyRepository tallies;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired JdbcTemplate jdbc;
+
+    private UUID tenantId;
+    private UUID surveyId;
+    private UUID choice;
+    private UUID number;
+
+    @BeforeEach
+    void seed() {
+        tenantId = TestData.tenant(jdbc);
+        surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        choice = TestData.question(jdbc, tenantId, surveyId, "SINGLE_CHOICE", 1);
+        TestData.option(jdbc, tenantId, choice, "a", 1);
+        TestData.option(jdbc, tenantId, choice, "b", 2);
+        number = TestData.question(jdbc, tenantId, surveyId, "NUMBER", 2);
+        TenantContext.set(tenantId.toString());
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void countsMatchARebuildWhenRebuildsRaceWithSubmissions() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                boolean batched = t % 2 == 0;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        if (batched) {
+                            batchWriter.write(List.of(new Submission(surveyId, tenantId, UUID.randomUUID(), answers(i), null)));
+                        } else {
+                            responses.submit(surveyId, tenantId, UUID.randomUUID(), answers(i), null);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            while (writers.stream().anyMatch(f -> !f.isDone())) {
+                results.rebuild(surveyId);
+                flusher.flush();
+            }
+            for (Future<?> f : writers) f.get();
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        flusher.flush();
+
+        List<TallyRow> counted = stored();
+        results.rebuild(surveyId);
+
+        assertEquals(stored(), counted);
+        assertEquals(THREADS * PER_THREAD, total(counted));
+    }
+
+    @Test
+    void deltasPendingOnAnotherNodeAreDroppedByARebuild() {
+        responses.submit(surveyId, tenantId, UUID.randomUUID(), answers(1), null);
+        // Hand this node's pending counts to a second node that has not flushed yet
+        TallyAccumulator otherNode = new TallyAccumulator();
+        otherNode.restore(accumulator.drain());
+
+        results.rebuild(surveyId);
+        new TallyFlusher(otherNode, tallies, txManager).flush();
+        flusher.flush();
+
+        assertEquals(1, total(stored()));
+        assertEquals(1, results.results(surveyId).responses());
+    }
+
+    private Map<String, Object> answers(int i) {
+        return Map.of(choice.toString(), i % 3 == 0 ? "a" : "b", number.toString(), i % 10);
+    }
+
+    private List<TallyRow> stored() {
+        return tallies.findBySurvey(tenantId, surveyId).stream()
+                .sorted(Comparator.comparing(TallyRow::questionId).thenComparing(TallyRow::bucket))
+                .toList();
+    }
+
+    private static long total(List<TallyRow> rows) {
+        return rows.stream().filter(r -> r.questionId().equals(TallyAccumulator.SURVEY_TOTAL))
+                .mapToLong(TallyRow::count).sum();
+    }
+}
@@ -0,0 +1,160 @@
+package com.rakuten.mobile.server.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakuten.mobile.server.domain.QuestionType;
+import com.rakuten.mobile.server.repo.EncodedAnswers;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import com.rakuten.mobile.server.tenancy.TenantContext;
+import com.rakuten.mobile.server.web.dto.question.CreateQuestionReq;
+import com.rakuten.mobile.server.web.dto.question.CreateQuestionReq.OptionReq;
+import com.rakuten.mobile.server.web.dto.question.UpdateQuestionReq;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compact answers decode in SQL ({@code decode_response_answers}) to exactly the keyed answers
+ * they were encoded from.
+ */
+@PostgresTest
+@TestPropertySource(properties = {"app.answers.encoding=compact", "app.answers.projector.enabled=false"})
+class AnswerEncoderTest {
+
+    private static final String DECODE_SQL = "SELECT decode_response_answers(CAST(? AS jsonb), ?, ?)::text";
+
+    @Autowired AnswerEncoder encoder;
+    @Autowired QuestionService questions;
+    @Autowired ObjectMapper om;
+    @Autowired JdbcTemplate jdbc;
+
+    private UUID tenantId;
+    private UUID surveyId;
+    private UUID text;
+    private UUID number;
+    private UUID single;
+    private UUID multi;
+
+    @BeforeEach
+    void seed() {
+        tenantId = TestData.tenant(jdbc);
+        surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        text = TestData.question(jdbc, tenantId, surveyId, "TEXT", 1);
+        number = TestData.question(jdbc, tenantId, surveyId, "NUMBER", 2);
+        single = TestData.question(jdbc, tenantId, surveyId, "SINGLE_CHOICE", 3);
+        multi = TestData.question(jdbc, tenantId, surveyId, "MULTI_CHOICE", 4);
+        for (UUID q : List.of(single, multi)) {
+            TestData.option(jdbc, tenantId, q, "a", 1);
+            TestData.option(jdbc, tenantId, q, "b", 2);
+            TestData.option(jdbc, tenantId, q, "c", 3);
+        }
+        TenantContext.set(tenantId.toString());
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void everyQuestionTypeRoundTrips() throws Exception {
+        Map<String, Object> answers = answers("free text", 4.5, "b", List.of("a", "c"));
+
+        EncodedAnswers encoded = encoder.encode(tenantId, surveyId, answers);
+
+        assertEquals(List.of("free text", 4.5, 1, 5), om.readValue(encoded.json(), List.class));
+        assertRoundTrip(answers, encoded);
+        assertRoundTrip(answers("", -3, "a", List.of("b")), encoder.encode(tenantId, surveyId, answers("", -3, "a", List.of("b"))));
+    }
+
+    @Test
+    void multiChoiceRoundTripsAsBitsetAndAsOrdinals() throws Exception {
+        Map<String, Object> inOrder = Map.of(multi.toString(), List.of("a", "b", "c"));
+        Map<String, Object> reordered = Map.of(multi.toString(), List.of("c", "a"));
+        Map<String, Object> repeated = Map.of(multi.toString(), List.of("b", "b"));
+
+        EncodedAnswers bitset = encoder.encode(tenantId, surveyId, inOrder);
+        EncodedAnswers ordinals = encoder.encode(tenantId, surveyId, reordered);
+        EncodedAnswers duplicates = encoder.encode(tenantId, surveyId, repeated);
+
+        assertTrue(slot(bitset, 3).isNumber());
+        assertTrue(slot(ordinals, 3).isArray());
+        assertTrue(slot(duplicates, 3).isArray());
+        assertRoundTrip(inOrder, bitset);
+        assertRoundTrip(reordered, ordinals);
+        assertRoundTrip(repeated, duplicates);
+    }
+
+    @Test
+    void emptyChoiceListRoundTrips() throws Exception {
+        Map<String, Object> answers = Map.of(multi.toString(), List.of());
+
+        EncodedAnswers encoded = encoder.encode(tenantId, surveyId, answers);
+
+        assertNotNull(encoded.schemaVersion());
+        assertRoundTrip(answers, encoded);
+    }
+
+    @Test
+    void trailingUnansweredQuestionsAreOmitted() throws Exception {
+        Map<String, Object> answers = new LinkedHashMap<>();
+        answers.put(text.toString(), "only the first two");
+        answers.put(number.toString(), 7);
+
+        EncodedAnswers encoded = encoder.encode(tenantId, surveyId, answers);
+
+        assertEquals(2, om.readTree(encoded.json()).size());
+        assertRoundTrip(answers, encoded);
+        assertRoundTrip(Map.of(single.toString(), "c"), encoder.encode(tenantId, surveyId, Map.of(single.toString(), "c")));
+    }
+
+    @Test
+    void answersDecodeAgainstTheirSnapshotAfterTheDefinitionIsEdited() throws Exception {
+        Map<String, Object> answers = answers("before the edit", 1, "c", List.of("a", "b"));
+        EncodedAnswers encoded = encoder.encode(tenantId, surveyId, answers);
+
+        List<OptionReq> reversed = List.of(new OptionReq("c", null), new OptionReq("b", null), new OptionReq("a", null));
+        questions.update(single, new UpdateQuestionReq(null, null, null, reversed));
+        questions.update(multi, new UpdateQuestionReq(null, null, null, reversed));
+        questions.create(surveyId, new CreateQuestionReq("added", QuestionType.TEXT, false, null));
+        EncodedAnswers reencoded = encoder.encode(tenantId, surveyId, answers);
+
+        assertNotEquals(encoded.schemaVersion(), reencoded.schemaVersion());
+        assertNotEquals(encoded.json(), reencoded.json());
+        assertRoundTrip(answers, encoded);
+        assertRoundTrip(answers, reencoded);
+    }
+
+    private Map<String, Object> answers(String t, Object n, String s, List<String> m) {
+        Map<String, Object> answers = new LinkedHashMap<>();
+        answers.put(text.toString(), t);
+        answers.put(number.toString(), n);
+        answers.put(single.toString(), s);
+        answers.put(multi.toString(), m);
+        return answers;
+    }
+
+    private JsonNode slot(EncodedAnswers encoded, int position) throws Exception {
+        return om.readTree(encoded.json()).get(position);
+    }
+
+    private void assertRoundTrip(Map<String, Object> answers, EncodedAnswers encoded) throws Exception {
+        assertNotNull(encoded.schemaVersion(), "not encoded compactly: " + encoded.json());
+        String decoded = jdbc.queryForObject(DECODE_SQL, String.class, encoded.json(), surveyId, encoded.schemaVersion());
+        assertEquals(om.valueToTree(answers), om.readTree(decoded));
+    }
+}
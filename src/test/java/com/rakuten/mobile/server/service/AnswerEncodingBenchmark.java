@@ -0,0 +1,146 @@
+package com.rakuten.mobile.server.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakuten.mobile.server.repo.EncodedAnswers;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keyed against compact answer storage ({@code app.answers.encoding=compact}) on one survey of
+ * {@link #QUESTIONS} questions, rotating through TEXT, NUMBER, SINGLE_CHOICE and MULTI_CHOICE
+ * (5 options each), with {@link #ROWS} fully answered responses in each format:
+ *
+ * - encoding: {@link AnswerEncoder#encode} against writing the keyed map;
+ * - insert: the batched INSERT of {@code ResponseBatchWriter}, {@link #BATCH} rows per batch;
+ * - storage: {@code pg_column_size} of {@code answers_json}, i.e. after TOAST compression;
+ * - scan: reading every response's answers in the keyed form the API returns, which decodes
+ *   compact rows with {@code decode_response_answers} (median of {@link #RUNS} after a warm-up).
+ */
+@Slf4j
+@Tag("benchmark")
+@PostgresTest
+@TestPropertySource(properties = {"app.answers.encoding=compact", "app.answers.projector.enabled=false"})
+class AnswerEncodingBenchmark {
+
+    private static final int QUESTIONS = 20;
+    private static final int ROWS = 200_000;
+    private static final int BATCH = 1_000;
+    private static final int RUNS = 3;
+    private static final String[] TYPES = {"TEXT", "NUMBER", "SINGLE_CHOICE", "MULTI_CHOICE"};
+
+    private static final String INSERT_SQL = """
+            INSERT INTO responses (id, tenant_id, survey_id, respondent_id, answers_json, schema_version, submitted_at)
+            VALUES (?, ?, ?, ?, CAST(? AS jsonb), ?, ?)
+            """;
+
+    private static final String SIZE_SQL = """
+            SELECT sum(pg_column_size(answers_json)) FROM responses
+            WHERE survey_id = ? AND (schema_version IS NULL) = ?
+            """;
+
+    private static final String SCAN_SQL = """
+            SELECT sum(length(decode_response_answers(answers_json, survey_id, schema_version)::text)) FROM responses
+            WHERE survey_id = ? AND (schema_version IS NULL) = ?
+            """;
+
+    @Autowired AnswerEncoder encoder;
+    @Autowired ObjectMapper om;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void keyedAgainstCompact() throws JsonProcessingException {
+        UUID tenantId = TestData.tenant(jdbc);
+        UUID surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        List<String> questions = new ArrayList<>();
+        for (int q = 0; q < QUESTIONS; q++) {
+            String type = TYPES[q % TYPES.length];
+            UUID questionId = TestData.question(jdbc, tenantId, surveyId, type, q + 1);
+            if (type.endsWith("CHOICE")) {
+                for (int o = 0; o < 5; o++) TestData.option(jdbc, tenantId, questionId, "o" + o, o + 1);
+            }
+            questions.add(questionId.toString());
+        }
+        List<Map<String, Object>> answers = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Map<String, Object> a = new LinkedHashMap<>();
+            for (int q = 0; q < QUESTIONS; q++) {
+                a.put(questions.get(q), switch (TYPES[q % TYPES.length]) {
+                    case "TEXT" -> "free text answer " + i;
+                    case "NUMBER" -> (i * 7 + q) % 100;
+                    case "SINGLE_CHOICE" -> "o" + (i + q) % 5;
+                    default -> List.of("o" + i % 5, "o" + (i + 2) % 5);
+                });
+            }
+            answers.add(a);
+        }
+
+        encoder.encode(tenantId, surveyId, answers.get(0)); // stores the schema snapshot
+        long start = System.nanoTime();
+        List<EncodedAnswers> keyed = new ArrayList<>(ROWS);
+        for (Map<String, Object> a : answers) keyed.add(EncodedAnswers.keyed(om.writeValueAsString(a)));
+        long keyedEncodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        List<EncodedAnswers> compact = new ArrayList<>(ROWS);
+        for (Map<String, Object> a : answers) compact.add(encoder.encode(tenantId, surveyId, a));
+        long compactEncodeNanos = System.nanoTime() - start;
+        if (compact.stream().anyMatch(e -> e.schemaVersion() == null)) {
+            throw new IllegalStateException("Answers were not encoded compactly");
+        }
+
+        double keyedInsert = insert(tenantId, surveyId, keyed);
+        double compactInsert = insert(tenantId, surveyId, compact);
+        jdbc.execute("VACUUM ANALYZE responses");
+
+        log.info("keyed: {}", report(surveyId, true, keyedEncodeNanos, keyedInsert));
+        log.info("compact: {}", report(surveyId, false, compactEncodeNanos, compactInsert));
+    }
+
+    /** Inserts the rows in batches; returns rows per second. */
+    private double insert(UUID tenantId, UUID surveyId, List<EncodedAnswers> rows) {
+        Timestamp now = Timestamp.from(Instant.now());
+        long start = System.nanoTime();
+        for (int from = 0; from < rows.size(); from += BATCH) {
+            List<EncodedAnswers> batch = rows.subList(from, Math.min(from + BATCH, rows.size()));
+            jdbc.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, e) -> {
+                ps.setObject(1, UUID.randomUUID());
+                ps.setObject(2, tenantId);
+                ps.setObject(3, surveyId);
+                ps.setObject(4, UUID.randomUUID());
+                ps.setString(5, e.json());
+                ps.setObject(6, e.schemaVersion());
+                ps.setTimestamp(7, now);
+            });
+        }
+        return rows.size() / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private String report(UUID surveyId, boolean keyed, long encodeNanos, double insertRowsPerSecond) {
+        Long bytes = jdbc.queryForObject(SIZE_SQL, Long.class, surveyId, keyed);
+        jdbc.queryForObject(SCAN_SQL, Long.class, surveyId, keyed);
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            jdbc.queryForObject(SCAN_SQL, Long.class, surveyId, keyed);
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(millis);
+        return String.format("%d bytes per response (%.1f MB), encode %.2f us, insert %d rows/s, scan %d ms",
+                bytes / ROWS, bytes / 1e6, encodeNanos / 1e3 / ROWS, Math.round(insertRowsPerSecond), millis[RUNS / 2]);
+    }
+}
@@ -0,0 +1,87 @@
+package com.rakuten.mobile.server.service;
+
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Latency of filtered response listing ({@link ResponseService#list} with an {@link AnswerFilter},
+ * first page of 50 plus its count) on one survey with {@code benchmark.filter.rows} responses
+ * (default 10,000,000), served by the GIN index {@code idx_responses_answers_gin}.
+ *
+ * Every response answers a choice question ({@code yes} 50%, {@code no} 49.99%, {@code rare}
+ * 0.01%) and a number question (0-99, uniform). Rows are loaded with the GIN index dropped and
+ * the projection queue trigger disabled, and the index is built afterwards, as a bulk load would.
+ */
+@Slf4j
+@Tag("benchmark")
+@PostgresTest
+@TestPropertySource(properties = "app.answers.projector.enabled=false")
+class AnswerFilterBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.filter.rows", 10_000_000);
+    private static final int WARMUP = 2;
+    private static final int RUNS = 20;
+
+    @Autowired ResponseService responses;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void selectiveFilters() {
+        UUID tenantId = TestData.tenant(jdbc);
+        UUID surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        UUID choice = TestData.question(jdbc, tenantId, surveyId, "SINGLE_CHOICE", 1);
+        UUID number = TestData.question(jdbc, tenantId, surveyId, "NUMBER", 2);
+        seed(tenantId, surveyId, choice, number);
+
+        Map<String, String> filters = new LinkedHashMap<>();
+        filters.put("0.01%", choice + " = \"rare\"");
+        filters.put("0.5%", choice + " = \"yes\" and " + number + " >= 99");
+        filters.put("1%", number + " = 42");
+        filters.put("50%", choice + " = \"yes\"");
+        filters.forEach((selectivity, expression) -> {
+            AnswerFilter filter = AnswerFilter.parse(expression);
+            long[] micros = new long[RUNS];
+            long matches = 0;
+            for (int i = 0; i < WARMUP + RUNS; i++) {
+                long start = System.nanoTime();
+                matches = responses.list(surveyId, filter, PageRequest.of(0, 50)).getTotalElements();
+                if (i >= WARMUP) micros[i - WARMUP] = (System.nanoTime() - start) / 1_000;
+            }
+            Arrays.sort(micros);
+            log.info("{} ({} of {} rows): median {} ms, p95 {} ms", selectivity, matches, ROWS,
+                    String.format("%.1f", micros[RUNS / 2] / 1e3), String.format("%.1f", micros[RUNS * 95 / 100] / 1e3));
+        });
+    }
+
+    private void seed(UUID tenantId, UUID surveyId, UUID choice, UUID number) {
+        jdbc.execute("DROP INDEX IF EXISTS idx_responses_answers_gin");
+        jdbc.execute("ALTER TABLE responses DISABLE TRIGGER trg_responses_enqueue_answers");
+        long start = System.nanoTime();
+        jdbc.update("""
+                INSERT INTO responses (id, tenant_id, survey_id, respondent_id, answers_json, submitted_at)
+                SELECT uuid_generate_v4(), ?, ?, uuid_generate_v4(),
+                       jsonb_build_object(?::text, CASE WHEN g % 10000 = 0 THEN 'rare' WHEN g % 2 = 0 THEN 'yes' ELSE 'no' END,
+                                          ?::text, abs(hashint4(g)) % 100),
+                       now()
+                FROM generate_series(1, ?) g
+                """, tenantId, surveyId, choice.toString(), number.toString(), ROWS);
+        log.info("loaded {} rows in {} s", ROWS, (System.nanoTime() - start) / 1_000_000_000);
+        start = System.nanoTime();
+        jdbc.execute("CREATE INDEX idx_responses_answers_gin ON responses USING gin (answers_json jsonb_path_ops)");
+        log.info("built idx_responses_answers_gin in {} s", (System.nanoTime() - start) / 1_000_000_000);
+        jdbc.execute("ALTER TABLE responses ENABLE TRIGGER trg_responses_enqueue_answers");
+        jdbc.execute("VACUUM ANALYZE responses");
+    }
+}
@@ -0,0 +1,86 @@
+package com.rakuten.mobile.server.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnswerFilterTest {
+
+    private static final String Q1 = "6f1c0e2a-1b2c-4d3e-8f40-5a6b7c8d9e0f";
+    private static final String Q2 = "4A2B0E2A-1B2C-4D3E-8F40-5A6B7C8D9E0F";
+
+    @Test
+    void noFilter() {
+        assertNull(AnswerFilter.parse(null));
+        assertNull(AnswerFilter.parse("  "));
+    }
+
+    @Test
+    void rendersPathPredicate() {
+        AnswerFilter f = AnswerFilter.parse(Q1 + " = \"yes\" and (" + Q2 + " > 5 or not " + Q2 + " <> 0)");
+
+        assertEquals("$.\"" + Q1 + "\" == \"yes\" && ($.\"" + Q2.toLowerCase() + "\" > 5 || !($.\""
+                + Q2.toLowerCase() + "\" != 0))", f.jsonPath());
+    }
+
+    @Test
+    void numbersAreRenderedPlain() {
+        assertEquals("$.\"" + Q1 + "\" >= 1200", AnswerFilter.parse(Q1 + " >= 1.2e3").jsonPath());
+        assertEquals("$.\"" + Q1 + "\" < -0.5", AnswerFilter.parse(Q1 + " < -0.500").jsonPath());
+        assertEquals("$.\"" + Q1 + "\" == true", AnswerFilter.parse(Q1 + " = TRUE").jsonPath());
+    }
+
+    @Test
+    void stringLiteralsAreReEncoded() {
+        // A quote and a backslash in the value stay inside the path string literal
+        assertEquals("$.\"" + Q1 + "\" == \"a\\\" || $.x == \\\"b\"",
+                AnswerFilter.parse(Q1 + " = \"a\\\" || $.x == \\\"b\"").jsonPath());
+        assertEquals("$.\"" + Q1 + "\" == \"caf\\u00e9\\u000a\"",
+                AnswerFilter.parse(Q1 + " = \"café\\n\"").jsonPath());
+    }
+
+    @Test
+    void onlyQuestionIdsAndLiteralsAreAccepted() {
+        assertInvalid("$.secret = 1");
+        assertInvalid(Q1 + "\" || true || \"x = 1");
+        assertInvalid(Q1 + " = 1; DROP TABLE responses");
+        assertInvalid(Q1 + " = $.other");
+        assertInvalid(Q1 + " = exists");
+        assertInvalid(Q1 + " ! 1");
+        assertInvalid(Q1 + " = 1 " + Q2);
+        assertInvalid("(" + Q1 + " = 1");
+        assertInvalid(Q1 + " = \"open");
+        assertInvalid(Q1 + " = \"bad \\x escape\"");
+    }
+
+    @Test
+    void limitsAreEnforced() {
+        assertInvalid(Q1 + " = \"" + "x".repeat(4000) + "\"");
+        assertInvalid((Q1 + " = 1 or ").repeat(50) + Q1 + " = 1");
+        assertInvalid("(".repeat(20) + Q1 + " = 1" + ")".repeat(20));
+        assertEquals(50, AnswerFilter.parse((Q1 + " = 1 or ").repeat(49) + Q1 + " = 1").jsonPath().split("\\|\\|").length);
+    }
+
+    @Test
+    void hugeExponentsAreRejectedWithoutExpanding() {
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            assertInvalid(Q1 + " > 1e999999999");
+            assertInvalid(Q1 + " > 1e-999999999");
+            assertInvalid(Q1 + " > 1e101");
+            assertInvalid(Q1 + " > 0." + "0".repeat(100) + "1");
+        });
+        assertEquals("$.\"" + Q1 + "\" > 1" + "0".repeat(99), AnswerFilter.parse(Q1 + " > 1e99").jsonPath());
+        assertEquals("$.\"" + Q1 + "\" > 1", AnswerFilter.parse(Q1 + " > 1." + "0".repeat(500)).jsonPath());
+    }
+
+    private static void assertInvalid(String expression) {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> AnswerFilter.parse(expression));
+        assertTrue(e.getMessage().startsWith("Invalid filter: "), e.getMessage());
+    }
+}
@@ -0,0 +1,69 @@
+package com.rakuten.mobile.server.service;
+
+import com.rakuten.mobile.server.repo.IdempotencyClaimRepository;
+import com.rakuten.mobile.server.support.PostgresTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@PostgresTest
+class IdempotencyPartitionMaintainerTest {
+
+    @Autowired IdempotencyPartitionMaintainer maintainer;
+    @Autowired IdempotencyClaimRepository claims;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void keysParkedInTheDefaultPartitionMoveIntoTheirDay() {
+        LocalDate day = claims.today().plusDays(40);
+        insertKey(day);
+        insertKey(day);
+        assertEquals(2, count("idempotency_keys_default", day));
+
+        maintainer.createDay(day);
+
+        assertTrue(exists(partition(day)));
+        assertEquals(2, count(partition(day), day));
+        assertEquals(0, count("idempotency_keys_default", day));
+    }
+
+    @Test
+    void expiryDropsOldDaysAndPurgesTheDefaultPartition() {
+        LocalDate liveFrom = claims.liveFrom();
+        LocalDate expired = liveFrom.minusDays(30);
+        maintainer.createDay(expired);
+        insertKey(expired);
+        insertKey(liveFrom.minusDays(60)); // no partition: lands in the default one
+
+        maintainer.expire(liveFrom);
+
+        assertFalse(exists(partition(expired)));
+        assertEquals(0, count("idempotency_keys_default", liveFrom.minusDays(60)));
+    }
+
+    private void insertKey(LocalDate day) {
+        jdbc.update("INSERT INTO idempotency_keys (id, tenant_id, idem_key, created_at_epoch, created_day) VALUES (?, ?, ?, ?, ?)",
+                UUID.randomUUID(), UUID.randomUUID(), "key-" + UUID.randomUUID(), System.currentTimeMillis(), day);
+    }
+
+    private long count(String table, LocalDate day) {
+        Long n = jdbc.queryForObject("SELECT count(*) FROM " + table + " WHERE created_day = ?", Long.class, day);
+        return n == null ? 0 : n;
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, "public." + table));
+    }
+
+    private static String partition(LocalDate day) {
+        return "idempotency_keys_p" + day.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+}
@@ -0,0 +1,136 @@
+package com.rakuten.mobile.server.service;
+
+import com.rakuten.mobile.server.repo.IdempotencyClaimRepository;
+import com.rakuten.mobile.server.repo.ResponseRepository;
+import com.rakuten.mobile.server.repo.ResponseViewRepository;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A retry storm replayed against {@link ResponseService#submit}: {@link #KEYS} submissions, each
+ * sent {@link #COPIES} times, by {@link #CLIENTS} concurrent clients. Copies of a key are shuffled
+ * within blocks of {@link #BLOCK_KEYS} keys, so some arrive while the first is still being
+ * written and the rest after it committed, as aggressive client timeouts produce.
+ *
+ * The storm runs once through the {@link IdempotencyCache} and once with the cache bypassed, where
+ * every copy opens a transaction and is answered by the database claim.
+ */
+@Slf4j
+@Tag("benchmark")
+@PostgresTest
+@TestPropertySource(properties = "app.answers.projector.enabled=false")
+class IdempotencyRetryStormBenchmark {
+
+    private static final int KEYS = 2_000;
+    private static final int COPIES = 5;
+    private static final int BLOCK_KEYS = 50;
+    private static final int CLIENTS = 32;
+
+    @Autowired ResponseService responses;
+    @Autowired ResponseRepository responseRepo;
+    @Autowired ResponseViewRepository viewRepo;
+    @Autowired IdempotencyClaimRepository claims;
+    @Autowired SubmissionValidator validator;
+    @Autowired AnswerEncoder encoder;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired ApplicationEventPublisher events;
+    @Autowired MeterRegistry registry;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void retryStormWithAndWithoutCache() throws Exception {
+        UUID tenantId = TestData.tenant(jdbc);
+        UUID surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        String questionId = TestData.question(jdbc, tenantId, surveyId, "TEXT", 1).toString();
+
+        IdempotencyCache bypass = new IdempotencyCache(1, 1, new SimpleMeterRegistry()) {
+            @Override
+            public UUID resolve(UUID tenantId, String idemKey, Supplier<UUID> loader) {
+                return loader.get();
+            }
+        };
+        ResponseService uncached = new ResponseService(responseRepo, viewRepo, claims, bypass, validator, encoder, txManager, events);
+
+        storm(responses, tenantId, surveyId, questionId, "warmup-cached");
+        storm(uncached, tenantId, surveyId, questionId, "warmup-uncached");
+
+        double[] before = counters();
+        String cachedResult = storm(responses, tenantId, surveyId, questionId, "cached");
+        double[] after = counters();
+        log.info("cached: {}; {} transactions, {} hits, {} coalesced", cachedResult,
+                Math.round(after[0] - before[0]), Math.round(after[1] - before[1]), Math.round(after[2] - before[2]));
+        log.info("uncached: {}; {} transactions", storm(uncached, tenantId, surveyId, questionId, "uncached"), KEYS * COPIES);
+    }
+
+    private static String storm(ResponseService service, UUID tenantId, UUID surveyId, String questionId, String run)
+            throws Exception {
+        List<Integer> order = new ArrayList<>();
+        Random random = new Random(42);
+        for (int block = 0; block < KEYS; block += BLOCK_KEYS) {
+            List<Integer> copies = new ArrayList<>();
+            for (int k = block; k < Math.min(block + BLOCK_KEYS, KEYS); k++) {
+                for (int c = 0; c < COPIES; c++) copies.add(k);
+            }
+            Collections.shuffle(copies, random);
+            order.addAll(copies);
+        }
+
+        long[] micros = new long[order.size()];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                done.add(clients.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < order.size(); i = next.getAndIncrement()) {
+                        int key = order.get(i);
+                        long t = System.nanoTime();
+                        service.submit(surveyId, tenantId, UUID.randomUUID(), Map.of(questionId, "answer " + key),
+                                run + "-" + key);
+                        micros[i] = (System.nanoTime() - t) / 1_000;
+                    }
+                }));
+            }
+            for (Future<?> f : done) f.get();
+        } finally {
+            clients.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(micros);
+        return String.format("%d requests/s, p50 %.2f ms, p99 %.2f ms", Math.round(order.size() / seconds),
+                micros[micros.length / 2] / 1e3, micros[micros.length * 99 / 100] / 1e3);
+    }
+
+    /** Misses (transactions run), hits and coalesced requests counted by the cache so far. */
+    private double[] counters() {
+        return new double[]{count("miss"), count("hit"), count("coalesced")};
+    }
+
+    private double count(String result) {
+        return registry.get("idempotency.cache.requests").tag("result", result).functionCounter().count();
+    }
+}
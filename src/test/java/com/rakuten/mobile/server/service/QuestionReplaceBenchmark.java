@@ -0,0 +1,136 @@
+package com.rakuten.mobile.server.service;
+
+import com.rakuten.mobile.server.domain.OptionChoice;
+import com.rakuten.mobile.server.domain.Question;
+import com.rakuten.mobile.server.domain.QuestionType;
+import com.rakuten.mobile.server.repo.OptionChoiceRepository;
+import com.rakuten.mobile.server.repo.QuestionRepository;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import com.rakuten.mobile.server.tenancy.TenantContext;
+import com.rakuten.mobile.server.web.dto.question.CreateQuestionReq;
+import com.rakuten.mobile.server.web.dto.question.ReplaceQuestionsReq;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Replacing every question of a survey ({@link QuestionService#replaceAll}) with
+ * {@link #QUESTIONS} single-choice questions of {@link #OPTIONS} options each: the set-based
+ * deletes and batched inserts against the row-by-row replacement they superseded (load, then
+ * delete each option and question by id, then save each new row), replayed through the same
+ * repositories.
+ *
+ * Statements are the JDBC statements Hibernate prepared ({@link Statistics}); a batch of inserts
+ * counts once. Both paths run with the application's batching settings.
+ */
+@Slf4j
+@Tag("benchmark")
+@PostgresTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class QuestionReplaceBenchmark {
+
+    private static final int QUESTIONS = 200;
+    private static final int OPTIONS = 5;
+    private static final int WARMUP = 3;
+    private static final int RUNS = 10;
+
+    @Autowired QuestionService questions;
+    @Autowired QuestionRepository qRepo;
+    @Autowired OptionChoiceRepository oRepo;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired EntityManagerFactory emf;
+    @Autowired JdbcTemplate jdbc;
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void setBasedAgainstRowByRow() {
+        UUID tenantId = TestData.tenant(jdbc);
+        UUID surveyId = TestData.survey(jdbc, tenantId, "DRAFT");
+        TenantContext.set(tenantId.toString());
+        ReplaceQuestionsReq req = request();
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+
+        Runnable setBased = () -> questions.replaceAll(surveyId, req);
+        Runnable rowByRow = () -> tx.executeWithoutResult(s -> replaceRowByRow(tenantId, surveyId, req));
+
+        setBased.run(); // the row-by-row path starts from a full survey too
+        log.info("row by row: {}", measure(rowByRow, stats));
+        log.info("set based: {}", measure(setBased, stats));
+    }
+
+    private static String measure(Runnable replace, Statistics stats) {
+        for (int i = 0; i < WARMUP; i++) replace.run();
+        long[] micros = new long[RUNS];
+        long statements = 0;
+        for (int i = 0; i < RUNS; i++) {
+            stats.clear();
+            long start = System.nanoTime();
+            replace.run();
+            micros[i] = (System.nanoTime() - start) / 1_000;
+            statements = stats.getPrepareStatementCount();
+        }
+        Arrays.sort(micros);
+        return String.format("%d statements, median %.1f ms", statements, micros[RUNS / 2] / 1e3);
+    }
+
+    /** QuestionService.replaceAll as it was before set-based deletes. */
+    private void replaceRowByRow(UUID tenantId, UUID surveyId, ReplaceQuestionsReq req) {
+        qRepo.findBySurveyIdOrderByPositionAsc(surveyId).forEach(q -> {
+            oRepo.findByQuestionIdOrderByPositionAsc(q.getId()).forEach(o -> oRepo.deleteById(o.getId()));
+            qRepo.deleteById(q.getId());
+        });
+        int pos = 1;
+        for (CreateQuestionReq cq : req.questions()) {
+            Question q = new Question();
+            q.setId(UUID.randomUUID());
+            q.setTenantId(tenantId);
+            q.setSurveyId(surveyId);
+            q.setType(cq.type());
+            q.setText(cq.text());
+            q.setRequired(cq.required());
+            q.setPosition(pos++);
+            qRepo.save(q);
+            int i = 1;
+            for (CreateQuestionReq.OptionReq o : cq.options()) {
+                OptionChoice oc = new OptionChoice();
+                oc.setId(UUID.randomUUID());
+                oc.setTenantId(tenantId);
+                oc.setQuestionId(q.getId());
+                oc.setLabel(o.label());
+                oc.setValue(o.value());
+                oc.setPosition(i++);
+                oRepo.save(oc);
+            }
+        }
+    }
+
+    private static ReplaceQuestionsReq request() {
+        List<CreateQuestionReq> qs = new ArrayList<>();
+        for (int q = 0; q < QUESTIONS; q++) {
+            List<CreateQuestionReq.OptionReq> options = new ArrayList<>();
+            for (int o = 0; o < OPTIONS; o++) options.add(new CreateQuestionReq.OptionReq("option " + o, "o" + o));
+            qs.add(new CreateQuestionReq("question " + q, QuestionType.SINGLE_CHOICE, q % 2 == 0, options));
+        }
+        return new ReplaceQuestionsReq(qs);
+    }
+}
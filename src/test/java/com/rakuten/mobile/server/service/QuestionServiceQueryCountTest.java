@@ -0,0 +1,69 @@
+package com.rakuten.mobile.server.service;
+
+import com.rakuten.mobile.server.domain.OptionChoice;
+import com.rakuten.mobile.server.domain.Question;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@PostgresTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class QuestionServiceQueryCountTest {
+
+    private static final int QUESTIONS = 20;
+    private static final int OPTIONS = 5;
+
+    @Autowired QuestionService questions;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired EntityManagerFactory emf;
+
+    private UUID surveyId;
+    private Statistics stats;
+
+    @BeforeEach
+    void seed() {
+        UUID tenantId = TestData.tenant(jdbc);
+        surveyId = TestData.survey(jdbc, tenantId, "DRAFT");
+        for (int i = 0; i < QUESTIONS; i++) {
+            UUID q = TestData.question(jdbc, tenantId, surveyId, i % 2 == 0 ? "SINGLE_CHOICE" : "MULTI_CHOICE", i);
+            for (int o = 0; o < OPTIONS; o++) {
+                TestData.option(jdbc, tenantId, q, "option " + o, o);
+            }
+        }
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void optionsOfAllQuestionsAreLoadedWithOneQuery() {
+        List<Question> qs = questions.list(surveyId);
+        stats.clear();
+
+        Map<UUID, List<OptionChoice>> byQuestion = questions.optionsByQuestion(qs);
+
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(QUESTIONS, byQuestion.size());
+        byQuestion.values().forEach(opts -> assertEquals(OPTIONS, opts.size()));
+    }
+
+    @Test
+    void listingQuestionsWithOptionsCostsTwoQueries() {
+        stats.clear();
+
+        questions.optionsByQuestion(questions.list(surveyId));
+
+        assertEquals(2, stats.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,108 @@
+package com.rakuten.mobile.server.service;
+
+import com.rakuten.mobile.server.domain.OptionChoice;
+import com.rakuten.mobile.server.domain.Question;
+import com.rakuten.mobile.server.domain.QuestionType;
+import com.rakuten.mobile.server.domain.Survey;
+import com.rakuten.mobile.server.support.Benchmarks;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of validating one fully answered submission against a {@link SurveyValidationPlan}, and of
+ * compiling the plan on a cache miss, by survey size. Question types rotate through TEXT, NUMBER,
+ * SINGLE_CHOICE and MULTI_CHOICE; choice questions have 5 options.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SubmissionValidationBenchmark {
+
+    private static final QuestionType[] TYPES = {
+            QuestionType.TEXT, QuestionType.NUMBER, QuestionType.SINGLE_CHOICE, QuestionType.MULTI_CHOICE };
+
+    @Param({"10", "100", "1000"})
+    public int questions;
+
+    private Survey survey;
+    private List<Question> qs;
+    private List<OptionChoice> options;
+    private SurveyValidationPlan plan;
+    private Map<String, Object> answers;
+
+    @Test
+    void run() throws RunnerException {
+        Benchmarks.run(SubmissionValidationBenchmark.class);
+    }
+
+    @Setup
+    public void setUp() {
+        UUID tenantId = UUID.randomUUID();
+        survey = new Survey();
+        survey.setId(UUID.randomUUID());
+        survey.setTenantId(tenantId);
+        survey.setStatus("ACTIVE");
+
+        qs = new ArrayList<>();
+        options = new ArrayList<>();
+        answers = new HashMap<>();
+        for (int i = 0; i < questions; i++) {
+            Question q = new Question();
+            q.setTenantId(tenantId);
+            q.setSurveyId(survey.getId());
+            q.setType(TYPES[i % TYPES.length]);
+            q.setText("Question " + i);
+            q.setRequired(i % 2 == 0);
+            q.setPosition(i);
+            qs.add(q);
+            if (q.getType() == QuestionType.SINGLE_CHOICE || q.getType() == QuestionType.MULTI_CHOICE) {
+                for (int o = 0; o < 5; o++) {
+                    OptionChoice c = new OptionChoice();
+                    c.setTenantId(tenantId);
+                    c.setQuestionId(q.getId());
+                    c.setLabel("Option " + o);
+                    c.setValue("o" + o);
+                    c.setPosition(o);
+                    options.add(c);
+                }
+            }
+            answers.put(q.getId().toString(), switch (q.getType()) {
+                case TEXT -> "free text answer";
+                case NUMBER -> 42;
+                case SINGLE_CHOICE -> "o2";
+                case MULTI_CHOICE -> List.of("o1", "o3");
+            });
+        }
+        plan = SurveyValidationPlan.compile(survey, qs, options);
+    }
+
+    /** The hot path: a cached plan. */
+    @Benchmark
+    public SurveyValidationPlan validate() {
+        plan.validate(answers);
+        return plan;
+    }
+
+    /** Once per survey and node, after the survey loaded (three queries, not measured here). */
+    @Benchmark
+    public SurveyValidationPlan compile() {
+        return SurveyValidationPlan.compile(survey, qs, options);
+    }
+}
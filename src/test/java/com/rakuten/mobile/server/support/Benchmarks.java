@@ -0,0 +1,46 @@
+package com.rakuten.mobile.server.support;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs JMH benchmarks from a {@code @Tag("benchmark")} JUnit test, so they build and run with the
+ * rest of the test sources ({@code mvn -Pbenchmarks test -Dtest=...}).
+ *
+ * Defaults are one fork, 3 x 1s warmup and 5 x 1s measurement; results are printed and written
+ * to {@code target/jmh-<benchmark>.json}.
+ */
+public final class Benchmarks {
+
+    private Benchmarks() { }
+
+    public static Collection<RunResult> run(Class<?> benchmark) throws RunnerException {
+        return run(benchmark, UnaryOperator.identity());
+    }
+
+    /**
+     * @param benchmark The class whose {@code @Benchmark} methods to run.
+     * @param options Adjusts the defaults, e.g. to add profilers or pin parameters.
+     */
+    public static Collection<RunResult> run(Class<?> benchmark, UnaryOperator<ChainedOptionsBuilder> options)
+            throws RunnerException {
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .include(benchmark.getName().replace("$", "\\$") + "\\.")
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-" + benchmark.getSimpleName() + ".json");
+        return new Runner(options.apply(builder).build()).run();
+    }
+}
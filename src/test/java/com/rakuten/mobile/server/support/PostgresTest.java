@@ -0,0 +1,42 @@
+package com.rakuten.mobile.server.support;
+
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a test class against the full application on a real PostgreSQL database
+ * ({@code survey_it} on the server from {@link TestDatabases}), migrated by Flyway at startup.
+ * The class is skipped when neither Docker nor {@code -Dtest.postgres.url} is available.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@SpringBootTest
+@ContextConfiguration(initializers = PostgresTest.Initializer.class)
+@EnabledIf("com.rakuten.mobile.server.support.TestDatabases#available")
+public @interface PostgresTest {
+
+    String DATABASE = "survey_it";
+
+    /** Points the primary datasource at the test database. */
+    class Initializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext ctx) {
+            TestPropertyValues.of(
+                    "spring.datasource.url=" + TestDatabases.url(DATABASE),
+                    "spring.datasource.username=" + TestDatabases.username(),
+                    "spring.datasource.password=" + TestDatabases.password()
+            ).applyTo(ctx);
+        }
+    }
+}
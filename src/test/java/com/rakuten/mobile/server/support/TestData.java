@@ -0,0 +1,45 @@
+package com.rakuten.mobile.server.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+/**
+ * Seeds rows straight through JDBC, bypassing services, caches and the tenant filter.
+ */
+public final class TestData {
+
+    private TestData() { }
+
+    public static UUID tenant(JdbcTemplate jdbc) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("INSERT INTO tenants (id, name) VALUES (?, ?)", id, "tenant-" + id);
+        return id;
+    }
+
+    public static UUID survey(JdbcTemplate jdbc, UUID tenantId, String status) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("INSERT INTO surveys (id, tenant_id, title, status) VALUES (?, ?, ?, ?)",
+                id, tenantId, "survey-" + id, status);
+        return id;
+    }
+
+    public static UUID question(JdbcTemplate jdbc, UUID tenantId, UUID surveyId, String type, int position) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("INSERT INTO questions (id, tenant_id, survey_id, type, text, required, position) VALUES (?, ?, ?, ?, ?, false, ?)",
+                id, tenantId, surveyId, type, "question " + position, position);
+        return id;
+    }
+
+    public static UUID option(JdbcTemplate jdbc, UUID tenantId, UUID questionId, String label, int position) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("INSERT INTO option_choices (id, tenant_id, question_id, label, value, position) VALUES (?, ?, ?, ?, ?, ?)",
+                id, tenantId, questionId, label, label, position);
+        return id;
+    }
+
+    public static long responses(JdbcTemplate jdbc, UUID surveyId) {
+        Long n = jdbc.queryForObject("SELECT count(*) FROM responses WHERE survey_id = ?", Long.class, surveyId);
+        return n == null ? 0 : n;
+    }
+}
@@ -0,0 +1,92 @@
+package com.rakuten.mobile.server.support;
+
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PostgreSQL server for integration tests.
+ *
+ * By default a Testcontainers {@code postgres:16-alpine} container is started on first use and
+ * shared by every test class of the run. To use an existing server instead (e.g. where Docker is
+ * not available), pass {@code -Dtest.postgres.url=jdbc:postgresql://host:port/postgres} together
+ * with {@code -Dtest.postgres.username} and {@code -Dtest.postgres.password}; the user must be
+ * allowed to create databases.
+ *
+ * Databases handed out by {@link #url(String)} are dropped and created again the first time they
+ * are asked for in a run, so every run starts from an empty schema that Flyway migrates.
+ */
+public final class TestDatabases {
+
+    static final String URL_PROPERTY = "test.postgres.url";
+
+    private static PostgreSQLContainer<?> container;
+    private static final Map<String, String> created = new HashMap<>();
+
+    private TestDatabases() { }
+
+    /** Whether a server is configured or Docker can start one; used by {@link PostgresTest}. */
+    public static boolean available() {
+        return System.getProperty(URL_PROPERTY) != null || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    /**
+     * Returns the JDBC url of a fresh database on the test server, creating it on first request.
+     *
+     * @param database Name of the database.
+     */
+    public static synchronized String url(String database) {
+        return created.computeIfAbsent(database, TestDatabases::create);
+    }
+
+    public static synchronized String username() {
+        String user = System.getProperty("test.postgres.username");
+        return user != null ? user : server() == null ? "postgres" : container.getUsername();
+    }
+
+    public static synchronized String password() {
+        String password = System.getProperty("test.postgres.password");
+        return password != null ? password : server() == null ? "" : container.getPassword();
+    }
+
+    private static String create(String database) {
+        String adminUrl = adminUrl();
+        try (Connection c = DriverManager.getConnection(adminUrl, username(), password());
+             Statement st = c.createStatement()) {
+            st.execute("DROP DATABASE IF EXISTS " + database + " WITH (FORCE)");
+            st.execute("CREATE DATABASE " + database);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create test database " + database, e);
+        }
+        return withDatabase(adminUrl, database);
+    }
+
+    private static String adminUrl() {
+        String url = System.getProperty(URL_PROPERTY);
+        return url != null ? url : server().getJdbcUrl();
+    }
+
+    /** The container, started on first use; null when an external server is configured. */
+    private static PostgreSQLContainer<?> server() {
+        if (System.getProperty(URL_PROPERTY) != null) return null;
+        if (container == null) {
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+        }
+        return container;
+    }
+
+    /** Replaces the database name of a {@code jdbc:postgresql://host:port/db?params} url. */
+    static String withDatabase(String url, String database) {
+        int query = url.indexOf('?');
+        String base = query < 0 ? url : url.substring(0, query);
+        String params = query < 0 ? "" : url.substring(query);
+        return base.substring(0, base.lastIndexOf('/') + 1) + database + params;
+    }
+}
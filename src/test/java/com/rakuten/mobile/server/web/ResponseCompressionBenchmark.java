@@ -0,0 +1,107 @@
+package com.rakuten.mobile.server.web;
+
+import com.rakuten.mobile.server.support.Benchmarks;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost against bytes saved of the export codings {@link ResponseCompression} can negotiate,
+ * on a per-answer CSV export of 10,000 responses with 5 answers each (about 7.6 MB), written in
+ * 8 KB pieces as the export writer's buffer does.
+ *
+ * {@code compress} is the time to compress the whole export; the test logs each coding's
+ * compressed size afterwards.
+ */
+@Slf4j
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResponseCompressionBenchmark {
+
+    private static final int RESPONSES = 10_000;
+    private static final int WRITE_SIZE = 8 * 1024;
+
+    @Param({"gzip:1", "gzip:6", "gzip:9", "zstd:1", "zstd:3", "zstd:9"})
+    public String coding;
+
+    private byte[] csv;
+
+    @Test
+    void run() throws RunnerException, IOException, NoSuchFieldException {
+        Benchmarks.run(ResponseCompressionBenchmark.class);
+
+        ResponseCompressionBenchmark sizes = new ResponseCompressionBenchmark();
+        sizes.setUp();
+        for (String c : ResponseCompressionBenchmark.class.getField("coding").getAnnotation(Param.class).value()) {
+            sizes.coding = c;
+            long compressed = sizes.compress();
+            log.info("{}: {} of {} bytes ({}%)", c, compressed, sizes.csv.length,
+                    String.format("%.1f", 100.0 * compressed / sizes.csv.length));
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        UUID[] questions = new UUID[5];
+        for (int i = 0; i < questions.length; i++) questions[i] = new UUID(random.nextLong(), random.nextLong());
+        Instant at = Instant.parse("2025-01-01T00:00:00Z");
+
+        StringBuilder sb = new StringBuilder("response_id,submitted_at,respondent_id,question_id,value_json\n");
+        for (int r = 0; r < RESPONSES; r++) {
+            String prefix = new UUID(random.nextLong(), random.nextLong()) + "," + at.plusMillis(random.nextInt(1_000_000_000))
+                    + "," + new UUID(random.nextLong(), random.nextLong()) + ",";
+            sb.append(prefix).append(questions[0]).append(",\"\"\"").append(random.nextBoolean() ? "yes" : "no").append("\"\"\"\n");
+            sb.append(prefix).append(questions[1]).append(',').append(random.nextInt(100)).append('\n');
+            sb.append(prefix).append(questions[2]).append(",\"[\"\"red\"\", \"\"").append(random.nextBoolean() ? "blue" : "green").append("\"\"]\"\n");
+            sb.append(prefix).append(questions[3]).append(",\"\"\"Answer ").append(random.nextInt(10_000)).append(" to the free text question\"\"\"\n");
+            sb.append(prefix).append(questions[4]).append(',').append(random.nextInt(5) + 1).append('\n');
+        }
+        csv = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long compress() throws IOException {
+        String[] parts = coding.split(":");
+        CountingOutputStream counted = new CountingOutputStream();
+        try (OutputStream out = ResponseCompression.compressor(parts[0], Integer.parseInt(parts[1]), counted)) {
+            for (int off = 0; off < csv.length; off += WRITE_SIZE) {
+                out.write(csv, off, Math.min(WRITE_SIZE, csv.length - off));
+            }
+        }
+        return counted.bytes;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.rakuten.mobile.server.web;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResponseCompressionTest {
+
+    @Test
+    void identityWithoutHeader() {
+        assertNull(ResponseCompression.negotiate(null, true));
+        assertNull(ResponseCompression.negotiate(" ", true));
+    }
+
+    @Test
+    void gzipRefusedWithZeroQuality() {
+        assertNull(ResponseCompression.negotiate("gzip;q=0", true));
+        assertNull(ResponseCompression.negotiate("gzip; q=0.0, identity", false));
+        assertNull(ResponseCompression.negotiate("*;q=0", true));
+    }
+
+    @Test
+    void gzipAcceptedExplicitlyOrByWildcard() {
+        assertEquals("gzip", ResponseCompression.negotiate("gzip", false));
+        assertEquals("gzip", ResponseCompression.negotiate("deflate, GZIP;q=0.5", false));
+        assertEquals("gzip", ResponseCompression.negotiate("*", false));
+    }
+
+    @Test
+    void zstdPreferredOnlyWhenAvailableAndNotOutweighed() {
+        assertEquals("zstd", ResponseCompression.negotiate("gzip, zstd", true));
+        assertEquals("gzip", ResponseCompression.negotiate("gzip, zstd", false));
+        assertEquals("gzip", ResponseCompression.negotiate("gzip;q=1, zstd;q=0.5", true));
+        assertEquals("gzip", ResponseCompression.negotiate("gzip, zstd;q=0", true));
+    }
+}
@@ -0,0 +1,100 @@
+package com.rakuten.mobile.server.web;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakuten.mobile.server.support.Benchmarks;
+import com.rakuten.mobile.server.web.dto.ResponseRes;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a page of responses to the client, from the JSONB text the driver returns: as a raw
+ * value ({@link ResponseRes}, {@code @JsonRawValue}), and as before, parsing each answers object
+ * into a map and serializing the map again. Each response has 10 answers (text, numbers and a
+ * choice list). Run with the GC profiler: {@code gc.alloc.rate.norm} is bytes per page.
+ *
+ * The Spring MVC object mapper is stood in for by a default {@link Jackson2ObjectMapperBuilder} one.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponsePageBenchmark {
+
+    private static final TypeReference<Map<String, Object>> ANSWERS = new TypeReference<>() { };
+
+    @Param({"100", "500", "1000"})
+    public int pageSize;
+
+    private final ObjectMapper om = Jackson2ObjectMapperBuilder.json().build();
+    private List<ResponseRes> rows;
+
+    @Test
+    void run() throws RunnerException {
+        Benchmarks.run(ResponsePageBenchmark.class, o -> o.addProfiler(GCProfiler.class));
+    }
+
+    @Setup
+    public void setUp() {
+        UUID surveyId = UUID.randomUUID();
+        List<String> questions = new ArrayList<>();
+        for (int q = 0; q < 10; q++) questions.add(UUID.randomUUID().toString());
+        rows = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            StringBuilder answers = new StringBuilder("{");
+            for (int q = 0; q < questions.size(); q++) {
+                if (q > 0) answers.append(", ");
+                answers.append('"').append(questions.get(q)).append("\": ").append(switch (q % 3) {
+                    case 0 -> "\"free text answer " + i + "\"";
+                    case 1 -> Integer.toString(i * q);
+                    default -> "[\"o1\", \"o3\"]";
+                });
+            }
+            rows.add(new ResponseRes(UUID.randomUUID(), surveyId, UUID.randomUUID(), answers.append('}').toString(),
+                    Instant.now()));
+        }
+    }
+
+    /** Today: the JSONB text is copied into the response as it is. */
+    @Benchmark
+    public List<ResponseRes> rawValue() throws IOException {
+        om.writeValue(OutputStream.nullOutputStream(), rows);
+        return rows;
+    }
+
+    /** Before: the JSONB text mapped to a Map by the entity, then serialized again. */
+    @Benchmark
+    public List<MapResponseRes> parsedMap() throws IOException {
+        List<MapResponseRes> page = new ArrayList<>(rows.size());
+        for (ResponseRes r : rows) {
+            page.add(new MapResponseRes(r.id(), r.surveyId(), r.respondentId(), om.readValue(r.answersJson(), ANSWERS),
+                    r.submittedAt()));
+        }
+        om.writeValue(OutputStream.nullOutputStream(), page);
+        return page;
+    }
+
+    /** ResponseRes as it was when answers were a map. */
+    public record MapResponseRes(UUID id, UUID surveyId, UUID respondentId, Map<String, Object> answersJson,
+                                 Instant submittedAt) { }
+}
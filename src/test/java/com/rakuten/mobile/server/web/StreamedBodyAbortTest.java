@@ -0,0 +1,116 @@
+package com.rakuten.mobile.server.web;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.rakuten.mobile.server.export.ResponseExportWriter;
+import com.rakuten.mobile.server.support.PostgresTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * A streamed export that fails must not reach the client as a complete body, compressed or not.
+ * Runs on a real server port, since only the container decides how the connection ends.
+ */
+@PostgresTest
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class StreamedBodyAbortTest {
+
+    @LocalServerPort int port;
+    @Value("${app.security.jwt.secret}") String secret;
+    @Value("${app.security.jwt.issuer}") String issuer;
+
+    @MockitoBean ResponseExportWriter exporter;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final UUID tenantId = UUID.randomUUID();
+    private final UUID surveyId = UUID.randomUUID();
+
+    @Test
+    void failureAfterTheFirstBytesBreaksTheTransfer() throws IOException {
+        failAfterWriting(256 * 1024);
+
+        assertThrows(IOException.class, () -> export(null));
+    }
+
+    @Test
+    void failureAfterTheFirstCompressedBytesBreaksTheTransfer() throws IOException {
+        failAfterWriting(256 * 1024);
+
+        assertThrows(IOException.class, () -> export("gzip"));
+    }
+
+    @Test
+    void failureBeforeAnyByteIsAnUncompressedError() throws Exception {
+        doThrow(new DataAccessResourceFailureException("connection lost"))
+                .when(exporter).write(any(), anyString(), any(), any());
+
+        HttpResponse<byte[]> res = export("gzip");
+
+        assertEquals(500, res.statusCode());
+        assertFalse(res.headers().firstValue("Content-Encoding").isPresent());
+        assertEquals("application/json", res.headers().firstValue("Content-Type").orElseThrow().split(";")[0]);
+    }
+
+    @Test
+    void successfulExportIsFinished() throws Exception {
+        doAnswer(inv -> {
+            inv.getArgument(3, OutputStream.class).write("response_id\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exporter).write(any(), anyString(), any(), any());
+
+        HttpResponse<byte[]> res = export("gzip");
+
+        assertEquals(200, res.statusCode());
+        assertEquals("gzip", res.headers().firstValue("Content-Encoding").orElseThrow());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(res.body()))) {
+            assertEquals("response_id\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Writes incompressible bytes, enough to commit the response, then fails as a dropped database connection would. */
+    private void failAfterWriting(int bytes) throws IOException {
+        doAnswer(inv -> {
+            byte[] chunk = new byte[bytes];
+            new Random(42).nextBytes(chunk);
+            OutputStream out = inv.getArgument(3, OutputStream.class);
+            out.write(chunk);
+            out.flush();
+            throw new DataAccessResourceFailureException("connection lost");
+        }).when(exporter).write(any(), anyString(), any(), any());
+    }
+
+    private HttpResponse<byte[]> export(String acceptEncoding) throws IOException, InterruptedException {
+        String token = JWT.create().withIssuer(issuer).withSubject("it")
+                .withClaim("tenant", tenantId.toString()).sign(Algorithm.HMAC256(secret));
+        HttpRequest.Builder req = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/surveys/" + surveyId + "/responses/export"))
+                .header("Authorization", "Bearer " + token)
+                .header("X-Tenant-Id", tenantId.toString());
+        if (acceptEncoding != null) req.header("Accept-Encoding", acceptEncoding);
+        return client.send(req.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,110 @@
+package com.rakuten.mobile.server.web;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * The cached survey definition endpoint: ETag revalidation, invalidation when a question is edited,
+ * and tenant isolation of the cached rendering.
+ */
+@PostgresTest
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SurveyDefinitionTest {
+
+    @LocalServerPort int port;
+    @Value("${app.security.jwt.secret}") String secret;
+    @Value("${app.security.jwt.issuer}") String issuer;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired ObjectMapper om;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private UUID tenantId;
+    private UUID surveyId;
+    private UUID questionId;
+
+    @BeforeEach
+    void seed() {
+        tenantId = TestData.tenant(jdbc);
+        surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        questionId = TestData.question(jdbc, tenantId, surveyId, "TEXT", 1);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        HttpResponse<byte[]> first = definition(tenantId, null);
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<byte[]> again = definition(tenantId, etag);
+
+        assertEquals(200, first.statusCode());
+        assertEquals(304, again.statusCode());
+        assertEquals(0, again.body().length);
+        assertEquals(etag, again.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    void editingAQuestionBumpsTheVersion() throws Exception {
+        HttpResponse<byte[]> before = definition(tenantId, null);
+        String etag = before.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> edit = client.send(authorized(tenantId, "/api/surveys/" + surveyId + "/questions/" + questionId)
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString("{\"text\":\"edited\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        HttpResponse<byte[]> after = definition(tenantId, etag);
+
+        assertEquals(200, edit.statusCode());
+        assertEquals(200, after.statusCode());
+        assertNotEquals(etag, after.headers().firstValue("ETag").orElseThrow());
+        assertEquals(version(before) + 1, version(after));
+        assertEquals("edited", om.readTree(after.body()).path("questions").path(0).path("text").asText());
+    }
+
+    @Test
+    void anotherTenantsSurveyIsNotFound() throws Exception {
+        definition(tenantId, null); // cached for the owner
+
+        HttpResponse<byte[]> res = definition(TestData.tenant(jdbc), null);
+
+        assertEquals(404, res.statusCode());
+    }
+
+    private long version(HttpResponse<byte[]> res) throws IOException {
+        return om.readTree(res.body()).path("version").asLong();
+    }
+
+    private HttpResponse<byte[]> definition(UUID tenant, String ifNoneMatch) throws IOException, InterruptedException {
+        HttpRequest.Builder req = authorized(tenant, "/api/surveys/" + surveyId + "/definition");
+        if (ifNoneMatch != null) req.header("If-None-Match", ifNoneMatch);
+        return client.send(req.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest.Builder authorized(UUID tenant, String path) {
+        String token = JWT.create().withIssuer(issuer).withSubject("it")
+                .withClaim("tenant", tenant.toString()).sign(Algorithm.HMAC256(secret));
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .header("X-Tenant-Id", tenant.toString());
+    }
+}
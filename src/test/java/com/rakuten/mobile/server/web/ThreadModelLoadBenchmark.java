@@ -0,0 +1,136 @@
+package com.rakuten.mobile.server.web;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.rakuten.mobile.server.support.PostgresTest;
+import com.rakuten.mobile.server.support.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * HTTP load test of request handling on platform threads (Tomcat's pool of 200) against virtual
+ * threads (the {@code vt} profile): {@link #LEVELS} concurrent clients, each sending requests back
+ * to back for {@link #MEASURE}, after a {@link #WARMUP} at the same level. The request is a keyset
+ * page of 20 responses, which blocks on the default 10-connection Hikari pool. SQL statement
+ * logging is off, so the log does not dominate the CPU.
+ *
+ * Virtual threads need a Java 21 runtime; on an older one the {@code vt} run is skipped. Run each
+ * model in its own JVM on a JDK 21, so neither inherits the other's JIT warm-up, e.g.
+ * {@code JAVA_HOME=<jdk21> mvn -Pbenchmarks test -Dtest='ThreadModelLoadBenchmark$VirtualThreads'}.
+ */
+@Slf4j
+@Tag("benchmark")
+@PostgresTest
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {"app.answers.projector.enabled=false", "logging.level.org.hibernate.SQL=INFO"})
+class ThreadModelLoadBenchmark {
+
+    private static final int[] LEVELS = {100, 1_000};
+    private static final int RESPONSES = 1_000;
+    private static final Duration WARMUP = Duration.ofSeconds(15);
+    private static final Duration MEASURE = Duration.ofSeconds(20);
+
+    @LocalServerPort int port;
+    @Value("${app.security.jwt.secret}") String secret;
+    @Value("${app.security.jwt.issuer}") String issuer;
+    @Autowired JdbcTemplate jdbc;
+
+    @Nested
+    class PlatformThreads {
+        @Test
+        void load() throws Exception {
+            run("platform threads");
+        }
+    }
+
+    @Nested
+    @ActiveProfiles("vt")
+    class VirtualThreads {
+        @Test
+        void load() throws Exception {
+            assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21");
+            run("virtual threads");
+        }
+    }
+
+    private void run(String model) throws Exception {
+        UUID tenantId = TestData.tenant(jdbc);
+        UUID surveyId = TestData.survey(jdbc, tenantId, "ACTIVE");
+        jdbc.update("INSERT INTO responses (id, tenant_id, survey_id, respondent_id, answers_json, submitted_at)"
+                + " SELECT uuid_generate_v4(), ?, ?, uuid_generate_v4(), '{}'::jsonb, now() - g * interval '1 second'"
+                + " FROM generate_series(1, ?) g", tenantId, surveyId, RESPONSES);
+        String token = JWT.create().withIssuer(issuer).withSubject("load")
+                .withClaim("tenant", tenantId.toString()).sign(Algorithm.HMAC256(secret));
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/surveys/" + surveyId + "/responses/seek?size=20"))
+                .header("Authorization", "Bearer " + token)
+                .header("X-Tenant-Id", tenantId.toString())
+                .build();
+
+        for (int clients : LEVELS) {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            load(client, request, clients, WARMUP);
+            log.info("{}, {} clients: {}", model, clients, load(client, request, clients, MEASURE));
+        }
+    }
+
+    /** Sends requests from {@code clients} threads for {@code duration}; returns throughput and latency. */
+    private static String load(HttpClient client, HttpRequest request, int clients, Duration duration) throws Exception {
+        long end = System.nanoTime() + duration.toNanos();
+        List<List<Long>> latencies = new ArrayList<>();
+        AtomicLong errors = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                List<Long> micros = new ArrayList<>();
+                latencies.add(micros);
+                done.add(pool.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        long t = System.nanoTime();
+                        try {
+                            HttpResponse<Void> res = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (res.statusCode() != 200) errors.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        micros.add((System.nanoTime() - t) / 1_000);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : done) f.get();
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long[] all = latencies.stream().flatMap(List::stream).mapToLong(Long::longValue).sorted().toArray();
+        return String.format("%d requests/s, p50 %.1f ms, p99 %.1f ms, %d errors", Math.round(all.length / seconds),
+                all[all.length / 2] / 1e3, all[all.length * 99 / 100] / 1e3, errors.get());
+    }
+}